@@ -28,6 +28,9 @@ CREATE TABLE IF NOT EXISTS users (
     status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE',
     staff_number VARCHAR(50),
     linked_patient_id VARCHAR(36),
+    -- lower-cased copies for case-insensitive lookups, written by UserRepository
+    username_lower VARCHAR(100),
+    email_lower VARCHAR(100),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_username (username),
@@ -203,6 +206,8 @@ CREATE TABLE IF NOT EXISTS patients (
     patient_number VARCHAR(50) NOT NULL UNIQUE,
     first_name VARCHAR(100),
     last_name VARCHAR(100),
+    -- lower-cased copy for case-insensitive prefix search, written by PatientRepository
+    last_name_lower VARCHAR(100),
     date_of_birth DATE NOT NULL,
     sex VARCHAR(20),
     gender VARCHAR(20),
@@ -263,6 +268,7 @@ CREATE TABLE IF NOT EXISTS medical_records (
     chief_complaint TEXT,
     diagnosis TEXT,
     treatment_plan TEXT,
+    prescription_summary TEXT,
     notes TEXT,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -518,3 +524,12 @@ CREATE INDEX IF NOT EXISTS idx_admissions_patient_status ON admissions(patient_i
 CREATE INDEX IF NOT EXISTS idx_lab_orders_patient_status ON lab_orders(patient_id, status);
 CREATE INDEX IF NOT EXISTS idx_billings_patient_status ON billings(patient_id, status);
 CREATE INDEX IF NOT EXISTS idx_notifications_recipient_seen ON notifications(recipient_user_id, seen, created_at DESC);
+
+-- Case-insensitive lookups compare the *_lower columns and creation-date
+-- finders use half-open created_at ranges, so both can seek these indexes.
+-- Databases created before these columns existed are upgraded (columns added
+-- and backfilled) by Util.SchemaMigrations on startup.
+CREATE INDEX IF NOT EXISTS idx_users_username_lower ON users(username_lower);
+CREATE INDEX IF NOT EXISTS idx_users_email_lower ON users(email_lower);
+CREATE INDEX IF NOT EXISTS idx_patients_last_name_lower ON patients(last_name_lower);
+CREATE INDEX IF NOT EXISTS idx_patients_created_at ON patients(created_at);
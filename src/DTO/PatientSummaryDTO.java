@@ -1,9 +1,11 @@
 package DTO;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 public class PatientSummaryDTO {
     private String id;
+    private String patientNumber;
     private String fullName;
     private Integer age; // computed on server
     private String gender;
@@ -11,6 +13,8 @@ public class PatientSummaryDTO {
     private String roomId;
     private String bedId;
     private LocalDateTime admittedAt;
+    private LocalDate dateOfBirth;
+    private String contactNumber;
 
     public PatientSummaryDTO() {}
 
@@ -28,6 +32,9 @@ public class PatientSummaryDTO {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    public String getPatientNumber() { return patientNumber; }
+    public void setPatientNumber(String patientNumber) { this.patientNumber = patientNumber; }
+
     public String getFullName() { return fullName; }
     public void setFullName(String fullName) { this.fullName = fullName; }
 
@@ -48,4 +55,10 @@ public class PatientSummaryDTO {
 
     public LocalDateTime getAdmittedAt() { return admittedAt; }
     public void setAdmittedAt(LocalDateTime admittedAt) { this.admittedAt = admittedAt; }
+
+    public LocalDate getDateOfBirth() { return dateOfBirth; }
+    public void setDateOfBirth(LocalDate dateOfBirth) { this.dateOfBirth = dateOfBirth; }
+
+    public String getContactNumber() { return contactNumber; }
+    public void setContactNumber(String contactNumber) { this.contactNumber = contactNumber; }
 }
@@ -20,7 +20,12 @@ public class Appointment {
     private final Instant createdAt;
 
     public Appointment(String patientId, String doctorId, LocalDate scheduleDate, LocalTime scheduleTime, String reason) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), patientId, doctorId, scheduleDate, scheduleTime, reason);
+    }
+
+    // Keeps an existing id (used when loading from the database)
+    public Appointment(String id, String patientId, String doctorId, LocalDate scheduleDate, LocalTime scheduleTime, String reason) {
+        this.id = Objects.requireNonNull(id);
         this.patientId = Objects.requireNonNull(patientId);
         this.doctorId = Objects.requireNonNull(doctorId);
         this.scheduleDate = Objects.requireNonNull(scheduleDate);
@@ -17,7 +17,12 @@ public class Billing {
     private final Instant createdAt;
 
     public Billing(String patientId, BigDecimal amount, String description) {
-        this.id = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), patientId, amount, description);
+    }
+
+    // Keeps an existing id (used when loading from the database)
+    public Billing(String id, String patientId, BigDecimal amount, String description) {
+        this.id = Objects.requireNonNull(id);
         this.patientId = Objects.requireNonNull(patientId);
         this.amount = Objects.requireNonNull(amount);
         this.description = description;
@@ -35,7 +35,23 @@ public class Doctor {
                   String biography,
                   String contactNumber,
                   UserStatus status) {
-        this.doctorId = generateDoctorId();
+        this(generateDoctorId(), user, specialization, licenseNumber, licenseExpiry, yearsOfExperience, departmentId,
+                consultationFee, biography, contactNumber, status);
+    }
+
+    // Full constructor keeping an existing id (used when loading from the database)
+    public Doctor(String doctorId,
+                  User user,
+                  String specialization,
+                  String licenseNumber,
+                  LocalDate licenseExpiry,
+                  int yearsOfExperience,
+                  String departmentId,
+                  BigDecimal consultationFee,
+                  String biography,
+                  String contactNumber,
+                  UserStatus status) {
+        this.doctorId = Objects.requireNonNull(doctorId);
         this.user = Objects.requireNonNull(user);
         this.specialization = normalize(specialization);
         this.licenseNumber = normalize(licenseNumber);
@@ -27,9 +27,23 @@ public class MedicalRecord {
                          String prescriptionSummary,
                          String notes,
                          LocalDate dateOfConsultation) {
-        this.recordId = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), patient, Objects.requireNonNull(doctor), diagnosis, symptoms, treatment,
+                prescriptionSummary, notes, dateOfConsultation);
+    }
+
+    // Keeps an existing id (used when loading from the database); doctor is null if the record has none
+    public MedicalRecord(String recordId,
+                         Patient patient,
+                         Doctor doctor,
+                         String diagnosis,
+                         String symptoms,
+                         String treatment,
+                         String prescriptionSummary,
+                         String notes,
+                         LocalDate dateOfConsultation) {
+        this.recordId = Objects.requireNonNull(recordId);
         this.patient = Objects.requireNonNull(patient);
-        this.doctor = Objects.requireNonNull(doctor);
+        this.doctor = doctor;
         this.diagnosis = normalize(diagnosis);
         this.symptoms = normalize(symptoms);
         this.treatment = normalize(treatment);
@@ -44,7 +58,7 @@ public class MedicalRecord {
     public Patient getPatient() { return patient; }
     public String getPatientId() { return patient.getPatientId(); }
     public Doctor getDoctor() { return doctor; }
-    public String getDoctorId() { return doctor.getDoctorId(); }
+    public String getDoctorId() { return doctor == null ? null : doctor.getDoctorId(); }
 
     public String getDiagnosis() { return diagnosis; }
     public void setDiagnosis(String diagnosis) { this.diagnosis = normalize(diagnosis); }
@@ -80,7 +94,7 @@ public class MedicalRecord {
         return "MedicalRecord{" +
                 "recordId='" + recordId + '\'' +
                 ", patientId='" + patient.getPatientId() + '\'' +
-                ", doctorId='" + doctor.getDoctorId() + '\'' +
+                ", doctorId='" + getDoctorId() + '\'' +
                 ", diagnosis='" + diagnosis + '\'' +
                 ", symptoms='" + symptoms + '\'' +
                 ", treatment='" + treatment + '\'' +
@@ -63,7 +63,23 @@ public class Patient {
                    String contactNumber,
                    String emergencyContactName,
                    String emergencyContactNumber) {
-        this.patientId = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), user, patientNumber, dateOfBirth, sex, bloodType, civilStatus, address,
+                contactNumber, emergencyContactName, emergencyContactNumber);
+    }
+
+    // Same as the minimal constructor but keeps an existing id (used when loading from the database)
+    public Patient(String patientId,
+                   User user,
+                   String patientNumber,
+                   java.time.LocalDate dateOfBirth,
+                   String sex,
+                   String bloodType,
+                   String civilStatus,
+                   String address,
+                   String contactNumber,
+                   String emergencyContactName,
+                   String emergencyContactNumber) {
+        this.patientId = Objects.requireNonNull(patientId);
         this.user = Objects.requireNonNull(user);
         this.patientNumber = (patientNumber == null || patientNumber.isBlank()) ? generatePatientNumber() : requireNonBlank(patientNumber, "patientNumber");
         this.dateOfBirth = Objects.requireNonNull(dateOfBirth);
@@ -100,7 +116,12 @@ public class Patient {
 
     // Convenience constructor used by older UI/service code (firstName, lastName, dob, gender, phone, email, address)
     public Patient(String firstName, String lastName, java.time.LocalDate dateOfBirth, String gender, String contactNumber, String email, String address) {
-        this.patientId = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), firstName, lastName, dateOfBirth, gender, contactNumber, email, address);
+    }
+
+    // Same as the convenience constructor but keeps an existing id (used when loading from the database)
+    public Patient(String patientId, String firstName, String lastName, java.time.LocalDate dateOfBirth, String gender, String contactNumber, String email, String address) {
+        this.patientId = Objects.requireNonNull(patientId);
         this.user = null;
         this.patientNumber = generatePatientNumber();
         this.dateOfBirth = Objects.requireNonNull(dateOfBirth);
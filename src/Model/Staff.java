@@ -35,7 +35,20 @@ public class Staff {
                  String contactNumber,
                  LocalDate hireDate,
                  UserStatus status) {
-        this.staffId = generateStaffId();
+        this(generateStaffId(), user, firstName, lastName, roleType, departmentId, contactNumber, hireDate, status);
+    }
+
+    // Full constructor keeping an existing id (used when loading from the database)
+    public Staff(String staffId,
+                 User user,
+                 String firstName,
+                 String lastName,
+                 String roleType,
+                 String departmentId,
+                 String contactNumber,
+                 LocalDate hireDate,
+                 UserStatus status) {
+        this.staffId = Objects.requireNonNull(staffId);
         this.user = Objects.requireNonNull(user);
         this.firstName = normalize(firstName);
         this.lastName = normalize(lastName);
@@ -55,6 +55,24 @@ public class User {
         this.staffNumber = null;
     }
 
+    // Restores a persisted user with its stored id and creation time (used by UserRepository)
+    public User(String id, String username, String email, String fullName, String passwordHash, Role role,
+                UserStatus status, Instant createdAt, String profilePictureUrl, String staffNumber,
+                String linkedPatientId) {
+        this.id = Objects.requireNonNull(id);
+        this.username = Objects.requireNonNull(username).trim();
+        this.email = Objects.requireNonNull(email).trim();
+        this.fullName = Objects.requireNonNull(fullName).trim();
+        this.passwordHash = Objects.requireNonNull(passwordHash);
+        this.role = Objects.requireNonNull(role);
+        this.status = Objects.requireNonNull(status);
+        this.createdAt = createdAt != null ? createdAt : Instant.now();
+        this.updatedAt = Instant.now();
+        this.profilePictureUrl = (profilePictureUrl == null || profilePictureUrl.isBlank()) ? null : profilePictureUrl.trim();
+        this.staffNumber = (staffNumber == null || staffNumber.isBlank()) ? null : staffNumber.trim();
+        this.linkedPatientId = linkedPatientId;
+    }
+
     public String getId() { return id; }
 
     public String getFullName() { return fullName; }
@@ -17,29 +17,32 @@ public class AdmissionRepository extends DatabaseRepository<String, Admission> {
     }
     
     public AdmissionRepository() {
-        super("admissions");
+        super("admissions", Admission.class);
     }
     
     @Override
-    protected Admission mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String patientId = rs.getString("patient_id");
-        Timestamp admittedAtTs = rs.getTimestamp("admitted_at");
-        LocalDateTime admittedAt = admittedAtTs != null ? admittedAtTs.toLocalDateTime() : null;
-        String admittedBy = rs.getString("admitted_by");
-        String wardId = rs.getString("ward_id");
-        String roomId = rs.getString("room_id");
-        String bedId = rs.getString("bed_id");
-        String admissionReason = rs.getString("admission_reason");
-        String statusStr = rs.getString("status");
-        AdmissionStatus status = AdmissionStatus.valueOf(statusStr);
-        Timestamp dischargedAtTs = rs.getTimestamp("discharged_at");
-        LocalDateTime dischargedAt = dischargedAtTs != null ? dischargedAtTs.toLocalDateTime() : null;
-        String dischargeSummaryId = rs.getString("discharge_summary_id");
-        
-        Admission admission = new Admission(id, patientId, admittedAt, admittedBy, wardId, roomId, bedId,
-                                           admissionReason, status, dischargedAt, dischargeSummaryId);
-        return admission;
+    protected RowReader<Admission> rowReader(ResultSet rs) throws SQLException {
+        ColumnIndex c = new ColumnIndex(rs);
+        int id = c.of("id");
+        int patientId = c.of("patient_id");
+        int admittedAt = c.of("admitted_at");
+        int admittedBy = c.of("admitted_by");
+        int wardId = c.of("ward_id");
+        int roomId = c.of("room_id");
+        int bedId = c.of("bed_id");
+        int admissionReason = c.of("admission_reason");
+        int status = c.of("status");
+        int dischargedAt = c.of("discharged_at");
+        int dischargeSummaryId = c.of("discharge_summary_id");
+        return r -> {
+            Timestamp admittedAtTs = r.getTimestamp(admittedAt);
+            Timestamp dischargedAtTs = r.getTimestamp(dischargedAt);
+            return new Admission(r.getString(id), r.getString(patientId),
+                    admittedAtTs != null ? admittedAtTs.toLocalDateTime() : null, r.getString(admittedBy),
+                    r.getString(wardId), r.getString(roomId), r.getString(bedId), r.getString(admissionReason),
+                    AdmissionStatus.valueOf(r.getString(status)),
+                    dischargedAtTs != null ? dischargedAtTs.toLocalDateTime() : null, r.getString(dischargeSummaryId));
+        };
     }
     
     @Override
@@ -52,52 +55,40 @@ public class AdmissionRepository extends DatabaseRepository<String, Admission> {
         return "id";
     }
     
+    private static final String[] COLUMNS = {
+            "id", "patient_id", "admitted_at", "admitted_by", "ward_id", "room_id", "bed_id",
+            "admission_reason", "status", "discharged_at", "discharge_summary_id"
+    };
+    
+    private static final String[] UPDATABLE_COLUMNS = {
+            "status", "discharged_at", "discharge_summary_id"
+    };
+    
     @Override
-    protected Admission insertEntity(Admission entity) {
-        try {
-            String sql = "INSERT INTO admissions " +
-                "(id, patient_id, admitted_at, admitted_by, ward_id, room_id, bed_id, admission_reason, status, discharged_at, discharge_summary_id, created_at, updated_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
-            
-            executeUpdate(sql,
-                entity.getId(),
-                entity.getPatientId(),
-                entity.getAdmittedAt(),
-                entity.getAdmittedBy(),
-                entity.getWardId(),
-                entity.getRoomId(),
-                entity.getBedId(),
-                entity.getAdmissionReason(),
-                entity.getStatus().name(),
-                entity.getDischargedAt(),
-                entity.getDischargeSummaryId()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[AdmissionRepository] Error inserting admission: " + ex.getMessage());
-            return entity;
-        }
+    protected String[] getColumns() {
+        return COLUMNS;
     }
     
     @Override
-    protected Admission updateEntity(Admission entity) {
-        try {
-            String sql = "UPDATE admissions SET " +
-                "status = ?, discharged_at = ?, discharge_summary_id = ?, updated_at = NOW() WHERE id = ?";
-            
-            executeUpdate(sql,
-                entity.getStatus().name(),
-                entity.getDischargedAt(),
-                entity.getDischargeSummaryId(),
-                entity.getId()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[AdmissionRepository] Error updating admission: " + ex.getMessage());
-            return entity;
-        }
+    protected Object[] getColumnValues(Admission entity) {
+        return new Object[] {
+            entity.getId(),
+            entity.getPatientId(),
+            entity.getAdmittedAt(),
+            entity.getAdmittedBy(),
+            entity.getWardId(),
+            entity.getRoomId(),
+            entity.getBedId(),
+            entity.getAdmissionReason(),
+            entity.getStatus().name(),
+            entity.getDischargedAt(),
+            entity.getDischargeSummaryId()
+        };
+    }
+    
+    @Override
+    protected String[] getUpdatableColumns() {
+        return UPDATABLE_COLUMNS;
     }
     
     /**
@@ -1,5 +1,6 @@
 package Repository;
 
+import DTO.AppointmentDTO;
 import Model.*;
 import java.sql.*;
 import java.time.LocalDate;
@@ -18,33 +19,27 @@ public class AppointmentRepository extends DatabaseRepository<String, Appointmen
     }
     
     public AppointmentRepository() {
-        super("appointments");
+        super("appointments", Appointment.class);
     }
     
     @Override
-    protected Appointment mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String patientId = rs.getString("patient_id");
-        String doctorId = rs.getString("doctor_id");
-        LocalDate scheduleDate = rs.getDate("schedule_date").toLocalDate();
-        java.sql.Time scheduleTime = rs.getTime("schedule_time");
-        java.time.LocalTime time = scheduleTime != null ? scheduleTime.toLocalTime() : java.time.LocalTime.of(0, 0);
-        String reason = rs.getString("reason");
-        String statusStr = rs.getString("status");
-        AppointmentStatus status = AppointmentStatus.valueOf(statusStr);
-        
-        Appointment appointment = new Appointment(patientId, doctorId, scheduleDate, time, reason);
-        appointment.setStatus(status);
-        
-        // Set ID from database
-        try {
-            java.lang.reflect.Field idField = Appointment.class.getDeclaredField("id");
-            idField.setAccessible(true);
-            idField.set(appointment, rs.getString("id"));
-        } catch (Exception e) {
-            System.err.println("[AppointmentRepository] Error mapping appointment: " + e.getMessage());
-        }
-        
-        return appointment;
+    protected RowReader<Appointment> rowReader(ResultSet rs) throws SQLException {
+        ColumnIndex c = new ColumnIndex(rs);
+        int id = c.of("id");
+        int patientId = c.of("patient_id");
+        int doctorId = c.of("doctor_id");
+        int scheduleDate = c.of("schedule_date");
+        int scheduleTime = c.of("schedule_time");
+        int reason = c.of("reason");
+        int status = c.of("status");
+        return r -> {
+            java.sql.Time time = r.getTime(scheduleTime);
+            Appointment appointment = new Appointment(r.getString(id), r.getString(patientId), r.getString(doctorId),
+                    r.getDate(scheduleDate).toLocalDate(),
+                    time != null ? time.toLocalTime() : java.time.LocalTime.of(0, 0), r.getString(reason));
+            appointment.setStatus(AppointmentStatus.valueOf(r.getString(status)));
+            return appointment;
+        };
     }
     
     @Override
@@ -57,46 +52,65 @@ public class AppointmentRepository extends DatabaseRepository<String, Appointmen
         return "id";
     }
     
+    private static final String[] COLUMNS = {
+            "id", "patient_id", "doctor_id", "schedule_date", "schedule_time", "reason", "status"
+    };
+    
+    private static final String[] UPDATABLE_COLUMNS = {
+            "reason", "status"
+    };
+    
     @Override
-    protected Appointment insertEntity(Appointment entity) {
-        try {
-            String sql = "INSERT INTO appointments " +
-                "(id, patient_id, doctor_id, schedule_date, schedule_time, reason, status, created_at, updated_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
-            
-            executeUpdate(sql,
-                entity.getId(),
-                entity.getPatientId(),
-                entity.getDoctorId(),
-                entity.getScheduleDate(),
-                java.sql.Time.valueOf(entity.getScheduleTime()),
-                entity.getReason(),
-                entity.getStatus().name()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[AppointmentRepository] Error inserting appointment: " + ex.getMessage());
-            return entity;
-        }
+    protected String[] getColumns() {
+        return COLUMNS;
     }
     
     @Override
-    protected Appointment updateEntity(Appointment entity) {
+    protected Object[] getColumnValues(Appointment entity) {
+        return new Object[] {
+            entity.getId(),
+            entity.getPatientId(),
+            entity.getDoctorId(),
+            entity.getScheduleDate(),
+            java.sql.Time.valueOf(entity.getScheduleTime()),
+            entity.getReason(),
+            entity.getStatus().name()
+        };
+    }
+    
+    @Override
+    protected String[] getUpdatableColumns() {
+        return UPDATABLE_COLUMNS;
+    }
+    
+    /**
+     * Appointment rows for list screens with patient and doctor names joined in,
+     * instead of loading each Patient and Doctor (and their users) per row.
+     * doctorId may be null for all doctors.
+     */
+    public List<AppointmentDTO> findSummaries(String doctorId) {
+        String sql = "SELECT a.id, a.patient_id, p.first_name, p.last_name, pu.full_name, a.doctor_id, du.full_name, "
+                + "a.schedule_date, a.schedule_time, a.status FROM appointments a "
+                + "LEFT JOIN patients p ON p.id = a.patient_id LEFT JOIN users pu ON pu.id = p.user_id "
+                + "LEFT JOIN doctors d ON d.id = a.doctor_id LEFT JOIN users du ON du.id = d.user_id"
+                + (doctorId != null ? " WHERE a.doctor_id = ?" : "")
+                + " ORDER BY a.schedule_date, a.schedule_time";
         try {
-            String sql = "UPDATE appointments SET " +
-                "reason = ?, status = ?, updated_at = NOW() WHERE id = ?";
-            
-            executeUpdate(sql,
-                entity.getReason(),
-                entity.getStatus().name(),
-                entity.getId()
-            );
-            
-            return entity;
+            return executeProjection(sql, r -> {
+                String first = r.getString(3);
+                String last = r.getString(4);
+                String patientName = ((first == null ? "" : first) + " " + (last == null ? "" : last)).trim();
+                if (patientName.isEmpty())
+                    patientName = r.getString(5);
+                java.sql.Time time = r.getTime(9);
+                LocalDateTime start = LocalDateTime.of(r.getDate(8).toLocalDate(),
+                        time != null ? time.toLocalTime() : java.time.LocalTime.of(0, 0));
+                return new AppointmentDTO(r.getString(1), r.getString(2), patientName, r.getString(6),
+                        r.getString(7), start, null, AppointmentStatus.valueOf(r.getString(10)).name());
+            }, doctorId != null ? new Object[] { doctorId } : new Object[0]);
         } catch (SQLException ex) {
-            System.err.println("[AppointmentRepository] Error updating appointment: " + ex.getMessage());
-            return entity;
+            System.err.println("[AppointmentRepository] Error loading appointment summaries: " + ex.getMessage());
+            return new ArrayList<>();
         }
     }
     
@@ -17,30 +17,23 @@ public class BillingRepository extends DatabaseRepository<String, Billing> {
     }
     
     public BillingRepository() {
-        super("billings");
+        super("billings", Billing.class);
     }
     
     @Override
-    protected Billing mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String patientId = rs.getString("patient_id");
-        BigDecimal amount = rs.getBigDecimal("amount");
-        String description = rs.getString("description");
-        String statusStr = rs.getString("status");
-        BillingStatus status = BillingStatus.valueOf(statusStr);
-        
-        Billing billing = new Billing(patientId, amount, description);
-        billing.setStatus(status);
-        
-        // Set ID from database
-        try {
-            java.lang.reflect.Field idField = Billing.class.getDeclaredField("id");
-            idField.setAccessible(true);
-            idField.set(billing, rs.getString("id"));
-        } catch (Exception e) {
-            System.err.println("[BillingRepository] Error mapping billing: " + e.getMessage());
-        }
-        
-        return billing;
+    protected RowReader<Billing> rowReader(ResultSet rs) throws SQLException {
+        ColumnIndex c = new ColumnIndex(rs);
+        int id = c.of("id");
+        int patientId = c.of("patient_id");
+        int amount = c.of("amount");
+        int description = c.of("description");
+        int status = c.of("status");
+        return r -> {
+            Billing billing = new Billing(r.getString(id), r.getString(patientId), r.getBigDecimal(amount),
+                    r.getString(description));
+            billing.setStatus(BillingStatus.valueOf(r.getString(status)));
+            return billing;
+        };
     }
     
     @Override
@@ -53,44 +46,33 @@ public class BillingRepository extends DatabaseRepository<String, Billing> {
         return "id";
     }
     
+    private static final String[] COLUMNS = {
+            "id", "patient_id", "amount", "description", "status"
+    };
+    
+    private static final String[] UPDATABLE_COLUMNS = {
+            "status"
+    };
+    
     @Override
-    protected Billing insertEntity(Billing entity) {
-        try {
-            String sql = "INSERT INTO billings " +
-                "(id, patient_id, amount, description, status, created_at, updated_at) " +
-                "VALUES (?, ?, ?, ?, ?, NOW(), NOW())";
-            
-            executeUpdate(sql,
-                entity.getId(),
-                entity.getPatientId(),
-                entity.getAmount(),
-                entity.getDescription(),
-                entity.getStatus().name()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[BillingRepository] Error inserting billing: " + ex.getMessage());
-            return entity;
-        }
+    protected String[] getColumns() {
+        return COLUMNS;
     }
     
     @Override
-    protected Billing updateEntity(Billing entity) {
-        try {
-            String sql = "UPDATE billings SET " +
-                "status = ?, updated_at = NOW() WHERE id = ?";
-            
-            executeUpdate(sql,
-                entity.getStatus().name(),
-                entity.getId()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[BillingRepository] Error updating billing: " + ex.getMessage());
-            return entity;
-        }
+    protected Object[] getColumnValues(Billing entity) {
+        return new Object[] {
+            entity.getId(),
+            entity.getPatientId(),
+            entity.getAmount(),
+            entity.getDescription(),
+            entity.getStatus().name()
+        };
+    }
+    
+    @Override
+    protected String[] getUpdatableColumns() {
+        return UPDATABLE_COLUMNS;
     }
     
     /**
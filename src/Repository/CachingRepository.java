@@ -0,0 +1,320 @@
+package Repository;
+
+import Util.DB;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of another repository.
+ *
+ * findById is answered from a size-bounded LRU map whose entries expire after
+ * a TTL; misses load from the wrapped repository. Every other read goes
+ * straight through. Writes go through and evict the written ids, so the next
+ * read loads the stored row. When the wrapped repository is a
+ * {@link DatabaseRepository} the cache also listens to its writes, so saves
+ * made on the plain repository instance invalidate it too. Evictions made
+ * inside a {@link Transaction} are repeated when it commits or rolls back, so
+ * a row another thread loaded (and cached) while the unit of work was open
+ * does not outlive it.
+ *
+ * Entities that embed a row of another table (a patient's User) can be cached
+ * with a link key ({@link #linkedBy}); {@link #invalidateLinked} then evicts
+ * just the entities embedding a written row.
+ *
+ * Cached entities are shared objects: callers that change one must save it.
+ *
+ * Sizes come from db.cache.maxSize / db.cache.ttlSeconds, overridable per
+ * cache as db.cache.&lt;name&gt;.maxSize / db.cache.&lt;name&gt;.ttlSeconds; a
+ * maxSize of 0 turns the cache into a pass-through.
+ */
+public class CachingRepository<ID, T> implements Repository<ID, T> {
+    private static final List<CachingRepository<?, ?>> ALL = new CopyOnWriteArrayList<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (CachingRepository<?, ?> cache : ALL) {
+                if (cache.getHits() + cache.getMisses() > 0)
+                    System.out.println("[CachingRepository] " + cache);
+            }
+        }, "hpms-entity-cache-stats"));
+    }
+
+    private final String name;
+    private final Repository<ID, T> delegate;
+    private final Function<T, ID> idGetter;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final boolean listening;
+    private final LinkedHashMap<ID, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // cached ids by link key (see linkedBy); empty while no link is set
+    private final Map<Object, Set<ID>> idsByLink = new HashMap<>();
+    private volatile Function<T, ?> linkGetter;
+    // bumped by every eviction so a load that raced with a write is not cached
+    private long writeStamp;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Entry<T> {
+        final T value;
+        final long expiresAt;
+        final Object link;
+
+        Entry(T value, long expiresAt, Object link) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.link = link;
+        }
+    }
+
+    /** Cache sized from db.properties (see class comment). */
+    public CachingRepository(String name, Repository<ID, T> delegate, Function<T, ID> idGetter) {
+        this(name, delegate, idGetter, DB.getCacheMaxSize(name), DB.getCacheTtlMillis(name));
+    }
+
+    public CachingRepository(String name, Repository<ID, T> delegate, Function<T, ID> idGetter, int maxSize,
+            long ttlMillis) {
+        this.name = name;
+        this.delegate = delegate;
+        this.idGetter = idGetter;
+        this.maxSize = Math.max(0, maxSize);
+        this.ttlMillis = ttlMillis;
+        if (delegate instanceof DatabaseRepository) {
+            @SuppressWarnings("unchecked")
+            DatabaseRepository<ID, T> db = (DatabaseRepository<ID, T>) delegate;
+            db.addWriteListener(this::invalidate);
+            listening = true;
+        } else {
+            listening = false;
+        }
+        ALL.add(this);
+    }
+
+    @Override
+    public Optional<T> findById(ID id) {
+        if (maxSize == 0 || id == null)
+            return delegate.findById(id);
+        long stamp;
+        synchronized (this) {
+            Entry<T> e = entries.get(id);
+            if (e != null) {
+                if (ttlMillis <= 0 || System.currentTimeMillis() < e.expiresAt) {
+                    hits.incrementAndGet();
+                    return Optional.of(e.value);
+                }
+                remove(id);
+                expirations.incrementAndGet();
+            }
+            stamp = writeStamp;
+        }
+        misses.incrementAndGet();
+        Optional<T> loaded = delegate.findById(id);
+        if (loaded.isPresent()) {
+            synchronized (this) {
+                if (stamp == writeStamp) {
+                    Function<T, ?> link = linkGetter;
+                    Object key = link == null ? null : link.apply(loaded.get());
+                    remove(id);
+                    entries.put(id, new Entry<>(loaded.get(), System.currentTimeMillis() + ttlMillis, key));
+                    if (key != null)
+                        idsByLink.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+                    evictOverflow();
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<ID, Entry<T>>> it = entries.entrySet().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Map.Entry<ID, Entry<T>> e = it.next();
+            it.remove();
+            unlink(e.getKey(), e.getValue());
+            evictions.incrementAndGet();
+        }
+    }
+
+    // caller holds the lock; drops an entry and its link
+    private Entry<T> remove(ID id) {
+        Entry<T> e = entries.remove(id);
+        if (e != null)
+            unlink(id, e);
+        return e;
+    }
+
+    private void unlink(ID id, Entry<T> e) {
+        if (e.link == null)
+            return;
+        Set<ID> ids = idsByLink.get(e.link);
+        if (ids != null && ids.remove(id) && ids.isEmpty())
+            idsByLink.remove(e.link);
+    }
+
+    @Override
+    public Collection<T> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public T save(T entity) {
+        T saved = delegate.save(entity);
+        if (!listening)
+            invalidate(idGetter.apply(entity));
+        return saved;
+    }
+
+    @Override
+    public boolean delete(ID id) {
+        boolean deleted = delegate.delete(id);
+        if (!listening)
+            invalidate(id);
+        return deleted;
+    }
+
+    @Override
+    public Collection<T> saveAll(Collection<T> entities) {
+        Collection<T> saved = delegate.saveAll(entities);
+        if (!listening && entities != null) {
+            for (T entity : entities)
+                invalidate(idGetter.apply(entity));
+        }
+        return saved;
+    }
+
+    @Override
+    public int deleteAll(Collection<ID> ids) {
+        int deleted = delegate.deleteAll(ids);
+        if (!listening && ids != null) {
+            for (ID id : ids)
+                invalidate(id);
+        }
+        return deleted;
+    }
+
+    /**
+     * Drop one id from the cache, and again when the current unit of work
+     * commits or rolls back.
+     */
+    public void invalidate(ID id) {
+        evict(id);
+        if (Transaction.isActive()) {
+            Transaction.afterCommit(() -> evict(id));
+            Transaction.onRollback(() -> evict(id));
+        }
+    }
+
+    private synchronized void evict(ID id) {
+        writeStamp++;
+        if (remove(id) != null)
+            invalidations.incrementAndGet();
+    }
+
+    /**
+     * Index cached entities by a link key (e.g. the id of the user a patient
+     * embeds) for {@link #invalidateLinked}. Set once, before the cache is used;
+     * entities whose key is null are not indexed.
+     */
+    public CachingRepository<ID, T> linkedBy(Function<T, ?> link) {
+        this.linkGetter = link;
+        return this;
+    }
+
+    /**
+     * Drop the entities cached under a link key, and again when the current
+     * unit of work commits or rolls back.
+     */
+    public void invalidateLinked(Object link) {
+        evictLinked(link);
+        if (Transaction.isActive()) {
+            Transaction.afterCommit(() -> evictLinked(link));
+            Transaction.onRollback(() -> evictLinked(link));
+        }
+    }
+
+    private synchronized void evictLinked(Object link) {
+        // also keeps a load of an entity embedding the old row from being cached
+        writeStamp++;
+        Set<ID> ids = link == null ? null : idsByLink.remove(link);
+        if (ids == null)
+            return;
+        for (ID id : ids) {
+            if (entries.remove(id) != null)
+                invalidations.incrementAndGet();
+        }
+    }
+
+    /** Drop every cached entity. */
+    public synchronized void invalidateAll() {
+        writeStamp++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+        idsByLink.clear();
+    }
+
+    /** The repository behind this cache. */
+    public Repository<ID, T> getDelegate() {
+        return delegate;
+    }
+
+    public String getName() { return name; }
+
+    public int getMaxSize() { return maxSize; }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() { return hits.get(); }
+
+    public long getMisses() { return misses.get(); }
+
+    /** Entries dropped to stay within maxSize. */
+    public long getEvictions() { return evictions.get(); }
+
+    /** Entries found past their TTL. */
+    public long getExpirations() { return expirations.get(); }
+
+    /** Entries dropped because the entity was written or deleted. */
+    public long getInvalidations() { return invalidations.get(); }
+
+    /** Fraction of findById calls answered from the cache (0 when unused). */
+    public double getHitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /** Every cache created so far, for reporting. */
+    public static List<CachingRepository<?, ?>> all() {
+        return Collections.unmodifiableList(new ArrayList<>(ALL));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s cache: %d/%d entries, %d hits, %d misses (%.1f%% hit ratio), %d evictions, "
+                + "%d expirations, %d invalidations", name, size(), maxSize, getHits(), getMisses(),
+                getHitRatio() * 100, getEvictions(), getExpirations(), getInvalidations());
+    }
+}
@@ -0,0 +1,143 @@
+package Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for entity changes. Repositories and services publish
+ * {@link ChangeEvent}s; subscribers register per entity type and receive them
+ * in batches on a single background thread ("hpms-change-events"), so UI
+ * subscribers must hop to the EDT themselves.
+ *
+ * Delivery is coalesced: events are collected for a short window and several
+ * changes to the same entity collapse into one (a create followed by updates
+ * stays a create with the latest entity, a create followed by a delete
+ * disappears, anything followed by a delete is a delete). Changes made inside a
+ * {@link Transaction} are queued only when it commits and dropped if it rolls
+ * back. Types nobody subscribes to cost nothing to publish.
+ */
+public final class ChangeBus {
+    private static final long COALESCE_MS = 50;
+
+    private final Map<Class<?>, List<Consumer<List<ChangeEvent<?>>>>> listeners = new ConcurrentHashMap<>();
+    private final LinkedHashMap<List<Object>, ChangeEvent<?>> pending = new LinkedHashMap<>();
+    private Thread dispatcher;
+
+    private static final class Holder {
+        static final ChangeBus INSTANCE = new ChangeBus();
+    }
+
+    public static ChangeBus getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /** Handle returned by subscribe(); close() stops delivery. */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /** Receive batches of changes to entities of the given type. */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <T> Subscription subscribe(Class<T> type, Consumer<List<ChangeEvent<T>>> listener) {
+        Consumer<List<ChangeEvent<?>>> raw = (Consumer) listener;
+        listeners.computeIfAbsent(type, t -> new CopyOnWriteArrayList<>()).add(raw);
+        return () -> {
+            List<Consumer<List<ChangeEvent<?>>>> list = listeners.get(type);
+            if (list != null)
+                list.remove(raw);
+        };
+    }
+
+    public <T> void publish(Class<T> type, ChangeEvent.Kind kind, Object id, T entity) {
+        if (type == null || id == null)
+            return;
+        List<Consumer<List<ChangeEvent<?>>>> list = listeners.get(type);
+        if (list == null || list.isEmpty())
+            return;
+        ChangeEvent<T> event = new ChangeEvent<>(type, kind, id, entity);
+        if (Transaction.isActive())
+            Transaction.afterCommit(() -> enqueue(event));
+        else
+            enqueue(event);
+    }
+
+    private synchronized void enqueue(ChangeEvent<?> event) {
+        List<Object> key = Arrays.asList(event.getType(), event.getId());
+        ChangeEvent<?> merged = merge(pending.remove(key), event);
+        if (merged != null)
+            pending.put(key, merged);
+        if (dispatcher == null) {
+            dispatcher = new Thread(this::dispatchLoop, "hpms-change-events");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+        notifyAll();
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static ChangeEvent<?> merge(ChangeEvent<?> earlier, ChangeEvent<?> later) {
+        if (earlier == null)
+            return later;
+        switch (later.getKind()) {
+            case DELETED:
+                // subscribers never saw the entity, so there is nothing to remove
+                return earlier.getKind() == ChangeEvent.Kind.CREATED ? null : later;
+            case UPDATED:
+                if (earlier.getKind() == ChangeEvent.Kind.CREATED)
+                    return new ChangeEvent(later.getType(), ChangeEvent.Kind.CREATED, later.getId(), later.getEntity());
+                return later;
+            default:
+                // re-created after a pending delete: subscribers may still hold the old row
+                if (earlier.getKind() == ChangeEvent.Kind.DELETED)
+                    return new ChangeEvent(later.getType(), ChangeEvent.Kind.UPDATED, later.getId(), later.getEntity());
+                return later;
+        }
+    }
+
+    private void dispatchLoop() {
+        while (true) {
+            List<ChangeEvent<?>> batch;
+            try {
+                synchronized (this) {
+                    while (pending.isEmpty())
+                        wait();
+                }
+                // let a burst of changes (e.g. a batch save) collect into one delivery
+                Thread.sleep(COALESCE_MS);
+                synchronized (this) {
+                    batch = new ArrayList<>(pending.values());
+                    pending.clear();
+                }
+            } catch (InterruptedException ex) {
+                return;
+            }
+            deliver(batch);
+        }
+    }
+
+    private void deliver(List<ChangeEvent<?>> batch) {
+        Map<Class<?>, List<ChangeEvent<?>>> byType = new LinkedHashMap<>();
+        for (ChangeEvent<?> e : batch)
+            byType.computeIfAbsent(e.getType(), t -> new ArrayList<>()).add(e);
+        for (Map.Entry<Class<?>, List<ChangeEvent<?>>> e : byType.entrySet()) {
+            List<Consumer<List<ChangeEvent<?>>>> list = listeners.get(e.getKey());
+            if (list == null)
+                continue;
+            List<ChangeEvent<?>> events = java.util.Collections.unmodifiableList(e.getValue());
+            for (Consumer<List<ChangeEvent<?>>> listener : list) {
+                try {
+                    listener.accept(events);
+                } catch (RuntimeException ex) {
+                    System.err.println("[ChangeBus] Listener for " + e.getKey().getSimpleName() + " failed: " + ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package Repository;
+
+import java.util.Objects;
+
+/**
+ * One entity change published on the {@link ChangeBus}. Deletes carry only the
+ * id. Upsert-based database repositories cannot tell an insert from an update
+ * and publish UPDATED for both, so consumers should treat CREATED and UPDATED
+ * as insert-or-replace.
+ */
+public final class ChangeEvent<T> {
+    public enum Kind { CREATED, UPDATED, DELETED }
+
+    private final Class<T> type;
+    private final Kind kind;
+    private final Object id;
+    private final T entity;
+
+    public ChangeEvent(Class<T> type, Kind kind, Object id, T entity) {
+        this.type = Objects.requireNonNull(type);
+        this.kind = Objects.requireNonNull(kind);
+        this.id = Objects.requireNonNull(id);
+        this.entity = kind == Kind.DELETED ? null : entity;
+    }
+
+    public Class<T> getType() { return type; }
+
+    public Kind getKind() { return kind; }
+
+    public Object getId() { return id; }
+
+    /** The entity as saved; null for DELETED. */
+    public T getEntity() { return entity; }
+
+    public boolean isDelete() { return kind == Kind.DELETED; }
+
+    @Override
+    public String toString() {
+        return type.getSimpleName() + " " + kind + " " + id;
+    }
+}
@@ -0,0 +1,35 @@
+package Repository;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column positions of one result set, looked up by name once from its
+ * metadata so row mappers can read every row by index.
+ * Names are matched case-insensitively (H2 reports upper-case labels).
+ */
+final class ColumnIndex {
+    private final Map<String, Integer> positions;
+
+    ColumnIndex(ResultSet rs) throws SQLException {
+        ResultSetMetaData md = rs.getMetaData();
+        int count = md.getColumnCount();
+        positions = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            // first occurrence wins, same as ResultSet.getXxx(String)
+            positions.putIfAbsent(md.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+    }
+
+    /** 1-based position of the column; fails like ResultSet does for unknown names. */
+    int of(String column) throws SQLException {
+        Integer i = positions.get(column);
+        if (i == null)
+            throw new SQLException("Column '" + column + "' not found in result set");
+        return i;
+    }
+}
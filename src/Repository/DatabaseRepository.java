@@ -1,8 +1,13 @@
 package Repository;
 
 import Util.DB;
+import Util.SqlDialect;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Abstract base class for database-backed repositories.
@@ -15,23 +20,144 @@ import java.util.*;
 public abstract class DatabaseRepository<ID, T> implements Repository<ID, T> {
 
     protected final String tableName;
+    private final List<Consumer<ID>> writeListeners = new CopyOnWriteArrayList<>();
+    private final Class<T> entityType;
 
     public DatabaseRepository(String tableName) {
+        this(tableName, null);
+    }
+
+    /**
+     * @param entityType type published on the {@link ChangeBus} for successful
+     *                   writes; null publishes nothing
+     */
+    public DatabaseRepository(String tableName, Class<T> entityType) {
         this.tableName = tableName;
+        this.entityType = entityType;
+    }
+
+    /**
+     * Be told the id of every row this repository saves or deletes, after the
+     * statement ran (also when it failed, since the row's state is then unknown).
+     * Used by {@link CachingRepository} to invalidate entries.
+     */
+    public void addWriteListener(Consumer<ID> listener) {
+        writeListeners.add(listener);
+    }
+
+    private void written(ID id) {
+        for (Consumer<ID> listener : writeListeners)
+            listener.accept(id);
+    }
+
+    private void publish(ChangeEvent.Kind kind, ID id, T entity) {
+        if (entityType != null)
+            ChangeBus.getInstance().publish(entityType, kind, id, entity);
     }
 
     /**
      * Get a database connection.
+     * Pooled connections cache prepared statements by SQL text, so helpers below
+     * can keep calling prepareStatement(sql) per call and still reuse statements.
+     * Inside a {@link Transaction} this is the unit of work's connection, whose
+     * close/commit/rollback are no-ops, so the helpers join it unchanged.
      */
     protected Connection getConnection() throws SQLException {
-        return DB.getConnection();
+        Connection tx = Transaction.currentConnection();
+        return tx != null ? tx : DB.getConnection();
+    }
+
+    /**
+     * Log a failed write and, inside a unit of work, make it roll back so the
+     * failure cannot leave half of a multi-step change committed.
+     */
+    protected void writeFailed(String message) {
+        System.err.println("[DatabaseRepository] " + message);
+        Transaction.markRollbackOnly(message);
+    }
+
+    /**
+     * Reads the current row into an entity or a holder object.
+     */
+    @FunctionalInterface
+    protected interface RowReader<R> {
+        R read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Build the entity mapper for a result set. Subclasses resolve the column
+     * positions they need once here (see {@link ColumnIndex}) and return a reader
+     * that only does positional getXxx calls and a constructor call per row.
+     */
+    protected abstract RowReader<T> rowReader(ResultSet rs) throws SQLException;
+
+    /**
+     * Map the current row of a single-row result to the entity type.
+     */
+    protected T mapResultSetToEntity(ResultSet rs) throws SQLException {
+        return rowReader(rs).read(rs);
+    }
+
+    /**
+     * Map every remaining row of a multi-row result, a page at a time through
+     * {@link #pageReader(ResultSet)}.
+     */
+    protected List<T> mapRows(ResultSet rs) throws SQLException {
+        List<T> results = new ArrayList<>();
+        PageReader<T> pages = pageReader(rs);
+        List<T> page;
+        while (!(page = pages.readPage(rs, PREFETCH_PAGE_SIZE)).isEmpty()) {
+            results.addAll(page);
+        }
+        return results;
+    }
+
+    /**
+     * Maps up to max further rows of a result set. An empty page means the
+     * result set is exhausted.
+     */
+    @FunctionalInterface
+    protected interface PageReader<T> {
+        List<T> readPage(ResultSet rs, int max) throws SQLException;
+    }
+
+    /**
+     * Build the page mapper used by every multi-row read (lists and streams).
+     * The default maps row by row with {@link #rowReader(ResultSet)};
+     * repositories whose rows link to other tables override this to resolve
+     * those links once per page (see {@link #linkedPageReader}).
+     */
+    protected PageReader<T> pageReader(ResultSet rs) throws SQLException {
+        RowReader<T> reader = rowReader(rs);
+        return (r, max) -> {
+            List<T> page = new ArrayList<>(Math.min(max, PREFETCH_PAGE_SIZE));
+            while (page.size() < max && r.next()) {
+                page.add(reader.read(r));
+            }
+            return page;
+        };
     }
 
     /**
-     * Map a ResultSet row to the entity type.
-     * Subclasses implement this to construct the entity from database columns.
+     * Number of rows buffered before their linked rows are fetched in one query.
      */
-    protected abstract T mapResultSetToEntity(ResultSet rs) throws SQLException;
+    protected static final int PREFETCH_PAGE_SIZE = 500;
+
+    /**
+     * Page mapper that reads rows into holders and hands each page to
+     * pageMapper, which can fetch everything the page links to with one IN query
+     * instead of one query per row.
+     */
+    protected <R> PageReader<T> linkedPageReader(RowReader<R> reader,
+            java.util.function.Function<List<R>, List<T>> pageMapper) {
+        return (r, max) -> {
+            List<R> rows = new ArrayList<>(Math.min(max, PREFETCH_PAGE_SIZE));
+            while (rows.size() < max && r.next()) {
+                rows.add(reader.read(r));
+            }
+            return rows.isEmpty() ? new ArrayList<>() : pageMapper.apply(rows);
+        };
+    }
 
     /**
      * Get the ID/primary key from an entity.
@@ -51,44 +177,137 @@ public abstract class DatabaseRepository<ID, T> implements Repository<ID, T> {
     }
 
     /**
-     * Save (insert or update) an entity.
+     * Save (insert or update) an entity in a single statement.
+     * The upsert is generated once from {@link #getColumns()} for the configured
+     * dialect (MySQL ON DUPLICATE KEY UPDATE, H2 MERGE). A clash with another
+     * row on a unique column fails the write on every dialect.
      */
     @Override
     public T save(T entity) {
-        ID id = getEntityId(entity);
-        if (id == null) {
-            return insertEntity(entity);
-        } else {
-            // Check if exists
-            try (Connection conn = getConnection();
-                    Statement stmt = conn.createStatement()) {
-                String query = "SELECT 1 FROM " + tableName + " WHERE " + getIdColumnName() + " = ?";
-                PreparedStatement pstmt = conn.prepareStatement(query);
-                pstmt.setObject(1, idToSqlValue(id));
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (rs.next()) {
-                        return updateEntity(entity);
-                    } else {
-                        return insertEntity(entity);
-                    }
+        trySave(entity);
+        return entity;
+    }
+
+    /**
+     * {@link #save} for callers that must know the outcome: false when the
+     * write failed (already logged, and the unit of work marked rollback-only).
+     */
+    public boolean trySave(T entity) {
+        try {
+            executeUpdate(getUpsertSql(), getColumnValues(entity),
+                    upsertCheck(Collections.singletonList(idToSqlValue(getEntityId(entity)))));
+            // an upsert cannot tell an insert from an update
+            publish(ChangeEvent.Kind.UPDATED, getEntityId(entity), entity);
+            return true;
+        } catch (SQLException ex) {
+            writeFailed("Error saving entity to " + tableName + ": " + ex.getMessage());
+            return false;
+        } finally {
+            written(getEntityId(entity));
+        }
+    }
+
+    private volatile String upsertSql;
+
+    protected String getUpsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            sql = DB.getDialect().upsert(tableName, getIdColumnName(), getColumns(), getUpdatableColumns(),
+                    getCreatedAtColumn(), getUpdatedAtColumn());
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Check for upserts of the given ids (in statement order), or null when the
+     * dialect raises key clashes itself. A dialect that
+     * {@link SqlDialect#upsertSkipsKeyClash() skips} a clash on another unique
+     * key leaves a new entity unwritten without an error, and reports no
+     * affected row for it (MySQL with useAffectedRows, see {@link DB}); only
+     * those rows are looked up again, on the writing connection, so an upsert
+     * that reports its row stays a single statement.
+     */
+    private WriteCheck upsertCheck(List<Object> ids) {
+        if (!DB.getDialect().upsertSkipsKeyClash())
+            return null;
+        return (conn, unconfirmed) -> {
+            if (unconfirmed.isEmpty())
+                return;
+            List<Object> check = new ArrayList<>(unconfirmed.size());
+            for (int row : unconfirmed)
+                check.add(ids.get(row));
+            verifyUpserted(conn, check);
+        };
+    }
+
+    /**
+     * Fail when a row saved through {@link SqlDialect#upsert} is not there
+     * afterwards, turning a skipped key clash into the constraint violation
+     * the other dialects raise.
+     */
+    private void verifyUpserted(Connection conn, List<Object> ids) throws SQLException {
+        Set<String> missing = new LinkedHashSet<>();
+        for (Object id : ids)
+            missing.add(String.valueOf(id));
+        for (int from = 0; from < ids.size(); from += VERIFY_CHUNK) {
+            List<Object> chunk = ids.subList(from, Math.min(ids.size(), from + VERIFY_CHUNK));
+            int slots = inListSlots(chunk.size());
+            Object[] params = new Object[slots];
+            for (int i = 0; i < slots; i++)
+                params[i] = chunk.get(Math.min(i, chunk.size() - 1));
+            String sql = "SELECT " + getIdColumnName() + " FROM " + tableName + " WHERE " + getIdColumnName()
+                    + " IN (" + placeholders(slots) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                bindParameters(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next())
+                        missing.remove(String.valueOf(rs.getObject(1)));
                 }
-            } catch (SQLException ex) {
-                System.err.println("[DatabaseRepository] Error checking if entity exists: " + ex.getMessage());
-                return insertEntity(entity);
             }
         }
+        if (!missing.isEmpty()) {
+            throw new SQLIntegrityConstraintViolationException("Duplicate value for a unique column of "
+                    + tableName + "; not written: " + missing.iterator().next()
+                    + (missing.size() > 1 ? " and " + (missing.size() - 1) + " more" : ""));
+        }
     }
 
+    private static final int VERIFY_CHUNK = 512;
+
     /**
-     * Insert a new entity. Subclasses override to implement specific INSERT logic.
+     * Columns written by save(), primary key first. Must line up with
+     * {@link #getColumnValues(Object)}.
      */
-    protected abstract T insertEntity(T entity);
+    protected abstract String[] getColumns();
 
     /**
-     * Update an existing entity. Subclasses override to implement specific UPDATE
-     * logic.
+     * Values for {@link #getColumns()} in the same order.
      */
-    protected abstract T updateEntity(T entity);
+    protected abstract Object[] getColumnValues(T entity);
+
+    /**
+     * Columns overwritten when the row already exists. Defaults to every column
+     * except the primary key; override to keep columns insert-only.
+     */
+    protected String[] getUpdatableColumns() {
+        String[] cols = getColumns();
+        return Arrays.stream(cols).filter(c -> !c.equals(getIdColumnName())).toArray(String[]::new);
+    }
+
+    /**
+     * Timestamp column set on insert, or null if the table has none.
+     */
+    protected String getCreatedAtColumn() {
+        return "created_at";
+    }
+
+    /**
+     * Timestamp column set on insert and update, or null if the table has none.
+     */
+    protected String getUpdatedAtColumn() {
+        return "updated_at";
+    }
 
     /**
      * Find entity by ID.
@@ -101,7 +320,7 @@ public abstract class DatabaseRepository<ID, T> implements Repository<ID, T> {
                 stmt.setObject(1, idToSqlValue(id));
                 try (ResultSet rs = stmt.executeQuery()) {
                     if (rs.next()) {
-                        return Optional.of(mapResultSetToEntity(rs));
+                        return Optional.ofNullable(mapResultSetToEntity(rs));
                     }
                 }
             }
@@ -121,15 +340,225 @@ public abstract class DatabaseRepository<ID, T> implements Repository<ID, T> {
                 Statement stmt = conn.createStatement();
                 ResultSet rs = stmt.executeQuery("SELECT * FROM " + tableName)) {
 
-            while (rs.next()) {
-                results.add(mapResultSetToEntity(rs));
-            }
+            results = mapRows(rs);
         } catch (SQLException ex) {
             System.err.println("[DatabaseRepository] Error finding all entities: " + ex.getMessage());
         }
         return results;
     }
 
+    /**
+     * Stream the whole table without materialising it. Rows are fetched from
+     * the database {@link DB#getFetchSize()} at a time; the connection is
+     * released when the stream is exhausted or closed.
+     */
+    @Override
+    public Stream<T> streamAll() {
+        return stream("SELECT * FROM " + tableName);
+    }
+
+    /**
+     * Helper to stream the results of a query. Callers that may stop early must
+     * close the stream (try-with-resources) to give the connection back.
+     */
+    protected Stream<T> stream(String sql, Object... params) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = getConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(DB.getFetchSize());
+            bindParameters(stmt, params);
+            rs = stmt.executeQuery();
+            Cursor cursor = new Cursor(conn, stmt, rs, pageReader(rs));
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException ex) {
+            System.err.println("[DatabaseRepository] Error streaming from " + tableName + ": " + ex.getMessage());
+            closeQuietly(rs, stmt, conn);
+            return Stream.empty();
+        }
+    }
+
+    /** Spliterator over an open result set that owns its statement and connection. */
+    private final class Cursor extends Spliterators.AbstractSpliterator<T> {
+        private final Connection conn;
+        private final PreparedStatement stmt;
+        private final ResultSet rs;
+        private final PageReader<T> pages;
+        private final int fetchSize = DB.getFetchSize();
+        private Iterator<T> buffer = Collections.emptyIterator();
+        private boolean closed;
+
+        Cursor(Connection conn, PreparedStatement stmt, ResultSet rs, PageReader<T> pages) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.conn = conn;
+            this.stmt = stmt;
+            this.rs = rs;
+            this.pages = pages;
+        }
+
+        @Override
+        public boolean tryAdvance(java.util.function.Consumer<? super T> action) {
+            if (!buffer.hasNext()) {
+                if (closed)
+                    return false;
+                try {
+                    List<T> page = pages.readPage(rs, fetchSize);
+                    if (page.isEmpty()) {
+                        close();
+                        return false;
+                    }
+                    buffer = page.iterator();
+                } catch (SQLException ex) {
+                    System.err.println("[DatabaseRepository] Error streaming from " + tableName + ": " + ex.getMessage());
+                    close();
+                    return false;
+                }
+            }
+            action.accept(buffer.next());
+            return true;
+        }
+
+        void close() {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                // statement may be reused from the statement cache
+                stmt.setFetchSize(0);
+            } catch (SQLException ignored) {
+            }
+            closeQuietly(rs, stmt, conn);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable c : resources) {
+            if (c == null)
+                continue;
+            try {
+                c.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Columns {@link #findPage} may order by. Keyset paging compares values, so
+     * only NOT NULL columns belong here; the default is the primary key and the
+     * creation timestamp.
+     */
+    protected Set<String> getSortableColumns() {
+        Set<String> cols = new HashSet<>();
+        cols.add(getIdColumnName());
+        if (getCreatedAtColumn() != null)
+            cols.add(getCreatedAtColumn());
+        return cols;
+    }
+
+    /**
+     * Keyset pagination: the next limit entities after afterId in the given
+     * order (null afterId for the first page, null sort for primary-key order).
+     * Ties on the sort column are broken by the primary key so every row is
+     * seen exactly once while paging, and each page is an index range scan
+     * rather than an OFFSET that re-reads every earlier row. If the afterId row
+     * has since been deleted the page comes back empty.
+     */
+    public List<T> findPage(ID afterId, int limit, Sort sort) {
+        if (limit <= 0)
+            return new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(tableName);
+        List<Object> params = new ArrayList<>();
+        appendKeyset(sql, params, null, null, null, afterId, sort);
+        sql.append(" LIMIT ?");
+        params.add(limit);
+        try {
+            return executeQuery(sql.toString(), params.toArray());
+        } catch (SQLException ex) {
+            System.err.println("[DatabaseRepository] Error paging " + tableName + ": " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Keyset page of a projection, for list screens that page through a table
+     * lazily. {@code select} must read from this repository's table under
+     * {@code alias} (joins are fine); {@code where} is an optional condition on
+     * it. Paging works as in {@link #findPage}, except that {@code skip} rows
+     * after the anchor are passed over with OFFSET, so a screen can jump ahead
+     * from the nearest page it already knows the anchor of.
+     */
+    protected <R> List<R> findProjectionPage(String select, String alias, String where, List<Object> whereParams,
+            ID afterId, int skip, int limit, Sort sort, RowReader<R> reader) throws SQLException {
+        if (limit <= 0)
+            return new ArrayList<>();
+        StringBuilder sql = new StringBuilder(select);
+        List<Object> params = new ArrayList<>();
+        appendKeyset(sql, params, alias, where, whereParams, afterId, sort);
+        sql.append(" LIMIT ?");
+        params.add(limit);
+        if (skip > 0) {
+            sql.append(" OFFSET ?");
+            params.add(skip);
+        }
+        return executeProjection(sql.toString(), reader, params.toArray());
+    }
+
+    /**
+     * WHERE (filter and keyset anchor) and ORDER BY for a page. Ties on the sort
+     * column are broken by the primary key; the anchor row's sort value is
+     * looked up by id so callers only need to remember the last id they saw.
+     */
+    private void appendKeyset(StringBuilder sql, List<Object> params, String alias, String where,
+            List<Object> whereParams, ID afterId, Sort sort) {
+        String idCol = getIdColumnName();
+        String col = sort == null ? idCol : sort.getColumn();
+        if (!getSortableColumns().contains(col))
+            throw new IllegalArgumentException("Cannot page " + tableName + " by column: " + col);
+        boolean asc = sort == null || sort.isAscending();
+        String dir = asc ? " ASC" : " DESC";
+        String cmp = asc ? " > " : " < ";
+        String q = alias == null ? "" : alias + ".";
+
+        List<String> conditions = new ArrayList<>();
+        if (where != null && !where.isBlank()) {
+            conditions.add("(" + where + ")");
+            if (whereParams != null)
+                params.addAll(whereParams);
+        }
+        if (afterId != null) {
+            Object key = idToSqlValue(afterId);
+            if (col.equals(idCol)) {
+                conditions.add(q + idCol + cmp + "?");
+                params.add(key);
+            } else {
+                String anchor = "(SELECT " + col + " FROM " + tableName + " WHERE " + idCol + " = ?)";
+                conditions.add("(" + q + col + cmp + anchor + " OR (" + q + col + " = " + anchor + " AND " + q
+                        + idCol + cmp + "?))");
+                params.add(key);
+                params.add(key);
+                params.add(key);
+            }
+        }
+        if (!conditions.isEmpty())
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        sql.append(" ORDER BY ").append(q).append(col).append(dir);
+        if (!col.equals(idCol))
+            sql.append(", ").append(q).append(idCol).append(dir);
+    }
+
+    /** Helper for COUNT(*) style queries: the first column of the first row, or 0. */
+    protected long executeCount(String sql, Object... params) throws SQLException {
+        try (Connection conn = getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindParameters(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
     /**
      * Delete entity by ID.
      */
@@ -140,27 +569,173 @@ public abstract class DatabaseRepository<ID, T> implements Repository<ID, T> {
             try (PreparedStatement stmt = conn.prepareStatement(query)) {
                 stmt.setObject(1, idToSqlValue(id));
                 int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0)
+                    publish(ChangeEvent.Kind.DELETED, id, null);
                 return rowsAffected > 0;
             }
         } catch (SQLException ex) {
-            System.err.println("[DatabaseRepository] Error deleting entity: " + ex.getMessage());
+            writeFailed("Error deleting entity: " + ex.getMessage());
+        } finally {
+            written(id);
         }
         return false;
     }
 
+    /**
+     * Save all entities with JDBC batching inside one transaction. Statements are
+     * flushed every {@link DB#getBatchSize()} rows so huge collections do not
+     * build one giant batch (with MySQL, add rewriteBatchedStatements=true to
+     * db.url so each flush becomes a multi-row statement). Either every entity is
+     * written or, on error, none are and an empty list is returned.
+     */
+    @Override
+    public Collection<T> saveAll(Collection<T> entities) {
+        if (entities == null || entities.isEmpty())
+            return new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            rows.add(getColumnValues(entity));
+        }
+        try {
+            List<Object> ids = new ArrayList<>(entities.size());
+            for (T entity : entities)
+                ids.add(idToSqlValue(getEntityId(entity)));
+            executeBatch(getUpsertSql(), rows, upsertCheck(ids));
+            for (T entity : entities)
+                publish(ChangeEvent.Kind.UPDATED, getEntityId(entity), entity);
+            return new ArrayList<>(entities);
+        } catch (SQLException ex) {
+            writeFailed("Error batch saving " + entities.size() + " entities to " + tableName + ": "
+                    + ex.getMessage());
+            return new ArrayList<>();
+        } finally {
+            for (T entity : entities)
+                written(getEntityId(entity));
+        }
+    }
+
+    /**
+     * Delete all ids with JDBC batching inside one transaction.
+     */
+    @Override
+    public int deleteAll(Collection<ID> ids) {
+        if (ids == null || ids.isEmpty())
+            return 0;
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            rows.add(new Object[] { idToSqlValue(id) });
+        }
+        try {
+            int deleted = executeBatch("DELETE FROM " + tableName + " WHERE " + getIdColumnName() + " = ?", rows);
+            for (ID id : ids)
+                publish(ChangeEvent.Kind.DELETED, id, null);
+            return deleted;
+        } catch (SQLException ex) {
+            writeFailed("Error batch deleting from " + tableName + ": " + ex.getMessage());
+            return 0;
+        } finally {
+            for (ID id : ids)
+                written(id);
+        }
+    }
+
+    /**
+     * Helper to run one statement for many parameter rows as a chunked batch in a
+     * single transaction (or as part of the current {@link Transaction}). Returns the total number of affected rows (drivers that
+     * report SUCCESS_NO_INFO count as one row each).
+     */
+    protected int executeBatch(String sql, List<Object[]> rows) throws SQLException {
+        return executeBatch(sql, rows, null);
+    }
+
+    /** Check run on a write's connection after its statements and before the commit. */
+    @FunctionalInterface
+    private interface WriteCheck {
+        /** @param unconfirmed rows (by position) the driver reported no affected row for, or could not tell */
+        void check(Connection conn, List<Integer> unconfirmed) throws SQLException;
+    }
+
+    private int executeBatch(String sql, List<Object[]> rows, WriteCheck beforeCommit) throws SQLException {
+        int chunk = DB.getBatchSize();
+        int affected = 0;
+        List<Integer> unconfirmed = new ArrayList<>();
+        try (Connection conn = getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                int flushed = 0;
+                for (Object[] params : rows) {
+                    bindParameters(stmt, params);
+                    stmt.addBatch();
+                    if (++pending == chunk) {
+                        affected += countAffected(stmt.executeBatch(), flushed, unconfirmed);
+                        flushed += pending;
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    affected += countAffected(stmt.executeBatch(), flushed, unconfirmed);
+                }
+                if (beforeCommit != null)
+                    beforeCommit.check(conn, unconfirmed);
+                conn.commit();
+            } catch (SQLException ex) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackEx) {
+                    System.err.println("[DatabaseRepository] Rollback failed: " + rollbackEx.getMessage());
+                }
+                throw ex;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        }
+        return affected;
+    }
+
+    // adds the positions (offset by first) of statements without a known affected row to unconfirmed
+    private static int countAffected(int[] counts, int first, List<Integer> unconfirmed) {
+        int total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            int c = counts[i];
+            if (c > 0) {
+                total += c;
+            } else {
+                if (c == Statement.SUCCESS_NO_INFO)
+                    total++;
+                unconfirmed.add(first + i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Bind positional parameters (1-based) from an array.
+     */
+    protected static void bindParameters(PreparedStatement stmt, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            stmt.setObject(i + 1, params[i]);
+        }
+    }
+
     /**
      * Helper method to execute an update/insert/delete query.
      */
     protected int executeUpdate(String sql, Object... params) throws SQLException {
+        return executeUpdate(sql, params, null);
+    }
+
+    private int executeUpdate(String sql, Object[] params, WriteCheck beforeCommit) throws SQLException {
         Connection conn = null;
         PreparedStatement stmt = null;
         try {
             conn = getConnection();
             stmt = conn.prepareStatement(sql);
-            for (int i = 0; i < params.length; i++) {
-                stmt.setObject(i + 1, params[i]);
-            }
+            bindParameters(stmt, params);
             int result = stmt.executeUpdate();
+            if (beforeCommit != null)
+                beforeCommit.check(conn, result > 0 ? Collections.<Integer>emptyList() : Collections.singletonList(0));
             // Explicitly commit if auto-commit is disabled
             if (!conn.getAutoCommit()) {
                 conn.commit();
@@ -199,30 +774,136 @@ public abstract class DatabaseRepository<ID, T> implements Repository<ID, T> {
         List<T> results = new ArrayList<>();
         try (Connection conn = getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-            for (int i = 0; i < params.length; i++) {
-                stmt.setObject(i + 1, params[i]);
+            bindParameters(stmt, params);
+            try (ResultSet rs = stmt.executeQuery()) {
+                results = mapRows(rs);
             }
+        }
+        return results;
+    }
+
+    /**
+     * Helper for projection queries: maps each row with reader, which reads the
+     * selected columns by position, so list screens can load just the columns
+     * they show instead of whole entities.
+     */
+    protected <R> List<R> executeProjection(String sql, RowReader<R> reader, Object... params) throws SQLException {
+        List<R> results = new ArrayList<>();
+        try (Connection conn = getConnection();
+                PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindParameters(stmt, params);
             try (ResultSet rs = stmt.executeQuery()) {
                 while (rs.next()) {
-                    results.add(mapResultSetToEntity(rs));
+                    results.add(reader.read(rs));
                 }
             }
         }
         return results;
     }
 
+    /**
+     * Placeholder count for an IN list of n values, rounded up to a power of two
+     * so only a handful of distinct SQL strings reach the statement cache. Pad the
+     * extra slots by repeating the last value.
+     */
+    protected static int inListSlots(int n) {
+        int slots = Integer.highestOneBit(Math.max(1, n));
+        return slots < n ? slots << 1 : slots;
+    }
+
+    /** "?, ?, ..." with n placeholders. */
+    protected static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++)
+            sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+
+    /**
+     * LIKE pattern matching values that contain text, lower-cased for use with
+     * LOWER(column) LIKE ?. Wildcards in the text are escaped with the default
+     * escape character (backslash, on both MySQL and H2).
+     */
+    protected static String containsPattern(String text) {
+        return escapeLike(new StringBuilder().append('%'), lowerKey(text.trim())).append('%').toString();
+    }
+
+    /**
+     * LIKE pattern matching values that start with text, lower-cased for use
+     * with a lowercase key column: "key_lower LIKE ?" is a range scan on the
+     * column's index, unlike a pattern with a leading wildcard.
+     */
+    protected static String prefixPattern(String text) {
+        return escapeLike(new StringBuilder(), lowerKey(text.trim())).append('%').toString();
+    }
+
+    private static StringBuilder escapeLike(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '%' || c == '_' || c == '\\')
+                sb.append('\\');
+            sb.append(c);
+        }
+        return sb;
+    }
+
+    /**
+     * Value of a *_lower key column: the text lower-cased, so case-insensitive
+     * lookups compare "key_lower = ?" (an index seek) instead of wrapping the
+     * column in LOWER(), which no index can serve.
+     */
+    protected static String lowerKey(String text) {
+        return text == null ? null : text.toLowerCase(java.util.Locale.ROOT);
+    }
+
+    /**
+     * "LOWER(a) LIKE ? OR LOWER(b) LIKE ? ..." over columns, adding the pattern
+     * once per column to params; null for a blank search text.
+     */
+    protected static String containsAny(String text, List<Object> params, String... columns) {
+        if (text == null || text.isBlank())
+            return null;
+        String pattern = containsPattern(text);
+        StringBuilder sb = new StringBuilder();
+        for (String col : columns) {
+            if (sb.length() > 0)
+                sb.append(" OR ");
+            sb.append("LOWER(").append(col).append(") LIKE ?");
+            params.add(pattern);
+        }
+        return sb.toString();
+    }
+
+    private static final int SHARED_VALUES_MAX = 1024;
+    private static final Map<String, String> SHARED_VALUES = new java.util.concurrent.ConcurrentHashMap<>();
+
+    /**
+     * Canonical instance for a low-cardinality column value (gender, status,
+     * specialization...) so projected rows share one String per distinct value
+     * instead of one per row. Stops pooling new values once the pool is full.
+     */
+    protected static String shared(String value) {
+        if (value == null)
+            return null;
+        String existing = SHARED_VALUES.get(value);
+        if (existing != null)
+            return existing;
+        if (SHARED_VALUES.size() >= SHARED_VALUES_MAX)
+            return value;
+        existing = SHARED_VALUES.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
     /**
      * Helper to execute query and return single result.
      */
     protected Optional<T> executeSingleQuery(String sql, Object... params) throws SQLException {
         try (Connection conn = getConnection();
                 PreparedStatement stmt = conn.prepareStatement(sql)) {
-            for (int i = 0; i < params.length; i++) {
-                stmt.setObject(i + 1, params[i]);
-            }
+            bindParameters(stmt, params);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapResultSetToEntity(rs));
+                    return Optional.ofNullable(mapResultSetToEntity(rs));
                 }
             }
         }
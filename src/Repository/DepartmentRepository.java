@@ -16,17 +16,16 @@ public class DepartmentRepository extends DatabaseRepository<String, Department>
     }
     
     public DepartmentRepository() {
-        super("departments");
+        super("departments", Department.class);
     }
     
     @Override
-    protected Department mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String name = rs.getString("name");
-        String description = rs.getString("description");
-        
-        Department department = new Department(id, name, description);
-        return department;
+    protected RowReader<Department> rowReader(ResultSet rs) throws SQLException {
+        ColumnIndex c = new ColumnIndex(rs);
+        int id = c.of("id");
+        int name = c.of("name");
+        int description = c.of("description");
+        return r -> new Department(r.getString(id), r.getString(name), r.getString(description));
     }
     
     @Override
@@ -39,43 +38,27 @@ public class DepartmentRepository extends DatabaseRepository<String, Department>
         return "id";
     }
     
+    private static final String[] COLUMNS = {
+            "id", "name", "description"
+    };
+    
     @Override
-    protected Department insertEntity(Department entity) {
-        try {
-            String sql = "INSERT INTO departments " +
-                "(id, name, description, created_at) " +
-                "VALUES (?, ?, ?, NOW())";
-            
-            executeUpdate(sql,
-                entity.getId(),
-                entity.getName(),
-                entity.getDescription()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[DepartmentRepository] Error inserting department: " + ex.getMessage());
-            return entity;
-        }
+    protected String[] getColumns() {
+        return COLUMNS;
     }
     
     @Override
-    protected Department updateEntity(Department entity) {
-        try {
-            String sql = "UPDATE departments SET " +
-                "name = ?, description = ? WHERE id = ?";
-            
-            executeUpdate(sql,
-                entity.getName(),
-                entity.getDescription(),
-                entity.getId()
-            );
-            
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[DepartmentRepository] Error updating department: " + ex.getMessage());
-            return entity;
-        }
+    protected Object[] getColumnValues(Department entity) {
+        return new Object[] {
+            entity.getId(),
+            entity.getName(),
+            entity.getDescription()
+        };
+    }
+    
+    @Override
+    protected String getUpdatedAtColumn() {
+        return null; // departments only track created_at
     }
     
     /**
@@ -16,44 +16,112 @@ public class DoctorRepository extends DatabaseRepository<String, Doctor> {
         return INSTANCE;
     }
 
+    private static final class CacheHolder {
+        static final CachingRepository<String, Doctor> INSTANCE = new CachingRepository<>("doctors", DoctorRepository.INSTANCE,
+                Doctor::getDoctorId).linkedBy(d -> d.getUser() == null ? null : d.getUser().getId());
+
+        static {
+            // cached doctors embed their User, so a user write makes those of that user stale
+            UserRepository.getInstance().addWriteListener(INSTANCE::invalidateLinked);
+        }
+    }
+
+    /** findById-caching view of {@link #getInstance()} (see {@link CachingRepository}). */
+    public static CachingRepository<String, Doctor> cached() {
+        return CacheHolder.INSTANCE;
+    }
+
     public DoctorRepository() {
-        super("doctors");
+        super("doctors", Doctor.class);
+    }
+
+    /** Raw columns of one doctors row, read before the linked user is resolved. */
+    private static final class DoctorRow {
+        String id;
+        String userId;
+        String specialization;
+        String licenseNumber;
+        LocalDate licenseExpiry;
+        int yearsOfExperience;
+        String departmentId;
+        java.math.BigDecimal consultationFee;
+        String biography;
+        String contactNumber;
+        String status;
+
+        /** Resolve the column positions once and return a reader for every row of rs. */
+        static RowReader<DoctorRow> reader(ResultSet rs) throws SQLException {
+            ColumnIndex c = new ColumnIndex(rs);
+            int id = c.of("id");
+            int userId = c.of("user_id");
+            int specialization = c.of("specialization");
+            int licenseNumber = c.of("license_number");
+            int licenseExpiry = c.of("license_expiry");
+            int yearsOfExperience = c.of("years_of_experience");
+            int departmentId = c.of("department_id");
+            int consultationFee = c.of("consultation_fee");
+            int biography = c.of("biography");
+            int contactNumber = c.of("contact_number");
+            int status = c.of("status");
+            return row -> {
+                DoctorRow r = new DoctorRow();
+                r.id = row.getString(id);
+                r.userId = row.getString(userId);
+                r.specialization = row.getString(specialization);
+                r.licenseNumber = row.getString(licenseNumber);
+                java.sql.Date expiry = row.getDate(licenseExpiry);
+                r.licenseExpiry = expiry != null ? expiry.toLocalDate() : null;
+                r.yearsOfExperience = row.getInt(yearsOfExperience);
+                r.departmentId = row.getString(departmentId);
+                r.consultationFee = row.getBigDecimal(consultationFee);
+                r.biography = row.getString(biography);
+                r.contactNumber = row.getString(contactNumber);
+                r.status = row.getString(status);
+                return r;
+            };
+        }
     }
 
     @Override
-    protected Doctor mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String userId = rs.getString("user_id");
-        Optional<User> userOpt = UserRepository.getInstance().findById(userId);
-        if (userOpt.isEmpty()) {
+    protected RowReader<Doctor> rowReader(ResultSet rs) throws SQLException {
+        RowReader<DoctorRow> reader = DoctorRow.reader(rs);
+        return r -> {
+            DoctorRow row = reader.read(r);
+            Optional<User> userOpt = UserRepository.cached().findById(row.userId);
+            return toEntity(row, userOpt.orElse(null));
+        };
+    }
+
+    /**
+     * Multi-row results fetch the linked users once per page of rows instead of
+     * once per doctor.
+     */
+    @Override
+    protected PageReader<Doctor> pageReader(ResultSet rs) throws SQLException {
+        return linkedPageReader(DoctorRow.reader(rs), page -> {
+            List<String> userIds = new ArrayList<>();
+            for (DoctorRow r : page) {
+                userIds.add(r.userId);
+            }
+            Map<String, User> users = UserRepository.getInstance().findByIds(userIds);
+            List<Doctor> doctors = new ArrayList<>(page.size());
+            for (DoctorRow r : page) {
+                doctors.add(toEntity(r, r.userId != null ? users.get(r.userId) : null));
+            }
+            return doctors;
+        });
+    }
+
+    /** Returns null when the linked user no longer exists. */
+    private Doctor toEntity(DoctorRow r, User user) {
+        if (user == null) {
             return null;
         }
 
-        User user = userOpt.get();
-        String specialization = rs.getString("specialization");
-        String licenseNumber = rs.getString("license_number");
-        LocalDate licenseExpiry = rs.getDate("license_expiry") != null ? rs.getDate("license_expiry").toLocalDate()
-                : null;
-        int yearsOfExperience = rs.getInt("years_of_experience");
-        String departmentId = rs.getString("department_id");
-        java.math.BigDecimal consultationFee = rs.getBigDecimal("consultation_fee");
-        String biography = rs.getString("biography");
-        String contactNumber = rs.getString("contact_number");
-        String statusStr = rs.getString("status");
-        UserStatus status = UserStatus.valueOf(statusStr);
-
-        Doctor doctor = new Doctor(user, specialization, licenseNumber, licenseExpiry, yearsOfExperience,
-                departmentId, consultationFee, biography, contactNumber, status);
-
-        // Set the ID from database
-        try {
-            java.lang.reflect.Field idField = Doctor.class.getDeclaredField("doctorId");
-            idField.setAccessible(true);
-            idField.set(doctor, rs.getString("id"));
-        } catch (Exception e) {
-            System.err.println("[DoctorRepository] Error mapping doctor: " + e.getMessage());
-        }
+        UserStatus status = UserStatus.valueOf(r.status);
 
-        return doctor;
+        return new Doctor(r.id, user, r.specialization, r.licenseNumber, r.licenseExpiry, r.yearsOfExperience,
+                r.departmentId, r.consultationFee, r.biography, r.contactNumber, status);
     }
 
     @Override
@@ -66,64 +134,41 @@ public class DoctorRepository extends DatabaseRepository<String, Doctor> {
         return "id";
     }
 
+    private static final String[] COLUMNS = {
+            "id", "user_id", "specialization", "license_number", "license_expiry", "years_of_experience",
+            "department_id", "consultation_fee", "biography", "contact_number", "status"
+    };
+
+    private static final String[] UPDATABLE_COLUMNS = {
+            "specialization", "license_number", "license_expiry", "years_of_experience", "department_id",
+            "consultation_fee", "biography", "contact_number", "status"
+    };
+
     @Override
-    protected Doctor insertEntity(Doctor entity) {
-        try {
-            String sql = "INSERT INTO doctors " +
-                    "(id, user_id, specialization, license_number, license_expiry, years_of_experience, " +
-                    "department_id, consultation_fee, biography, contact_number, status, created_at, updated_at) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
-
-            System.out.println("[DoctorRepository] Inserting doctor: " + entity.getSpecialization() + " (ID: "
-                    + entity.getDoctorId() + ")");
-
-            int rowsAffected = executeUpdate(sql,
-                    entity.getDoctorId(),
-                    entity.getUserId(),
-                    entity.getSpecialization(),
-                    entity.getLicenseNumber(),
-                    entity.getLicenseExpiry(),
-                    entity.getYearsOfExperience(),
-                    entity.getDepartmentId(),
-                    entity.getConsultationFee(),
-                    entity.getBiography(),
-                    entity.getContactNumber(),
-                    entity.getStatus().name());
-
-            System.out.println("[DoctorRepository] Successfully inserted doctor. Rows affected: " + rowsAffected);
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[DoctorRepository] ERROR inserting doctor: " + ex.getMessage());
-            ex.printStackTrace();
-            return entity;
-        }
+    protected String[] getColumns() {
+        return COLUMNS;
     }
 
     @Override
-    protected Doctor updateEntity(Doctor entity) {
-        try {
-            String sql = "UPDATE doctors SET " +
-                    "specialization = ?, license_number = ?, license_expiry = ?, years_of_experience = ?, " +
-                    "department_id = ?, consultation_fee = ?, biography = ?, contact_number = ?, " +
-                    "status = ?, updated_at = NOW() WHERE id = ?";
-
-            executeUpdate(sql,
-                    entity.getSpecialization(),
-                    entity.getLicenseNumber(),
-                    entity.getLicenseExpiry(),
-                    entity.getYearsOfExperience(),
-                    entity.getDepartmentId(),
-                    entity.getConsultationFee(),
-                    entity.getBiography(),
-                    entity.getContactNumber(),
-                    entity.getStatus().name(),
-                    entity.getDoctorId());
-
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[DoctorRepository] Error updating doctor: " + ex.getMessage());
-            return entity;
-        }
+    protected Object[] getColumnValues(Doctor entity) {
+        return new Object[] {
+            entity.getDoctorId(),
+            entity.getUserId(),
+            entity.getSpecialization(),
+            entity.getLicenseNumber(),
+            entity.getLicenseExpiry(),
+            entity.getYearsOfExperience(),
+            entity.getDepartmentId(),
+            entity.getConsultationFee(),
+            entity.getBiography(),
+            entity.getContactNumber(),
+            entity.getStatus().name()
+        };
+    }
+
+    @Override
+    protected String[] getUpdatableColumns() {
+        return UPDATABLE_COLUMNS;
     }
 
     /**
@@ -1,27 +1,228 @@
 package Repository;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Thread-safe in-memory repository that uses an id extractor.
  * Suitable for prototypes and unit tests; replace with DB-backed repo later.
+ *
+ * Secondary indexes can be declared with {@link #withIndex},
+ * {@link #withUniqueIndex} and {@link #withSortedIndex} and queried with
+ * {@link #findBy}, {@link #findOneBy} and {@link #findRange}. Each index
+ * remembers the key it filed an entity under, so saving an entity whose
+ * indexed field changed moves it to the new key. Entities are mutable: change
+ * an indexed field and save() again; until then queries skip the entity rather
+ * than return it under its old key. Null keys are not indexed.
+ *
+ * Repositories built with an entity type publish their writes on the
+ * {@link ChangeBus}.
  */
 public class InMemoryRepository<ID, T> implements Repository<ID, T> {
     private final Map<ID, T> map = new ConcurrentHashMap<>();
     private final Function<T, ID> idGetter;
+    private final Map<String, Index<ID, T>> indexes = new ConcurrentHashMap<>();
+    private final Class<T> entityType;
 
     public InMemoryRepository(Function<T, ID> idGetter) {
+        this(null, idGetter);
+    }
+
+    /**
+     * @param entityType type published on the {@link ChangeBus} for every write;
+     *                   null publishes nothing
+     */
+    public InMemoryRepository(Class<T> entityType, Function<T, ID> idGetter) {
+        this.entityType = entityType;
         this.idGetter = idGetter;
     }
 
+    private void publish(ChangeEvent.Kind kind, ID id, T entity) {
+        if (entityType != null)
+            ChangeBus.getInstance().publish(entityType, kind, id, entity);
+    }
+
+    /** One secondary index: key -> ids, plus id -> key to find the old bucket. */
+    private static final class Index<ID, T> {
+        final String name;
+        final Function<T, ?> key;
+        final boolean unique;
+        final ConcurrentMap<Object, Set<ID>> buckets;
+        final Map<ID, Object> keyById = new ConcurrentHashMap<>();
+
+        Index(String name, Function<T, ?> key, boolean unique, boolean sorted) {
+            this.name = name;
+            this.key = key;
+            this.unique = unique;
+            this.buckets = sorted ? new ConcurrentSkipListMap<>() : new ConcurrentHashMap<>();
+        }
+
+        void checkUnique(ID id, T entity) {
+            if (!unique)
+                return;
+            Object k = key.apply(entity);
+            if (k == null)
+                return;
+            Set<ID> ids = buckets.get(k);
+            if (ids != null) {
+                for (ID other : ids) {
+                    if (!other.equals(id))
+                        throw new IllegalArgumentException("Duplicate " + name + ": " + k);
+                }
+            }
+        }
+
+        void put(ID id, T entity) {
+            Object k = key.apply(entity);
+            Object old = keyById.get(id);
+            if (Objects.equals(k, old))
+                return;
+            remove(id);
+            if (k != null) {
+                buckets.computeIfAbsent(k, x -> ConcurrentHashMap.newKeySet()).add(id);
+                keyById.put(id, k);
+            }
+        }
+
+        void remove(ID id) {
+            Object old = keyById.remove(id);
+            if (old == null)
+                return;
+            buckets.computeIfPresent(old, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+
+        boolean matches(T entity, Object k) {
+            return entity != null && Objects.equals(key.apply(entity), k);
+        }
+    }
+
+    /** Add a multi-valued hash index (e.g. appointments by doctor id). */
+    public InMemoryRepository<ID, T> withIndex(String name, Function<T, ?> key) {
+        return addIndex(new Index<>(name, key, false, false));
+    }
+
+    /** Add a hash index whose keys are unique; save() rejects a duplicate key. */
+    public InMemoryRepository<ID, T> withUniqueIndex(String name, Function<T, ?> key) {
+        return addIndex(new Index<>(name, key, true, false));
+    }
+
+    /** Add a multi-valued index ordered by key, usable with {@link #findRange}. */
+    public <K extends Comparable<? super K>> InMemoryRepository<ID, T> withSortedIndex(String name,
+            Function<T, K> key) {
+        return addIndex(new Index<>(name, key, false, true));
+    }
+
+    private synchronized InMemoryRepository<ID, T> addIndex(Index<ID, T> index) {
+        for (Map.Entry<ID, T> e : map.entrySet()) {
+            index.checkUnique(e.getKey(), e.getValue());
+            index.put(e.getKey(), e.getValue());
+        }
+        indexes.put(index.name, index);
+        return this;
+    }
+
+    private Index<ID, T> index(String name) {
+        Index<ID, T> index = indexes.get(name);
+        if (index == null)
+            throw new IllegalArgumentException("No index named " + name);
+        return index;
+    }
+
+    /** Entities whose indexed key equals {@code key}. */
+    public List<T> findBy(String indexName, Object key) {
+        Index<ID, T> index = index(indexName);
+        Set<ID> ids = key == null ? null : index.buckets.get(key);
+        if (ids == null)
+            return new ArrayList<>();
+        List<T> out = new ArrayList<>(ids.size());
+        collect(index, key, ids, out);
+        return out;
+    }
+
+    /** The entity filed under {@code key} in an index (first match for non-unique ones). */
+    public Optional<T> findOneBy(String indexName, Object key) {
+        Index<ID, T> index = index(indexName);
+        Set<ID> ids = key == null ? null : index.buckets.get(key);
+        if (ids != null) {
+            for (ID id : ids) {
+                T entity = map.get(id);
+                if (index.matches(entity, key))
+                    return Optional.of(entity);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** Number of entities filed under {@code key}. */
+    public int countBy(String indexName, Object key) {
+        Set<ID> ids = key == null ? null : index(indexName).buckets.get(key);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /**
+     * Entities of a sorted index with from &lt;= key &lt; to, in key order. Either
+     * bound may be null for an open range.
+     */
+    public <K extends Comparable<? super K>> List<T> findRange(String indexName, K fromInclusive, K toExclusive) {
+        Index<ID, T> index = index(indexName);
+        if (!(index.buckets instanceof NavigableMap))
+            throw new IllegalArgumentException("Index " + indexName + " is not sorted");
+        @SuppressWarnings("unchecked")
+        NavigableMap<Object, Set<ID>> sorted = (NavigableMap<Object, Set<ID>>) index.buckets;
+        NavigableMap<Object, Set<ID>> range;
+        if (fromInclusive != null && toExclusive != null)
+            range = sorted.subMap(fromInclusive, true, toExclusive, false);
+        else if (fromInclusive != null)
+            range = sorted.tailMap(fromInclusive, true);
+        else if (toExclusive != null)
+            range = sorted.headMap(toExclusive, false);
+        else
+            range = sorted;
+        List<T> out = new ArrayList<>();
+        for (Map.Entry<Object, Set<ID>> e : range.entrySet())
+            collect(index, e.getKey(), e.getValue(), out);
+        return out;
+    }
+
+    private void collect(Index<ID, T> index, Object key, Set<ID> ids, List<T> out) {
+        for (ID id : ids) {
+            T entity = map.get(id);
+            if (index.matches(entity, key))
+                out.add(entity);
+        }
+    }
+
     @Override
     public T save(T entity) {
         ID id = idGetter.apply(entity);
-        map.put(id, entity);
+        T previous;
+        if (indexes.isEmpty()) {
+            previous = map.put(id, entity);
+        } else {
+            synchronized (this) {
+                for (Index<ID, T> index : indexes.values())
+                    index.checkUnique(id, entity);
+                previous = map.put(id, entity);
+                for (Index<ID, T> index : indexes.values())
+                    index.put(id, entity);
+            }
+        }
+        publish(previous == null ? ChangeEvent.Kind.CREATED : ChangeEvent.Kind.UPDATED, id, entity);
         return entity;
     }
 
@@ -37,6 +238,46 @@ public class InMemoryRepository<ID, T> implements Repository<ID, T> {
 
     @Override
     public boolean delete(ID id) {
-        return map.remove(id) != null;
+        if (indexes.isEmpty()) {
+            if (map.remove(id) == null)
+                return false;
+        } else {
+            synchronized (this) {
+                if (map.remove(id) == null)
+                    return false;
+                for (Index<ID, T> index : indexes.values())
+                    index.remove(id);
+            }
+        }
+        publish(ChangeEvent.Kind.DELETED, id, null);
+        return true;
+    }
+
+    @Override
+    public Collection<T> saveAll(Collection<T> entities) {
+        for (T entity : entities) {
+            save(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public int deleteAll(Collection<ID> ids) {
+        int removed = 0;
+        for (ID id : ids) {
+            if (delete(id))
+                removed++;
+        }
+        return removed;
+    }
+
+    @Override
+    public Stream<T> streamAll() {
+        return map.values().stream();
+    }
+
+    /** Names of the declared secondary indexes. */
+    public Set<String> getIndexNames() {
+        return Collections.unmodifiableSet(indexes.keySet());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package Repository;
+
+import Model.*;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Database-backed MedicalRecord repository over the medical_records table.
+ * The record's symptoms are stored as chief_complaint and its treatment as
+ * treatment_plan; the consultation date is the visit_date.
+ */
+public class MedicalRecordRepository extends DatabaseRepository<String, MedicalRecord> {
+
+    private static final MedicalRecordRepository INSTANCE = new MedicalRecordRepository();
+
+    public static MedicalRecordRepository getInstance() {
+        return INSTANCE;
+    }
+
+    public MedicalRecordRepository() {
+        super("medical_records", MedicalRecord.class);
+    }
+
+    /** Returns null for a row whose patient no longer exists. */
+    @Override
+    protected RowReader<MedicalRecord> rowReader(ResultSet rs) throws SQLException {
+        ColumnIndex c = new ColumnIndex(rs);
+        int id = c.of("id");
+        int patientId = c.of("patient_id");
+        int doctorId = c.of("doctor_id");
+        int visitDate = c.of("visit_date");
+        int chiefComplaint = c.of("chief_complaint");
+        int diagnosis = c.of("diagnosis");
+        int treatmentPlan = c.of("treatment_plan");
+        int prescriptionSummary = c.of("prescription_summary");
+        int notes = c.of("notes");
+        return r -> {
+            Optional<Patient> patient = PatientRepository.cached().findById(r.getString(patientId));
+            if (patient.isEmpty())
+                return null;
+            String doctor = r.getString(doctorId);
+            return new MedicalRecord(r.getString(id), patient.get(),
+                    doctor != null ? DoctorRepository.cached().findById(doctor).orElse(null) : null,
+                    r.getString(diagnosis), r.getString(chiefComplaint), r.getString(treatmentPlan),
+                    r.getString(prescriptionSummary), r.getString(notes), r.getDate(visitDate).toLocalDate());
+        };
+    }
+
+    @Override
+    protected String getEntityId(MedicalRecord entity) {
+        return entity.getRecordId();
+    }
+
+    @Override
+    protected String getIdColumnName() {
+        return "id";
+    }
+
+    private static final String[] COLUMNS = {
+            "id", "patient_id", "doctor_id", "visit_date", "chief_complaint", "diagnosis", "treatment_plan",
+            "prescription_summary", "notes"
+    };
+
+    @Override
+    protected String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected Object[] getColumnValues(MedicalRecord entity) {
+        return new Object[] {
+            entity.getRecordId(),
+            entity.getPatientId(),
+            entity.getDoctorId(),
+            Timestamp.valueOf(entity.getDateOfConsultation().atStartOfDay()),
+            entity.getSymptoms(),
+            entity.getDiagnosis(),
+            entity.getTreatment(),
+            entity.getPrescriptionSummary(),
+            entity.getNotes()
+        };
+    }
+
+    /**
+     * Records of a patient, latest visit first.
+     */
+    public List<MedicalRecord> findByPatientId(String patientId) {
+        try {
+            return present(executeQuery(
+                    "SELECT * FROM medical_records WHERE patient_id = ? ORDER BY visit_date DESC", patientId));
+        } catch (SQLException ex) {
+            System.err.println("[MedicalRecordRepository] Error finding records of patient: " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Records written by a doctor, latest visit first.
+     */
+    public List<MedicalRecord> findByDoctorId(String doctorId) {
+        try {
+            return present(executeQuery(
+                    "SELECT * FROM medical_records WHERE doctor_id = ? ORDER BY visit_date DESC", doctorId));
+        } catch (SQLException ex) {
+            System.err.println("[MedicalRecordRepository] Error finding records of doctor: " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<MedicalRecord> present(List<MedicalRecord> records) {
+        records.removeIf(Objects::isNull);
+        return records;
+    }
+
+    /**
+     * The text a record is searched by, as {id, patient id, diagnosis,
+     * symptoms, treatment, prescription summary, notes}, one keyset page at a
+     * time in id order (for building the full-text index without loading
+     * patients and doctors). Errors are thrown so a rebuild can tell a failed
+     * page from the end of the table.
+     */
+    public List<String[]> findIndexFieldsPage(String afterId, int limit) throws SQLException {
+        return findProjectionPage("SELECT m.id, m.patient_id, m.diagnosis, m.chief_complaint, m.treatment_plan, "
+                + "m.prescription_summary, m.notes FROM medical_records m", "m", null, null, afterId, 0, limit, null,
+                r -> new String[] { r.getString(1), r.getString(2), r.getString(3), r.getString(4), r.getString(5),
+                        r.getString(6), r.getString(7) });
+    }
+
+    /**
+     * "rows/latest update" of the table, which changes with every insert,
+     * update and delete; null if it cannot be read.
+     */
+    public String findVersion() {
+        try {
+            return executeProjection("SELECT COUNT(*), MAX(updated_at) FROM medical_records",
+                    r -> r.getLong(1) + "/" + r.getTimestamp(2)).stream().findFirst().orElse(null);
+        } catch (SQLException ex) {
+            System.err.println("[MedicalRecordRepository] Error reading table version: " + ex.getMessage());
+            return null;
+        }
+    }
+}
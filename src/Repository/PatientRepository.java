@@ -1,5 +1,6 @@
 package Repository;
 
+import DTO.PatientSummaryDTO;
 import Model.*;
 import java.sql.*;
 import java.time.LocalDate;
@@ -18,53 +19,124 @@ public class PatientRepository extends DatabaseRepository<String, Patient> {
         return INSTANCE;
     }
 
+    private static final class CacheHolder {
+        static final CachingRepository<String, Patient> INSTANCE = new CachingRepository<>("patients", PatientRepository.INSTANCE,
+                Patient::getId).linkedBy(p -> p.getUser() == null ? null : p.getUser().getId());
+
+        static {
+            // cached patients embed their User, so a user write makes those of that user stale
+            UserRepository.getInstance().addWriteListener(INSTANCE::invalidateLinked);
+        }
+    }
+
+    /** findById-caching view of {@link #getInstance()} (see {@link CachingRepository}). */
+    public static CachingRepository<String, Patient> cached() {
+        return CacheHolder.INSTANCE;
+    }
+
     public PatientRepository() {
-        super("patients");
+        super("patients", Patient.class);
     }
 
-    @Override
-    protected Patient mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String patientId = rs.getString("id");
-        String userId = rs.getString("user_id");
-        String patientNumber = rs.getString("patient_number");
-        LocalDate dob = rs.getDate("date_of_birth") != null ? rs.getDate("date_of_birth").toLocalDate() : null;
-        String sex = rs.getString("sex");
-        String bloodType = rs.getString("blood_type");
-        String civilStatus = rs.getString("civil_status");
-        String address = rs.getString("address");
-        String contactNumber = rs.getString("contact_number");
-        String emergencyContactName = rs.getString("emergency_contact_name");
-        String emergencyContactNumber = rs.getString("emergency_contact_number");
-
-        // Get user if userId exists
-        User user = null;
-        if (userId != null) {
-            user = UserRepository.getInstance().findById(userId).orElse(null);
-        }
+    /** Raw columns of one patients row, read before the linked user is resolved. */
+    private static final class PatientRow {
+        String patientId;
+        String userId;
+        String patientNumber;
+        LocalDate dob;
+        String sex;
+        String bloodType;
+        String civilStatus;
+        String address;
+        String contactNumber;
+        String emergencyContactName;
+        String emergencyContactNumber;
+        String firstName;
+        String lastName;
+        String gender;
 
-        Patient patient;
-        if (user != null && dob != null) {
-            patient = new Patient(user, patientNumber, dob, sex, bloodType, civilStatus, address,
-                    contactNumber, emergencyContactName, emergencyContactNumber);
-        } else {
-            // Fallback for records without user
-            String firstName = rs.getString("first_name");
-            String lastName = rs.getString("last_name");
-            String gender = rs.getString("gender");
-            patient = new Patient(firstName, lastName, dob, gender, contactNumber,
-                    userId != null ? userId : firstName, address);
+        /** Resolve the column positions once and return a reader for every row of rs. */
+        static RowReader<PatientRow> reader(ResultSet rs) throws SQLException {
+            ColumnIndex c = new ColumnIndex(rs);
+            int patientId = c.of("id");
+            int userId = c.of("user_id");
+            int patientNumber = c.of("patient_number");
+            int dob = c.of("date_of_birth");
+            int sex = c.of("sex");
+            int bloodType = c.of("blood_type");
+            int civilStatus = c.of("civil_status");
+            int address = c.of("address");
+            int contactNumber = c.of("contact_number");
+            int emergencyContactName = c.of("emergency_contact_name");
+            int emergencyContactNumber = c.of("emergency_contact_number");
+            int firstName = c.of("first_name");
+            int lastName = c.of("last_name");
+            int gender = c.of("gender");
+            return row -> {
+                PatientRow r = new PatientRow();
+                r.patientId = row.getString(patientId);
+                r.userId = row.getString(userId);
+                r.patientNumber = row.getString(patientNumber);
+                java.sql.Date d = row.getDate(dob);
+                r.dob = d != null ? d.toLocalDate() : null;
+                r.sex = row.getString(sex);
+                r.bloodType = row.getString(bloodType);
+                r.civilStatus = row.getString(civilStatus);
+                r.address = row.getString(address);
+                r.contactNumber = row.getString(contactNumber);
+                r.emergencyContactName = row.getString(emergencyContactName);
+                r.emergencyContactNumber = row.getString(emergencyContactNumber);
+                r.firstName = row.getString(firstName);
+                r.lastName = row.getString(lastName);
+                r.gender = row.getString(gender);
+                return r;
+            };
         }
+    }
 
-        // Set additional fields
-        try {
-            java.lang.reflect.Field idField = Patient.class.getDeclaredField("patientId");
-            idField.setAccessible(true);
-            idField.set(patient, patientId);
-        } catch (Exception e) {
-            System.err.println("[PatientRepository] Error mapping patient: " + e.getMessage());
-        }
+    @Override
+    protected RowReader<Patient> rowReader(ResultSet rs) throws SQLException {
+        RowReader<PatientRow> reader = PatientRow.reader(rs);
+        return r -> {
+            PatientRow row = reader.read(r);
+            // Get user if userId exists
+            User user = null;
+            if (row.userId != null) {
+                user = UserRepository.cached().findById(row.userId).orElse(null);
+            }
+            return toEntity(row, user);
+        };
+    }
 
-        return patient;
+    /**
+     * Multi-row results fetch the linked users once per page of rows instead of
+     * once per patient.
+     */
+    @Override
+    protected PageReader<Patient> pageReader(ResultSet rs) throws SQLException {
+        return linkedPageReader(PatientRow.reader(rs), page -> {
+            List<String> userIds = new ArrayList<>();
+            for (PatientRow r : page) {
+                if (r.userId != null)
+                    userIds.add(r.userId);
+            }
+            Map<String, User> users = UserRepository.getInstance().findByIds(userIds);
+            List<Patient> patients = new ArrayList<>(page.size());
+            for (PatientRow r : page) {
+                patients.add(toEntity(r, r.userId != null ? users.get(r.userId) : null));
+            }
+            return patients;
+        });
+    }
+
+    private Patient toEntity(PatientRow r, User user) {
+        if (user != null && r.dob != null) {
+            return new Patient(r.patientId, user, r.patientNumber, r.dob, r.sex, r.bloodType, r.civilStatus,
+                    r.address, r.contactNumber, r.emergencyContactName, r.emergencyContactNumber);
+        }
+        // Fallback for records without user
+        return new Patient(r.patientId, r.firstName, r.lastName, r.dob, r.gender, r.contactNumber,
+                r.userId != null ? r.userId : r.firstName, r.address);
     }
 
     @Override
@@ -77,112 +149,227 @@ public class PatientRepository extends DatabaseRepository<String, Patient> {
         return "id";
     }
 
+    private static final String[] COLUMNS = {
+            "id", "user_id", "patient_number", "first_name", "last_name", "date_of_birth", "sex", "gender",
+            "blood_type", "civil_status", "address", "contact_number", "emergency_contact_name",
+            "emergency_contact_number", "age", "allergies", "current_medications", "insurance_provider",
+            "insurance_number", "phil_health_number", "insurance_expiry", "occupation", "employer_name",
+            "work_address", "religion", "preferred_language", "preferred_contact_method", "symptoms",
+            "height_cm", "weight_kg", "last_name_lower"
+    };
+
     @Override
-    protected Patient insertEntity(Patient entity) {
+    protected String[] getColumns() {
+        return COLUMNS;
+    }
+
+    @Override
+    protected Object[] getColumnValues(Patient entity) {
+        return new Object[] {
+            entity.getId(),
+            entity.getUser() != null ? entity.getUser().getId() : null,
+            entity.getPatientNumber(),
+            entity.getFirstName(),
+            entity.getLastName(),
+            entity.getDateOfBirth(),
+            entity.getSex(),
+            entity.getGender(),
+            entity.getBloodType(),
+            entity.getCivilStatus(),
+            entity.getAddress(),
+            entity.getContactNumber(),
+            entity.getEmergencyContactName(),
+            entity.getEmergencyContactNumber(),
+            entity.getAge(),
+            entity.getAllergies(),
+            entity.getCurrentMedications(),
+            entity.getInsuranceProvider(),
+            entity.getInsuranceNumber(),
+            entity.getPhilHealthNumber(),
+            entity.getInsuranceExpiry(),
+            entity.getOccupation(),
+            entity.getEmployerName(),
+            entity.getWorkAddress(),
+            entity.getReligion(),
+            entity.getPreferredLanguage(),
+            entity.getPreferredContactMethod(),
+            entity.getSymptoms(),
+            entity.getHeightCm(),
+            entity.getWeightKg(),
+            lowerKey(entity.getLastName())
+        };
+    }
+
+    private static final String[] SORTABLE_COLUMNS = {
+            "patient_number", "date_of_birth"
+    };
+
+    @Override
+    protected Set<String> getSortableColumns() {
+        Set<String> cols = super.getSortableColumns();
+        cols.addAll(Arrays.asList(SORTABLE_COLUMNS));
+        return cols;
+    }
+
+    /**
+     * Columns read by the summary projection, in order. The linked user's full
+     * name covers patients whose own name columns are empty.
+     */
+    private static final String SUMMARY_SELECT = "SELECT p.id, p.patient_number, p.first_name, p.last_name, "
+            + "p.date_of_birth, p.gender, p.sex, p.contact_number, u.full_name "
+            + "FROM patients p LEFT JOIN users u ON u.id = p.user_id";
+
+    private static final RowReader<PatientSummaryDTO> SUMMARY_READER = r -> {
+        PatientSummaryDTO dto = new PatientSummaryDTO();
+        dto.setId(r.getString(1));
+        dto.setPatientNumber(r.getString(2));
+        String first = r.getString(3);
+        String last = r.getString(4);
+        String name = ((first == null ? "" : first) + " " + (last == null ? "" : last)).trim();
+        if (name.isEmpty() && r.getString(9) != null)
+            name = r.getString(9);
+        dto.setFullName(name);
+        java.sql.Date dob = r.getDate(5);
+        if (dob != null) {
+            dto.setDateOfBirth(dob.toLocalDate());
+            dto.setAge(Math.max(0, java.time.Period.between(dto.getDateOfBirth(), LocalDate.now()).getYears()));
+        }
+        String gender = r.getString(6);
+        dto.setGender(shared(gender != null ? gender : r.getString(7)));
+        dto.setContactNumber(r.getString(8));
+        return dto;
+    };
+
+    /**
+     * Lightweight rows for patient list screens: only the columns the tables
+     * show, no Patient or User objects.
+     */
+    public List<PatientSummaryDTO> findSummaries() {
+        try {
+            return executeProjection(SUMMARY_SELECT, SUMMARY_READER);
+        } catch (SQLException ex) {
+            System.err.println("[PatientRepository] Error loading patient summaries: " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Summaries for the given patient ids (e.g. to label a page of appointments),
+     * keyed by id. Unknown ids are absent from the map.
+     */
+    public Map<String, PatientSummaryDTO> findSummariesByIds(Collection<String> ids) {
+        Map<String, PatientSummaryDTO> summaries = new HashMap<>();
+        if (ids == null || ids.isEmpty())
+            return summaries;
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
         try {
-            String sql = "INSERT INTO patients " +
-                    "(id, user_id, patient_number, first_name, last_name, date_of_birth, sex, gender, blood_type, " +
-                    "civil_status, address, contact_number, emergency_contact_name, emergency_contact_number, " +
-                    "age, allergies, current_medications, insurance_provider, insurance_number, phil_health_number, " +
-                    "insurance_expiry, occupation, employer_name, work_address, religion, preferred_language, " +
-                    "preferred_contact_method, symptoms, height_cm, weight_kg, created_at, updated_at) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
-
-            System.out.println("[PatientRepository] Inserting patient: " + entity.getFirstName() + " "
-                    + entity.getLastName() + " (ID: " + entity.getId() + ")");
-
-            int rowsAffected = executeUpdate(sql,
-                    entity.getId(),
-                    entity.getUser() != null ? entity.getUser().getId() : null,
-                    entity.getPatientNumber(),
-                    entity.getFirstName(),
-                    entity.getLastName(),
-                    entity.getDateOfBirth(),
-                    entity.getSex(),
-                    entity.getGender(),
-                    entity.getBloodType(),
-                    entity.getCivilStatus(),
-                    entity.getAddress(),
-                    entity.getContactNumber(),
-                    entity.getEmergencyContactName(),
-                    entity.getEmergencyContactNumber(),
-                    entity.getAge(),
-                    entity.getAllergies(),
-                    entity.getCurrentMedications(),
-                    entity.getInsuranceProvider(),
-                    entity.getInsuranceNumber(),
-                    entity.getPhilHealthNumber(),
-                    entity.getInsuranceExpiry(),
-                    entity.getOccupation(),
-                    entity.getEmployerName(),
-                    entity.getWorkAddress(),
-                    entity.getReligion(),
-                    entity.getPreferredLanguage(),
-                    entity.getPreferredContactMethod(),
-                    entity.getSymptoms(),
-                    entity.getHeightCm(),
-                    entity.getWeightKg());
-
-            System.out.println("[PatientRepository] Successfully inserted patient. Rows affected: " + rowsAffected);
-            return entity;
+            for (int from = 0; from < distinct.size(); from += PREFETCH_PAGE_SIZE) {
+                List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + PREFETCH_PAGE_SIZE));
+                int slots = inListSlots(chunk.size());
+                Object[] params = new Object[slots];
+                for (int i = 0; i < slots; i++)
+                    params[i] = chunk.get(Math.min(i, chunk.size() - 1));
+                for (PatientSummaryDTO dto : executeProjection(
+                        SUMMARY_SELECT + " WHERE p.id IN (" + placeholders(slots) + ")", SUMMARY_READER, params)) {
+                    summaries.put(dto.getId(), dto);
+                }
+            }
         } catch (SQLException ex) {
-            System.err.println("[PatientRepository] ERROR inserting patient: " + ex.getMessage());
-            ex.printStackTrace();
-            return entity;
+            System.err.println("[PatientRepository] Error loading patient summaries by ids: " + ex.getMessage());
         }
+        return summaries;
     }
 
-    @Override
-    protected Patient updateEntity(Patient entity) {
+    /**
+     * Patients for the given ids, keyed by id, loaded with one IN query per few
+     * hundred ids (their users with one more per page). Unknown ids are absent.
+     */
+    public Map<String, Patient> findByIds(Collection<String> ids) {
+        return findByIds(ids, null);
+    }
+
+    /**
+     * Like {@link #findByIds(Collection)}, keeping only patients born on
+     * {@code bornOn} (null: any date of birth); the date is part of the query,
+     * so the rows of the others are never read.
+     */
+    public Map<String, Patient> findByIds(Collection<String> ids, LocalDate bornOn) {
+        Map<String, Patient> patients = new HashMap<>();
+        if (ids == null || ids.isEmpty())
+            return patients;
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
         try {
-            String sql = "UPDATE patients SET " +
-                    "user_id = ?, patient_number = ?, first_name = ?, last_name = ?, date_of_birth = ?, " +
-                    "sex = ?, gender = ?, blood_type = ?, civil_status = ?, address = ?, contact_number = ?, " +
-                    "emergency_contact_name = ?, emergency_contact_number = ?, age = ?, allergies = ?, " +
-                    "current_medications = ?, insurance_provider = ?, insurance_number = ?, phil_health_number = ?, " +
-                    "insurance_expiry = ?, occupation = ?, employer_name = ?, work_address = ?, religion = ?, " +
-                    "preferred_language = ?, preferred_contact_method = ?, symptoms = ?, height_cm = ?, " +
-                    "weight_kg = ?, updated_at = NOW() WHERE id = ?";
-
-            executeUpdate(sql,
-                    entity.getUser() != null ? entity.getUser().getId() : null,
-                    entity.getPatientNumber(),
-                    entity.getFirstName(),
-                    entity.getLastName(),
-                    entity.getDateOfBirth(),
-                    entity.getSex(),
-                    entity.getGender(),
-                    entity.getBloodType(),
-                    entity.getCivilStatus(),
-                    entity.getAddress(),
-                    entity.getContactNumber(),
-                    entity.getEmergencyContactName(),
-                    entity.getEmergencyContactNumber(),
-                    entity.getAge(),
-                    entity.getAllergies(),
-                    entity.getCurrentMedications(),
-                    entity.getInsuranceProvider(),
-                    entity.getInsuranceNumber(),
-                    entity.getPhilHealthNumber(),
-                    entity.getInsuranceExpiry(),
-                    entity.getOccupation(),
-                    entity.getEmployerName(),
-                    entity.getWorkAddress(),
-                    entity.getReligion(),
-                    entity.getPreferredLanguage(),
-                    entity.getPreferredContactMethod(),
-                    entity.getSymptoms(),
-                    entity.getHeightCm(),
-                    entity.getWeightKg(),
-                    entity.getId());
-
-            return entity;
+            for (int from = 0; from < distinct.size(); from += PREFETCH_PAGE_SIZE) {
+                List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + PREFETCH_PAGE_SIZE));
+                int slots = inListSlots(chunk.size());
+                Object[] params = new Object[bornOn != null ? slots + 1 : slots];
+                for (int i = 0; i < slots; i++)
+                    params[i] = chunk.get(Math.min(i, chunk.size() - 1));
+                String sql = "SELECT * FROM patients WHERE id IN (" + placeholders(slots) + ")";
+                if (bornOn != null) {
+                    sql += " AND date_of_birth = ?";
+                    params[slots] = java.sql.Date.valueOf(bornOn);
+                }
+                for (Patient p : executeQuery(sql, params))
+                    patients.put(p.getId(), p);
+            }
         } catch (SQLException ex) {
-            System.err.println("[PatientRepository] Error updating patient: " + ex.getMessage());
-            return entity;
+            System.err.println("[PatientRepository] Error finding patients by ids: " + ex.getMessage());
+        }
+        return patients;
+    }
+
+    // columns the patient list search matches against
+    private static final String[] SEARCH_COLUMNS = {
+            "p.patient_number", "p.first_name", "p.last_name", "u.full_name", "p.contact_number"
+    };
+
+    /** Number of patients matching a list search (null or blank: all patients). */
+    public long countSummaries(String search) {
+        List<Object> params = new ArrayList<>();
+        String where = containsAny(search, params, SEARCH_COLUMNS);
+        try {
+            return executeCount("SELECT COUNT(*) FROM patients p LEFT JOIN users u ON u.id = p.user_id"
+                    + (where == null ? "" : " WHERE " + where), params.toArray());
+        } catch (SQLException ex) {
+            System.err.println("[PatientRepository] Error counting patient summaries: " + ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * One page of summaries for lazily loaded patient lists, filtered by a list
+     * search and keyset-paged as in {@link #findPage} (see findProjectionPage
+     * for {@code skip}).
+     */
+    public List<PatientSummaryDTO> findSummaryPage(String search, String afterId, int skip, int limit, Sort sort) {
+        List<Object> params = new ArrayList<>();
+        String where = containsAny(search, params, SEARCH_COLUMNS);
+        try {
+            return findProjectionPage(SUMMARY_SELECT, "p", where, params, afterId, skip, limit, sort, SUMMARY_READER);
+        } catch (SQLException ex) {
+            System.err.println("[PatientRepository] Error paging patient summaries: " + ex.getMessage());
+            return new ArrayList<>();
         }
     }
 
+    /**
+     * The text a patient can be looked up by, as {id, patient number, first
+     * name, last name, contact number, username, account full name}, one keyset
+     * page at a time in id order (for building search indexes without loading
+     * Patient objects). Errors are thrown so a build can tell a failed page
+     * from the end of the table.
+     */
+    public List<String[]> findSearchFieldsPage(String afterId, int limit) throws SQLException {
+        return findProjectionPage("SELECT p.id, p.patient_number, p.first_name, p.last_name, p.contact_number, "
+                + "u.username, u.full_name FROM patients p LEFT JOIN users u ON u.id = p.user_id",
+                "p", null, null, afterId, 0, limit, null, r -> new String[] {
+                        r.getString(1), r.getString(2), r.getString(3), r.getString(4), r.getString(5),
+                        r.getString(6), r.getString(7) });
+    }
+
     /**
      * Find patient by patient number.
      */
@@ -196,11 +383,15 @@ public class PatientRepository extends DatabaseRepository<String, Patient> {
     }
 
     /**
-     * Find all patients by last name.
+     * Find all patients whose last name starts with the given text
+     * (case-insensitive). A prefix match on last_name_lower is a range scan of
+     * its index; "contains" would have to read every row.
      */
     public List<Patient> findByLastName(String lastName) {
+        if (lastName == null || lastName.isBlank())
+            return new ArrayList<>();
         try {
-            return executeQuery("SELECT * FROM patients WHERE last_name LIKE ?", "%" + lastName + "%");
+            return executeQuery("SELECT * FROM patients WHERE last_name_lower LIKE ?", prefixPattern(lastName));
         } catch (SQLException ex) {
             System.err.println("[PatientRepository] Error finding by last name: " + ex.getMessage());
             return new ArrayList<>();
@@ -220,11 +411,27 @@ public class PatientRepository extends DatabaseRepository<String, Patient> {
     }
 
     /**
-     * Find all patients created after a given date.
+     * Find all patients created on or after a given date. Compares the bare
+     * created_at column against the start of that day rather than
+     * DATE(created_at), which is MySQL-specific and cannot use
+     * idx_patients_created_at.
      */
     public List<Patient> findCreatedAfter(LocalDate date) {
+        return findCreatedBetween(date, null);
+    }
+
+    /**
+     * Find all patients created from the start of {@code from} up to, but not
+     * including, the start of {@code toExclusive} (null: no upper bound). The
+     * half-open range of timestamps is one index range scan and needs no
+     * end-of-day arithmetic.
+     */
+    public List<Patient> findCreatedBetween(LocalDate from, LocalDate toExclusive) {
         try {
-            return executeQuery("SELECT * FROM patients WHERE DATE(created_at) >= ?", date.toString());
+            if (toExclusive == null)
+                return executeQuery("SELECT * FROM patients WHERE created_at >= ?", Timestamp.valueOf(from.atStartOfDay()));
+            return executeQuery("SELECT * FROM patients WHERE created_at >= ? AND created_at < ?",
+                    Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(toExclusive.atStartOfDay()));
         } catch (SQLException ex) {
             System.err.println("[PatientRepository] Error finding by creation date: " + ex.getMessage());
             return new ArrayList<>();
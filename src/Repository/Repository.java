@@ -2,6 +2,7 @@ package Repository;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Generic repository interface (very small).
@@ -13,4 +14,16 @@ public interface Repository<ID, T> {
     Optional<T> findById(ID id);
     Collection<T> findAll();
     boolean delete(ID id);
+
+    /** Save every entity; implementations may write them as one batch. */
+    Collection<T> saveAll(Collection<T> entities);
+
+    /** Delete every id; returns how many entities were removed. */
+    int deleteAll(Collection<ID> ids);
+
+    /**
+     * Stream every entity. Database implementations read rows lazily and hold a
+     * connection until the stream is exhausted or closed, so use try-with-resources.
+     */
+    Stream<T> streamAll();
 }
@@ -0,0 +1,34 @@
+package Repository;
+
+import java.util.Objects;
+
+/**
+ * Sort order for {@link DatabaseRepository#findPage}: one column plus a
+ * direction. Ties are always broken by the primary key.
+ */
+public final class Sort {
+    private final String column;
+    private final boolean ascending;
+
+    private Sort(String column, boolean ascending) {
+        this.column = Objects.requireNonNull(column);
+        this.ascending = ascending;
+    }
+
+    public static Sort asc(String column) {
+        return new Sort(column, true);
+    }
+
+    public static Sort desc(String column) {
+        return new Sort(column, false);
+    }
+
+    public String getColumn() { return column; }
+
+    public boolean isAscending() { return ascending; }
+
+    @Override
+    public String toString() {
+        return column + (ascending ? " ASC" : " DESC");
+    }
+}
@@ -16,39 +16,90 @@ public class StaffRepository extends DatabaseRepository<String, Staff> {
     }
 
     public StaffRepository() {
-        super("staff");
+        super("staff", Staff.class);
     }
 
-    @Override
-    protected Staff mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String userId = rs.getString("user_id");
-        Optional<User> userOpt = UserRepository.getInstance().findById(userId);
-        if (userOpt.isEmpty()) {
-            return null;
+    /** Raw columns of one staff row, read before the linked user is resolved. */
+    private static final class StaffRow {
+        String id;
+        String userId;
+        String firstName;
+        String lastName;
+        String roleType;
+        String departmentId;
+        String contactNumber;
+        java.time.LocalDate hireDate;
+        String status;
+
+        /** Resolve the column positions once and return a reader for every row of rs. */
+        static RowReader<StaffRow> reader(ResultSet rs) throws SQLException {
+            ColumnIndex c = new ColumnIndex(rs);
+            int id = c.of("id");
+            int userId = c.of("user_id");
+            int firstName = c.of("first_name");
+            int lastName = c.of("last_name");
+            int roleType = c.of("role_type");
+            int departmentId = c.of("department_id");
+            int contactNumber = c.of("contact_number");
+            int hireDate = c.of("hire_date");
+            int status = c.of("status");
+            return row -> {
+                StaffRow r = new StaffRow();
+                r.id = row.getString(id);
+                r.userId = row.getString(userId);
+                r.firstName = row.getString(firstName);
+                r.lastName = row.getString(lastName);
+                r.roleType = row.getString(roleType);
+                r.departmentId = row.getString(departmentId);
+                r.contactNumber = row.getString(contactNumber);
+                java.sql.Date hire = row.getDate(hireDate);
+                r.hireDate = hire != null ? hire.toLocalDate() : null;
+                r.status = row.getString(status);
+                return r;
+            };
         }
+    }
 
-        User user = userOpt.get();
-        String firstName = rs.getString("first_name");
-        String lastName = rs.getString("last_name");
-        String roleType = rs.getString("role_type");
-        String departmentId = rs.getString("department_id");
-        String contactNumber = rs.getString("contact_number");
-        java.time.LocalDate hireDate = rs.getDate("hire_date") != null ? rs.getDate("hire_date").toLocalDate() : null;
-        String statusStr = rs.getString("status");
-        UserStatus status = UserStatus.valueOf(statusStr);
+    @Override
+    protected RowReader<Staff> rowReader(ResultSet rs) throws SQLException {
+        RowReader<StaffRow> reader = StaffRow.reader(rs);
+        return r -> {
+            StaffRow row = reader.read(r);
+            Optional<User> userOpt = UserRepository.cached().findById(row.userId);
+            return toEntity(row, userOpt.orElse(null));
+        };
+    }
 
-        Staff staff = new Staff(user, firstName, lastName, roleType, departmentId, contactNumber, hireDate, status);
+    /**
+     * Multi-row results fetch the linked users once per page of rows instead of
+     * once per staff member.
+     */
+    @Override
+    protected PageReader<Staff> pageReader(ResultSet rs) throws SQLException {
+        return linkedPageReader(StaffRow.reader(rs), page -> {
+            List<String> userIds = new ArrayList<>();
+            for (StaffRow r : page) {
+                userIds.add(r.userId);
+            }
+            Map<String, User> users = UserRepository.getInstance().findByIds(userIds);
+            List<Staff> staff = new ArrayList<>(page.size());
+            for (StaffRow r : page) {
+                staff.add(toEntity(r, r.userId != null ? users.get(r.userId) : null));
+            }
+            return staff;
+        });
+    }
 
-        // Set ID from database
-        try {
-            java.lang.reflect.Field idField = Staff.class.getDeclaredField("staffId");
-            idField.setAccessible(true);
-            idField.set(staff, rs.getString("id"));
-        } catch (Exception e) {
-            System.err.println("[StaffRepository] Error mapping staff: " + e.getMessage());
+    /** Returns null when the linked user no longer exists. */
+    private Staff toEntity(StaffRow r, User user) {
+        if (user == null) {
+            return null;
         }
 
-        return staff;
+        UserStatus status = UserStatus.valueOf(r.status);
+
+        return new Staff(r.id, user, r.firstName, r.lastName, r.roleType, r.departmentId, r.contactNumber,
+                r.hireDate, status);
     }
 
     @Override
@@ -61,59 +112,38 @@ public class StaffRepository extends DatabaseRepository<String, Staff> {
         return "id";
     }
 
+    private static final String[] COLUMNS = {
+            "id", "user_id", "first_name", "last_name", "role_type", "department_id", "contact_number",
+            "hire_date", "status"
+    };
+
+    private static final String[] UPDATABLE_COLUMNS = {
+            "first_name", "last_name", "role_type", "department_id", "contact_number", "hire_date", "status"
+    };
+
     @Override
-    protected Staff insertEntity(Staff entity) {
-        try {
-            String sql = "INSERT INTO staff " +
-                    "(id, user_id, first_name, last_name, role_type, department_id, contact_number, hire_date, status, created_at, updated_at) "
-                    +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
-
-            System.out.println("[StaffRepository] Inserting staff: " + entity.getFirstName() + " "
-                    + entity.getLastName() + " (ID: " + entity.getStaffId() + ")");
-
-            int rowsAffected = executeUpdate(sql,
-                    entity.getStaffId(),
-                    entity.getUserId(),
-                    entity.getFirstName(),
-                    entity.getLastName(),
-                    entity.getRoleType(),
-                    entity.getDepartmentId(),
-                    entity.getContactNumber(),
-                    entity.getHireDate(),
-                    entity.getStatus().name());
-
-            System.out.println("[StaffRepository] Successfully inserted staff. Rows affected: " + rowsAffected);
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[StaffRepository] ERROR inserting staff: " + ex.getMessage());
-            ex.printStackTrace();
-            return entity;
-        }
+    protected String[] getColumns() {
+        return COLUMNS;
     }
 
     @Override
-    protected Staff updateEntity(Staff entity) {
-        try {
-            String sql = "UPDATE staff SET " +
-                    "first_name = ?, last_name = ?, role_type = ?, department_id = ?, " +
-                    "contact_number = ?, hire_date = ?, status = ?, updated_at = NOW() WHERE id = ?";
-
-            executeUpdate(sql,
-                    entity.getFirstName(),
-                    entity.getLastName(),
-                    entity.getRoleType(),
-                    entity.getDepartmentId(),
-                    entity.getContactNumber(),
-                    entity.getHireDate(),
-                    entity.getStatus().name(),
-                    entity.getStaffId());
-
-            return entity;
-        } catch (SQLException ex) {
-            System.err.println("[StaffRepository] Error updating staff: " + ex.getMessage());
-            return entity;
-        }
+    protected Object[] getColumnValues(Staff entity) {
+        return new Object[] {
+            entity.getStaffId(),
+            entity.getUserId(),
+            entity.getFirstName(),
+            entity.getLastName(),
+            entity.getRoleType(),
+            entity.getDepartmentId(),
+            entity.getContactNumber(),
+            entity.getHireDate(),
+            entity.getStatus().name()
+        };
+    }
+
+    @Override
+    protected String[] getUpdatableColumns() {
+        return UPDATABLE_COLUMNS;
     }
 
     /**
@@ -0,0 +1,188 @@
+package Repository;
+
+import Util.DB;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Unit of work spanning several repositories.
+ *
+ * Inside {@link #run} / {@link #call} one connection is bound to the current
+ * thread and every {@link DatabaseRepository} call made by the work uses it, so
+ * a multi-step service method commits once (or not at all) instead of once per
+ * statement. Nested calls join the outer transaction.
+ *
+ * Repositories log and swallow SQL errors, so a failed write inside a unit of
+ * work marks it rollback-only; the whole unit is then rolled back and an
+ * IllegalStateException is thrown. Services that keep in-memory state next to
+ * the database can undo it with {@link #onRollback}.
+ *
+ * If no connection can be obtained the work runs without a transaction (each
+ * repository call then fails and logs as it would outside one).
+ */
+public final class Transaction {
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private final Connection connection;
+    private final Connection shared;
+    private final List<Runnable> rollbackHooks = new ArrayList<>();
+    private final List<Runnable> commitHooks = new ArrayList<>();
+    private String rollbackReason;
+
+    private Transaction(Connection connection) {
+        this.connection = connection;
+        this.shared = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        // the unit of work owns the connection's lifecycle and transaction
+                        case "close":
+                        case "commit":
+                        case "rollback":
+                        case "setAutoCommit":
+                            return null;
+                        case "getAutoCommit":
+                            return false;
+                        case "isClosed":
+                            return connection.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    /** Run work as one unit of work. */
+    public static void run(Runnable work) {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /** Run work as one unit of work and return its result. */
+    public static <R> R call(Supplier<R> work) {
+        if (CURRENT.get() != null)
+            return work.get();
+
+        Connection conn;
+        try {
+            conn = DB.getConnection();
+            conn.setAutoCommit(false);
+        } catch (SQLException ex) {
+            System.err.println("[Transaction] Could not start transaction, running without one: " + ex.getMessage());
+            return work.get();
+        }
+
+        Transaction tx = new Transaction(conn);
+        CURRENT.set(tx);
+        try {
+            R result = work.get();
+            if (tx.rollbackReason != null)
+                throw new IllegalStateException("Transaction rolled back: " + tx.rollbackReason);
+            conn.commit();
+            tx.runCommitHooks();
+            return result;
+        } catch (SQLException ex) {
+            tx.rollback();
+            throw new IllegalStateException("Transaction commit failed: " + ex.getMessage(), ex);
+        } catch (RuntimeException | Error ex) {
+            tx.rollback();
+            throw ex;
+        } finally {
+            CURRENT.remove();
+            try {
+                conn.setAutoCommit(true);
+            } catch (SQLException ignored) {
+            }
+            try {
+                conn.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ex) {
+            System.err.println("[Transaction] Rollback failed: " + ex.getMessage());
+        }
+        for (int i = rollbackHooks.size() - 1; i >= 0; i--) {
+            try {
+                rollbackHooks.get(i).run();
+            } catch (RuntimeException ex) {
+                System.err.println("[Transaction] Rollback hook failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void runCommitHooks() {
+        for (Runnable hook : commitHooks) {
+            try {
+                hook.run();
+            } catch (RuntimeException ex) {
+                System.err.println("[Transaction] Commit hook failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    /** True while the current thread is inside a unit of work. */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Undo in-memory changes if the current unit of work rolls back. Hooks run in
+     * reverse registration order. Outside a unit of work this does nothing.
+     */
+    public static void onRollback(Runnable hook) {
+        Transaction tx = CURRENT.get();
+        if (tx != null)
+            tx.rollbackHooks.add(hook);
+    }
+
+    /**
+     * Run a hook once the current unit of work has committed; it is dropped if
+     * the unit rolls back. Outside a unit of work the hook runs immediately.
+     */
+    public static void afterCommit(Runnable hook) {
+        Transaction tx = CURRENT.get();
+        if (tx != null)
+            tx.commitHooks.add(hook);
+        else
+            hook.run();
+    }
+
+    /**
+     * Make the current unit of work roll back when it finishes. Outside a unit of
+     * work this does nothing.
+     */
+    public static void markRollbackOnly(String reason) {
+        Transaction tx = CURRENT.get();
+        if (tx != null && tx.rollbackReason == null)
+            tx.rollbackReason = reason;
+    }
+
+    /**
+     * The connection bound to the current thread, wrapped so that close(),
+     * commit(), rollback() and setAutoCommit() from repository helpers are
+     * no-ops; null outside a unit of work.
+     */
+    static Connection currentConnection() {
+        Transaction tx = CURRENT.get();
+        return tx != null ? tx.shared : null;
+    }
+}
@@ -1,5 +1,6 @@
 package Repository;
 
+import DTO.UserDTO;
 import Model.*;
 import java.sql.*;
 import java.time.Instant;
@@ -16,50 +17,42 @@ public class UserRepository extends DatabaseRepository<String, User> {
     public static UserRepository getInstance() {
         return INSTANCE;
     }
+
+    private static final class CacheHolder {
+        static final CachingRepository<String, User> INSTANCE = new CachingRepository<>("users", UserRepository.INSTANCE,
+                User::getId);
+    }
+
+    /** findById-caching view of {@link #getInstance()} (see {@link CachingRepository}). */
+    public static CachingRepository<String, User> cached() {
+        return CacheHolder.INSTANCE;
+    }
     
     public UserRepository() {
-        super("users");
+        super("users", User.class);
     }
     
     @Override
-    protected User mapResultSetToEntity(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String username = rs.getString("username");
-        String email = rs.getString("email");
-        String fullName = rs.getString("full_name");
-        String passwordHash = rs.getString("password_hash");
-        String roleStr = rs.getString("role");
-        String profilePictureUrl = rs.getString("profile_picture_url");
-        String statusStr = rs.getString("status");
-        String staffNumber = rs.getString("staff_number");
-        String linkedPatientId = rs.getString("linked_patient_id");
-        Timestamp createdAtTs = rs.getTimestamp("created_at");
-        
-        Role role = Role.valueOf(roleStr);
-        UserStatus status = UserStatus.valueOf(statusStr);
-        
-        // Reconstruct user object
-        User user = new User(username, email, fullName, passwordHash, role);
-        
-        // Restore fields using reflection or setters
-        try {
-            java.lang.reflect.Field idField = User.class.getDeclaredField("id");
-            idField.setAccessible(true);
-            idField.set(user, id);
-            
-            java.lang.reflect.Field createdAtField = User.class.getDeclaredField("createdAt");
-            createdAtField.setAccessible(true);
-            createdAtField.set(user, Instant.ofEpochMilli(createdAtTs.getTime()));
-        } catch (Exception e) {
-            System.err.println("[UserRepository] Error mapping user: " + e.getMessage());
-        }
-        
-        user.setProfilePictureUrl(profilePictureUrl);
-        user.setStatus(status);
-        user.setStaffNumber(staffNumber);
-        user.setLinkedPatientId(linkedPatientId);
-        
-        return user;
+    protected RowReader<User> rowReader(ResultSet rs) throws SQLException {
+        ColumnIndex c = new ColumnIndex(rs);
+        int id = c.of("id");
+        int username = c.of("username");
+        int email = c.of("email");
+        int fullName = c.of("full_name");
+        int passwordHash = c.of("password_hash");
+        int role = c.of("role");
+        int profilePictureUrl = c.of("profile_picture_url");
+        int status = c.of("status");
+        int staffNumber = c.of("staff_number");
+        int linkedPatientId = c.of("linked_patient_id");
+        int createdAt = c.of("created_at");
+        return r -> {
+            Timestamp createdAtTs = r.getTimestamp(createdAt);
+            return new User(r.getString(id), r.getString(username), r.getString(email), r.getString(fullName),
+                    r.getString(passwordHash), Role.valueOf(r.getString(role)), UserStatus.valueOf(r.getString(status)),
+                    createdAtTs != null ? Instant.ofEpochMilli(createdAtTs.getTime()) : null,
+                    r.getString(profilePictureUrl), r.getString(staffNumber), r.getString(linkedPatientId));
+        };
     }
     
     @Override
@@ -72,66 +65,163 @@ public class UserRepository extends DatabaseRepository<String, User> {
         return "id";
     }
     
+    private static final String[] COLUMNS = {
+            "id", "username", "email", "full_name", "password_hash", "role", "status", "profile_picture_url",
+            "staff_number", "linked_patient_id", "username_lower", "email_lower"
+    };
+    
+    private static final String[] UPDATABLE_COLUMNS = {
+            "email", "full_name", "password_hash", "role", "status", "profile_picture_url", "staff_number",
+            "linked_patient_id", "email_lower"
+    };
+    
+    @Override
+    protected String[] getColumns() {
+        return COLUMNS;
+    }
+    
     @Override
-    protected User insertEntity(User entity) {
+    protected Object[] getColumnValues(User entity) {
+        return new Object[] {
+            entity.getId(),
+            entity.getUsername(),
+            entity.getEmail(),
+            entity.getFullName(),
+            entity.getPasswordHash(),
+            entity.getRole().name(),
+            entity.getStatus().name(),
+            entity.getProfilePictureUrl(),
+            entity.getStaffNumber(),
+            entity.getLinkedPatientId(),
+            lowerKey(entity.getUsername()),
+            lowerKey(entity.getEmail())
+        };
+    }
+    
+    @Override
+    protected String[] getUpdatableColumns() {
+        return UPDATABLE_COLUMNS;
+    }
+    
+    private static final String[] SORTABLE_COLUMNS = {
+            "username", "email", "full_name", "role", "status"
+    };
+    
+    @Override
+    protected Set<String> getSortableColumns() {
+        Set<String> cols = super.getSortableColumns();
+        cols.addAll(Arrays.asList(SORTABLE_COLUMNS));
+        return cols;
+    }
+    
+    /**
+     * Load many users by id with IN queries (chunked, one connection) instead of
+     * one findById per id. Ids that do not exist are simply absent from the map.
+     * IN lists are padded to a power of two so only a handful of distinct SQL
+     * strings reach the statement cache.
+     */
+    public Map<String, User> findByIds(Collection<String> ids) {
+        Map<String, User> users = new HashMap<>();
+        if (ids == null || ids.isEmpty())
+            return users;
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.remove(null);
+        if (distinct.isEmpty())
+            return users;
+        try (Connection conn = getConnection()) {
+            for (int from = 0; from < distinct.size(); from += PREFETCH_PAGE_SIZE) {
+                List<String> chunk = distinct.subList(from, Math.min(distinct.size(), from + PREFETCH_PAGE_SIZE));
+                int slots = inListSlots(chunk.size());
+                String sql = "SELECT * FROM users WHERE id IN (" + placeholders(slots) + ")";
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < slots; i++)
+                        stmt.setString(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        RowReader<User> reader = rowReader(rs);
+                        while (rs.next()) {
+                            User u = reader.read(rs);
+                            users.put(u.getId(), u);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            System.err.println("[UserRepository] Error finding users by ids: " + ex.getMessage());
+        }
+        return users;
+    }
+
+    /**
+     * Rows for user list screens: id, username, role, linked patient/doctor and
+     * whether the account is active, without password hashes or profile data.
+     * Ordered by username.
+     */
+    public List<UserDTO> findUserSummaries() {
+        try {
+            return executeProjection(SUMMARY_SELECT + " ORDER BY u.username", SUMMARY_READER);
+        } catch (SQLException ex) {
+            System.err.println("[UserRepository] Error loading user summaries: " + ex.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static final String SUMMARY_SELECT = "SELECT u.id, u.username, u.role, u.linked_patient_id, d.id, u.status "
+            + "FROM users u LEFT JOIN doctors d ON d.user_id = u.id";
+
+    private static final RowReader<UserDTO> SUMMARY_READER = r -> new UserDTO(r.getString(1), r.getString(2),
+            Role.valueOf(r.getString(3)).name(), r.getString(4), r.getString(5),
+            UserStatus.ACTIVE.name().equals(r.getString(6)));
+
+    // columns the user list search matches against
+    private static final String[] SEARCH_COLUMNS = { "u.username", "u.role", "u.full_name", "u.email" };
+
+    /** Number of users matching a list search (null or blank: all users). */
+    public long countUserSummaries(String search) {
+        List<Object> params = new ArrayList<>();
+        String where = containsAny(search, params, SEARCH_COLUMNS);
         try {
-            String sql = "INSERT INTO users " +
-                "(id, username, email, full_name, password_hash, role, status, profile_picture_url, staff_number, linked_patient_id, created_at, updated_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
-            
-            executeUpdate(sql,
-                entity.getId(),
-                entity.getUsername(),
-                entity.getEmail(),
-                entity.getFullName(),
-                entity.getPasswordHash(),
-                entity.getRole().name(),
-                entity.getStatus().name(),
-                entity.getProfilePictureUrl(),
-                entity.getStaffNumber(),
-                entity.getLinkedPatientId()
-            );
-            
-            return entity;
+            return executeCount("SELECT COUNT(*) FROM users u" + (where == null ? "" : " WHERE " + where),
+                    params.toArray());
         } catch (SQLException ex) {
-            System.err.println("[UserRepository] Error inserting user: " + ex.getMessage());
-            return entity;
+            System.err.println("[UserRepository] Error counting user summaries: " + ex.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * One page of user list rows, filtered by a list search and keyset-paged as
+     * in {@link #findPage} (see findProjectionPage for {@code skip}).
+     */
+    public List<UserDTO> findUserSummaryPage(String search, String afterId, int skip, int limit, Sort sort) {
+        List<Object> params = new ArrayList<>();
+        String where = containsAny(search, params, SEARCH_COLUMNS);
+        try {
+            return findProjectionPage(SUMMARY_SELECT, "u", where, params, afterId, skip, limit, sort, SUMMARY_READER);
+        } catch (SQLException ex) {
+            System.err.println("[UserRepository] Error paging user summaries: " + ex.getMessage());
+            return new ArrayList<>();
         }
     }
     
-    @Override
-    protected User updateEntity(User entity) {
+    /**
+     * Every username, without loading the rest of the row (used to seed the
+     * username allocator).
+     */
+    public List<String> findAllUsernames() {
         try {
-            String sql = "UPDATE users SET " +
-                "email = ?, full_name = ?, password_hash = ?, role = ?, status = ?, " +
-                "profile_picture_url = ?, staff_number = ?, linked_patient_id = ?, updated_at = NOW() " +
-                "WHERE id = ?";
-            
-            executeUpdate(sql,
-                entity.getEmail(),
-                entity.getFullName(),
-                entity.getPasswordHash(),
-                entity.getRole().name(),
-                entity.getStatus().name(),
-                entity.getProfilePictureUrl(),
-                entity.getStaffNumber(),
-                entity.getLinkedPatientId(),
-                entity.getId()
-            );
-            
-            return entity;
+            return executeProjection("SELECT username FROM users", r -> r.getString(1));
         } catch (SQLException ex) {
-            System.err.println("[UserRepository] Error updating user: " + ex.getMessage());
-            return entity;
+            System.err.println("[UserRepository] Error loading usernames: " + ex.getMessage());
+            return new ArrayList<>();
         }
     }
     
     /**
-     * Find user by username (case-insensitive).
+     * Find user by username (case-insensitive, through the indexed username_lower column).
      */
     public Optional<User> findByUsername(String username) {
         try {
-            return executeSingleQuery("SELECT * FROM users WHERE LOWER(username) = LOWER(?)", username);
+            return executeSingleQuery("SELECT * FROM users WHERE username_lower = ?", lowerKey(username));
         } catch (SQLException ex) {
             System.err.println("[UserRepository] Error finding by username: " + ex.getMessage());
             return Optional.empty();
@@ -139,11 +229,11 @@ public class UserRepository extends DatabaseRepository<String, User> {
     }
     
     /**
-     * Find user by email (case-insensitive).
+     * Find user by email (case-insensitive, through the indexed email_lower column).
      */
     public Optional<User> findByEmail(String email) {
         try {
-            return executeSingleQuery("SELECT * FROM users WHERE LOWER(email) = LOWER(?)", email);
+            return executeSingleQuery("SELECT * FROM users WHERE email_lower = ?", lowerKey(email));
         } catch (SQLException ex) {
             System.err.println("[UserRepository] Error finding by email: " + ex.getMessage());
             return Optional.empty();
@@ -3,22 +3,35 @@ package Service;
 import Model.Appointment;
 import Model.AppointmentStatus;
 import Repository.InMemoryRepository;
-import Repository.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-/** Appointment scheduling and lifecycle operations. */
+/**
+ * Appointment scheduling and lifecycle operations.
+ *
+ * Appointments are indexed by doctor, patient, date, status and
+ * (doctor, status), so per-doctor lists and the counters below are index
+ * lookups that schedule/cancel/approve/complete keep current, not scans of
+ * every appointment.
+ */
 public class AppointmentService {
-    private final Repository<String, Appointment> repo;
+    private final InMemoryRepository<String, Appointment> repo;
 
     // Singleton holder for UI code expecting AppointmentService.getInstance()
     private static class Holder { static final AppointmentService INSTANCE = new AppointmentService(); }
     public static AppointmentService getInstance() { return Holder.INSTANCE; }
 
     public AppointmentService() {
-        this.repo = new InMemoryRepository<>(Appointment::getId);
+        this.repo = new InMemoryRepository<String, Appointment>(Appointment.class, Appointment::getId)
+                .withIndex("doctorId", Appointment::getDoctorId)
+                .withIndex("patientId", Appointment::getPatientId)
+                .withSortedIndex("scheduleDate", Appointment::getScheduleDate)
+                .withIndex("status", Appointment::getStatus)
+                .withIndex("doctorStatus", a -> List.of(a.getDoctorId(), a.getStatus()));
     }
 
     public Appointment schedule(String patientId, String staffId, LocalDateTime when, String reason) {
@@ -33,6 +46,37 @@ public class AppointmentService {
 
     public Collection<Appointment> listAll() { return repo.findAll(); }
 
+    public List<Appointment> listByDoctorId(String doctorId) { return repo.findBy("doctorId", doctorId); }
+
+    public List<Appointment> listByPatientId(String patientId) { return repo.findBy("patientId", patientId); }
+
+    public List<Appointment> listByDate(LocalDate date) { return repo.findBy("scheduleDate", date); }
+
+    /** Appointments with from &lt;= date &lt; to, ordered by date; either bound may be null. */
+    public List<Appointment> listBetween(LocalDate from, LocalDate toExclusive) {
+        return repo.findRange("scheduleDate", from, toExclusive);
+    }
+
+    public List<Appointment> listByDoctorAndStatus(String doctorId, AppointmentStatus status) {
+        return repo.findBy("doctorStatus", List.of(doctorId, status));
+    }
+
+    // --- Live counters (O(1), maintained on every save) ---------------
+
+    public int countByDoctorAndStatus(String doctorId, AppointmentStatus status) {
+        if (doctorId == null || status == null) return 0;
+        return repo.countBy("doctorStatus", List.of(doctorId, status));
+    }
+
+    /** Pending requests for a doctor (the "current patients" figure on doctor panels). */
+    public int countPendingForDoctor(String doctorId) {
+        return countByDoctorAndStatus(doctorId, AppointmentStatus.PENDING);
+    }
+
+    public int countByStatus(AppointmentStatus status) { return repo.countBy("status", status); }
+
+    public int countOnDate(LocalDate date) { return repo.countBy("scheduleDate", date); }
+
     public Appointment cancel(String appointmentId) {
         Optional<Appointment> opt = repo.findById(appointmentId);
         if (opt.isEmpty()) throw new IllegalArgumentException("Appointment not found: " + appointmentId);
@@ -3,18 +3,19 @@ package Service;
 import Model.Billing;
 import Model.BillingStatus;
 import Repository.InMemoryRepository;
-import Repository.Repository;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /** Lightweight billing service to create and update invoices. */
 public class BillingService {
-    private final Repository<String, Billing> repo;
+    private final InMemoryRepository<String, Billing> repo;
 
     public BillingService() {
-        this.repo = new InMemoryRepository<>(Billing::getId);
+        this.repo = new InMemoryRepository<String, Billing>(Billing.class, Billing::getId)
+                .withIndex("patientId", Billing::getPatientId);
     }
 
     public Billing createInvoice(String patientId, BigDecimal amount, String description) {
@@ -27,6 +28,7 @@ public class BillingService {
 
     public Optional<Billing> findById(String id) { return repo.findById(id); }
     public Collection<Billing> listAll() { return repo.findAll(); }
+    public List<Billing> listByPatientId(String patientId) { return repo.findBy("patientId", patientId); }
 
     public Billing markPaid(String id) {
         Optional<Billing> opt = repo.findById(id);
@@ -0,0 +1,771 @@
+package Service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Persistent full-text index of short documents, each made of up to
+ * {@link #MAX_FIELDS} text fields and filed under a key with an owner (e.g. a
+ * medical record and its patient).
+ *
+ * Text is split into lower-case, accent-free words, common English stop words
+ * are dropped and the rest reduced with the {@link PorterStemmer}; a query
+ * matches documents containing every one of its words, optionally only in
+ * some fields.
+ *
+ * The index lives in a directory as immutable segment files, read through
+ * memory-mapped buffers, plus a deletion bitmap per segment and a
+ * "segments" manifest naming the current files. {@link #put} and
+ * {@link #remove} are buffered; {@link #commit} writes the buffered documents
+ * as a new segment, marks their previous versions deleted and atomically
+ * replaces the manifest, after which searches see the changes. Segments of a
+ * similar size are merged once {@link #MERGE_FACTOR} of them accumulate, so
+ * the number of segments a search visits stays logarithmic in the index size.
+ * Searches never block: they work on the segments committed when they
+ * started. Files no longer in the manifest are deleted when possible and
+ * otherwise on the next open (a mapped file cannot be deleted on Windows).
+ */
+public final class DiskTextIndex {
+    /** Fields per document; field i is matched by bit {@code 1 << i} of a field mask. */
+    public static final int MAX_FIELDS = 8;
+    /** Every field. */
+    public static final int ALL_FIELDS = (1 << MAX_FIELDS) - 1;
+    /** On-disk format; an index written in another one is discarded on open. */
+    static final int FORMAT = 1;
+    /** Segments of one size tier merged together. */
+    static final int MERGE_FACTOR = 8;
+
+    private static final int MAGIC = 0x48505449; // "HPTI"
+    private static final int TRAILER_BYTES = 24;
+    private static final String MANIFEST = "segments";
+    private static final String MANIFEST_HEADER = "hpms-text-index " + FORMAT;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String DELETES_SUFFIX = ".del";
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "an", "and", "are", "as", "at", "be", "been", "but", "by", "for", "from", "had", "has", "have",
+            "he", "her", "his", "in", "into", "is", "it", "its", "of", "on", "or", "she", "that", "the", "their",
+            "then", "there", "these", "they", "this", "to", "was", "were", "which", "will", "with"));
+
+    private final Path dir;
+    private volatile List<Live> live = Collections.emptyList();
+    private int nextSegment;
+    private int nextDeletes;
+
+    // buffered until commit(); guarded by this
+    private final Map<String, PendingDoc> added = new HashMap<>();
+    private final Set<String> removed = new HashSet<>();
+    private boolean cleared;
+
+    /** A document found by {@link #search}. */
+    public static final class Hit {
+        private final String key;
+        private final String owner;
+
+        Hit(String key, String owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getOwner() {
+            return owner;
+        }
+    }
+
+    private static final class PendingDoc {
+        final String owner;
+        final Map<String, Integer> masks;
+
+        PendingDoc(String owner, Map<String, Integer> masks) {
+            this.owner = owner;
+            this.masks = masks;
+        }
+    }
+
+    /** A committed segment and which of its documents are deleted; never modified once published. */
+    private static final class Live {
+        final Segment segment;
+        final BitSet deleted;
+        final String deletesFile; // null while nothing is deleted
+
+        Live(Segment segment, BitSet deleted, String deletesFile) {
+            this.segment = segment;
+            this.deleted = deleted;
+            this.deletesFile = deletesFile;
+        }
+
+        int liveDocs() {
+            return segment.docCount - deleted.cardinality();
+        }
+    }
+
+    /**
+     * Open (or create) the index in a directory. An unreadable index is logged
+     * and replaced by an empty one, since the index can always be rebuilt from
+     * the documents it was made of.
+     */
+    public DiskTextIndex(Path dir) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+            load();
+        } catch (IOException | RuntimeException ex) {
+            System.err.println("[DiskTextIndex] Could not open index in " + dir + ", starting empty: " + ex.getMessage());
+            live = Collections.emptyList();
+        }
+        deleteUnreferenced();
+    }
+
+    // --- Analysis ---------------------------------------------------
+
+    /** The indexed terms of a text, in order (stop words dropped, words stemmed). */
+    public static List<String> terms(String text) {
+        List<String> words = TextIndex.words(text);
+        List<String> out = new ArrayList<>(words.size());
+        for (String w : words) {
+            if (!STOP_WORDS.contains(w))
+                out.add(PorterStemmer.stem(w));
+        }
+        return out;
+    }
+
+    // --- Writes -----------------------------------------------------
+
+    /**
+     * Add or replace the document filed under {@code key}; {@code fields[i]}
+     * is the text of field i (null for none). Visible after the next
+     * {@link #commit}.
+     */
+    public synchronized void put(String key, String owner, String... fields) {
+        if (fields.length > MAX_FIELDS)
+            throw new IllegalArgumentException("At most " + MAX_FIELDS + " fields");
+        Map<String, Integer> masks = new HashMap<>();
+        for (int f = 0; f < fields.length; f++) {
+            int bit = 1 << f;
+            for (String t : terms(fields[f]))
+                masks.merge(t, bit, (a, b) -> a | b);
+        }
+        removed.remove(key);
+        added.put(key, new PendingDoc(owner == null ? "" : owner, masks));
+    }
+
+    /** Remove the document filed under {@code key}, if any, at the next {@link #commit}. */
+    public synchronized void remove(String key) {
+        added.remove(key);
+        removed.add(key);
+    }
+
+    /**
+     * Remove every document at the next {@link #commit}; documents put after
+     * this call are kept.
+     */
+    public synchronized void clear() {
+        added.clear();
+        removed.clear();
+        cleared = true;
+    }
+
+    /**
+     * Write the changes buffered since the last commit and make them visible
+     * to searches. Does nothing when there are none.
+     */
+    public synchronized void commit() throws IOException {
+        if (added.isEmpty() && removed.isEmpty() && !cleared)
+            return;
+        List<Live> current = cleared ? Collections.emptyList() : live;
+        List<Live> next = new ArrayList<>(current.size() + 1);
+        Set<String> replaced = new LinkedHashSet<>(removed);
+        replaced.addAll(added.keySet());
+        for (Live l : current) {
+            BitSet deleted = null;
+            for (String key : replaced) {
+                int doc = l.segment.findKey(key);
+                if (doc >= 0 && !l.deleted.get(doc)) {
+                    if (deleted == null)
+                        deleted = (BitSet) l.deleted.clone();
+                    deleted.set(doc);
+                }
+            }
+            if (deleted == null)
+                next.add(l);
+            else if (deleted.cardinality() < l.segment.docCount)
+                next.add(new Live(l.segment, deleted, writeDeletes(l.segment.name, deleted)));
+            // else every document of the segment is gone: drop it
+        }
+        if (!added.isEmpty())
+            next.add(new Live(flush(), new BitSet(), null));
+        publish(next);
+        added.clear();
+        removed.clear();
+        cleared = false;
+        maybeMerge();
+    }
+
+    // the buffered documents as a new segment
+    private Segment flush() throws IOException {
+        List<String> keys = new ArrayList<>(added.keySet());
+        Collections.sort(keys);
+        List<String> owners = new ArrayList<>(keys.size());
+        TreeMap<String, List<int[]>> postings = new TreeMap<>();
+        for (int doc = 0; doc < keys.size(); doc++) {
+            PendingDoc d = added.get(keys.get(doc));
+            owners.add(d.owner);
+            for (Map.Entry<String, Integer> e : d.masks.entrySet())
+                postings.computeIfAbsent(e.getKey(), t -> new ArrayList<>()).add(new int[] { doc, e.getValue() });
+        }
+        String name = "s" + nextSegment++;
+        try (SegmentWriter w = new SegmentWriter(dir.resolve(name + SEGMENT_SUFFIX), keys, owners)) {
+            for (Map.Entry<String, List<int[]>> e : postings.entrySet()) {
+                List<int[]> list = e.getValue();
+                int[] docs = new int[list.size()];
+                byte[] masks = new byte[list.size()];
+                for (int i = 0; i < docs.length; i++) {
+                    docs[i] = list.get(i)[0];
+                    masks[i] = (byte) list.get(i)[1];
+                }
+                w.addTerm(e.getKey(), docs, masks, docs.length);
+            }
+            w.finish();
+        }
+        return Segment.open(dir.resolve(name + SEGMENT_SUFFIX), name);
+    }
+
+    private String writeDeletes(String segment, BitSet deleted) throws IOException {
+        String file = segment + "_" + nextDeletes++ + DELETES_SUFFIX;
+        Path tmp = dir.resolve(file + ".tmp");
+        byte[] bytes = deleted.toByteArray();
+        try (FileOutputStream out = new FileOutputStream(tmp.toFile())) {
+            out.write(bytes);
+            out.getFD().sync();
+        }
+        move(tmp, dir.resolve(file));
+        return file;
+    }
+
+    // write the manifest for a new segment list, then let searches see it
+    private void publish(List<Live> next) throws IOException {
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+                BufferedWriter out = new BufferedWriter(
+                        new java.io.OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+            out.write(MANIFEST_HEADER);
+            out.newLine();
+            out.write(nextSegment + " " + nextDeletes);
+            out.newLine();
+            for (Live l : next) {
+                out.write(l.segment.name + " " + (l.deletesFile == null ? "-" : l.deletesFile));
+                out.newLine();
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        move(tmp, dir.resolve(MANIFEST));
+        live = Collections.unmodifiableList(next);
+        deleteUnreferenced();
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // --- Merging ----------------------------------------------------
+
+    private void maybeMerge() throws IOException {
+        while (true) {
+            Map<Integer, List<Live>> tiers = new TreeMap<>();
+            for (Live l : live) {
+                int tier = (int) (Math.log(Math.max(1, l.liveDocs())) / Math.log(MERGE_FACTOR));
+                tiers.computeIfAbsent(tier, t -> new ArrayList<>()).add(l);
+            }
+            List<Live> group = null;
+            for (List<Live> t : tiers.values()) {
+                if (t.size() >= MERGE_FACTOR) {
+                    group = t;
+                    break;
+                }
+            }
+            if (group == null)
+                return;
+            Segment merged = merge(group);
+            List<Live> next = new ArrayList<>();
+            for (Live l : live) {
+                if (!group.contains(l))
+                    next.add(l);
+            }
+            next.add(new Live(merged, new BitSet(), null));
+            publish(next);
+        }
+    }
+
+    /** Reads the terms of one segment in order, for the merge. */
+    private static final class TermCursor {
+        final Live source;
+        final int[] remap;
+        int term = -1;
+        String current;
+
+        TermCursor(Live source, int[] remap) {
+            this.source = source;
+            this.remap = remap;
+        }
+
+        boolean next() {
+            term++;
+            if (term >= source.segment.termCount)
+                return false;
+            current = source.segment.termAt(term);
+            return true;
+        }
+    }
+
+    // the live documents of several segments as one new segment
+    private Segment merge(List<Live> group) throws IOException {
+        List<Object[]> docs = new ArrayList<>(); // key, owner, source index, old doc
+        for (int s = 0; s < group.size(); s++) {
+            Live l = group.get(s);
+            for (int d = 0; d < l.segment.docCount; d++) {
+                if (!l.deleted.get(d))
+                    docs.add(new Object[] { l.segment.keyAt(d), l.segment.ownerAt(d), s, d });
+            }
+        }
+        docs.sort((a, b) -> ((String) a[0]).compareTo((String) b[0]));
+        List<String> keys = new ArrayList<>(docs.size());
+        List<String> owners = new ArrayList<>(docs.size());
+        int[][] remap = new int[group.size()][];
+        for (int s = 0; s < group.size(); s++) {
+            remap[s] = new int[group.get(s).segment.docCount];
+            Arrays.fill(remap[s], -1);
+        }
+        for (int i = 0; i < docs.size(); i++) {
+            Object[] d = docs.get(i);
+            keys.add((String) d[0]);
+            owners.add((String) d[1]);
+            remap[(Integer) d[2]][(Integer) d[3]] = i;
+        }
+        PriorityQueue<TermCursor> queue = new PriorityQueue<>((a, b) -> a.current.compareTo(b.current));
+        for (int s = 0; s < group.size(); s++) {
+            TermCursor c = new TermCursor(group.get(s), remap[s]);
+            if (c.next())
+                queue.add(c);
+        }
+        String name = "s" + nextSegment++;
+        Path file = dir.resolve(name + SEGMENT_SUFFIX);
+        try (SegmentWriter w = new SegmentWriter(file, keys, owners)) {
+            long[] packed = new long[64];
+            while (!queue.isEmpty()) {
+                String term = queue.peek().current;
+                int n = 0;
+                while (!queue.isEmpty() && queue.peek().current.equals(term)) {
+                    TermCursor c = queue.poll();
+                    Postings p = c.source.segment.postingsAt(c.term);
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = c.remap[p.docs[i]];
+                        if (doc < 0)
+                            continue;
+                        if (n == packed.length)
+                            packed = Arrays.copyOf(packed, n * 2);
+                        packed[n++] = (long) doc << 8 | (p.masks[i] & 0xFF);
+                    }
+                    if (c.next())
+                        queue.add(c);
+                }
+                if (n == 0)
+                    continue;
+                Arrays.sort(packed, 0, n);
+                int[] docIds = new int[n];
+                byte[] masks = new byte[n];
+                for (int i = 0; i < n; i++) {
+                    docIds[i] = (int) (packed[i] >>> 8);
+                    masks[i] = (byte) packed[i];
+                }
+                w.addTerm(term, docIds, masks, n);
+            }
+            w.finish();
+        }
+        return Segment.open(file, name);
+    }
+
+    // --- Search -----------------------------------------------------
+
+    /**
+     * Documents containing every term of {@code query}, each in at least one
+     * of the fields in {@code fieldMask}; in no particular order. A query
+     * without indexable words finds nothing.
+     */
+    public List<Hit> search(String query, int fieldMask) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(terms(query)));
+        List<Hit> out = new ArrayList<>();
+        if (terms.isEmpty())
+            return out;
+        for (Live l : live) {
+            Postings[] lists = new Postings[terms.size()];
+            boolean missing = false;
+            for (int i = 0; i < lists.length && !missing; i++) {
+                lists[i] = l.segment.postings(terms.get(i));
+                missing = lists[i] == null;
+            }
+            if (missing)
+                continue;
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+            int[] docs = new int[lists[0].size];
+            int n = 0;
+            for (int i = 0; i < lists[0].size; i++) {
+                if ((lists[0].masks[i] & fieldMask) != 0)
+                    docs[n++] = lists[0].docs[i];
+            }
+            for (int i = 1; i < lists.length && n > 0; i++)
+                n = intersect(docs, n, lists[i], fieldMask);
+            for (int i = 0; i < n; i++) {
+                int doc = docs[i];
+                if (!l.deleted.get(doc))
+                    out.add(new Hit(l.segment.keyAt(doc), l.segment.ownerAt(doc)));
+            }
+        }
+        return out;
+    }
+
+    // keep the docs[0..n) also in p (with a field in the mask); both sorted
+    private static int intersect(int[] docs, int n, Postings p, int fieldMask) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < n; i++) {
+            int doc = docs[i];
+            // gallop: lists are usually far longer than the candidates
+            int step = 1;
+            while (j + step < p.size && p.docs[j + step] < doc) {
+                j += step;
+                step <<= 1;
+            }
+            while (j < p.size && p.docs[j] < doc)
+                j++;
+            if (j == p.size)
+                break;
+            if (p.docs[j] == doc && (p.masks[j] & fieldMask) != 0)
+                docs[kept++] = doc;
+        }
+        return kept;
+    }
+
+    /** Documents in the index, as of the last commit. */
+    public int size() {
+        int n = 0;
+        for (Live l : live)
+            n += l.liveDocs();
+        return n;
+    }
+
+    /** Segment files searched, as of the last commit. */
+    public int segmentCount() {
+        return live.size();
+    }
+
+    // --- Files ------------------------------------------------------
+
+    private void load() throws IOException {
+        Path manifest = dir.resolve(MANIFEST);
+        if (!Files.exists(manifest))
+            return;
+        List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_HEADER)) {
+            System.err.println("[DiskTextIndex] Index in " + dir + " has another format, rebuilding");
+            return;
+        }
+        String[] counters = lines.get(1).split(" ");
+        nextSegment = Integer.parseInt(counters[0]);
+        nextDeletes = Integer.parseInt(counters[1]);
+        List<Live> loaded = new ArrayList<>();
+        for (String line : lines.subList(2, lines.size())) {
+            if (line.isBlank())
+                continue;
+            String[] parts = line.split(" ");
+            Segment segment = Segment.open(dir.resolve(parts[0] + SEGMENT_SUFFIX), parts[0]);
+            BitSet deleted = new BitSet();
+            String deletesFile = null;
+            if (!parts[1].equals("-")) {
+                deletesFile = parts[1];
+                deleted = BitSet.valueOf(Files.readAllBytes(dir.resolve(deletesFile)));
+            }
+            loaded.add(new Live(segment, deleted, deletesFile));
+        }
+        live = Collections.unmodifiableList(loaded);
+    }
+
+    private void deleteUnreferenced() {
+        Set<String> keep = new HashSet<>();
+        keep.add(MANIFEST);
+        for (Live l : live) {
+            keep.add(l.segment.name + SEGMENT_SUFFIX);
+            if (l.deletesFile != null)
+                keep.add(l.deletesFile);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) {
+                if (!keep.contains(f.getFileName().toString())) {
+                    try {
+                        Files.deleteIfExists(f);
+                    } catch (IOException ex) {
+                        // still mapped (Windows): retried on the next open
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("[DiskTextIndex] Could not clean up " + dir + ": " + ex.getMessage());
+        }
+    }
+
+    /** Postings of one term: sorted document numbers and the fields the term is in. */
+    private static final class Postings {
+        final int[] docs;
+        final byte[] masks;
+        final int size;
+
+        Postings(int[] docs, byte[] masks, int size) {
+            this.docs = docs;
+            this.masks = masks;
+            this.size = size;
+        }
+    }
+
+    /**
+     * One immutable segment file:
+     * <pre>
+     * doc entries   key and owner (u16 length + UTF-8 each), in key order
+     * postings      per term: (doc delta varint, field mask byte) per document
+     * term entries  term (u16 length + UTF-8), posting count, postings offset
+     * doc table     int offset of each doc entry
+     * term table    int offset of each term entry, terms in order
+     * trailer       magic, format, doc count, term count, doc table offset, term table offset
+     * </pre>
+     * All reads are absolute gets on the mapped buffer, so segments are shared
+     * by concurrent searches without locking.
+     */
+    private static final class Segment {
+        final String name;
+        final MappedByteBuffer buf;
+        final int docCount;
+        final int termCount;
+        final int docTable;
+        final int termTable;
+
+        private Segment(String name, MappedByteBuffer buf) {
+            this.name = name;
+            this.buf = buf;
+            int t = buf.capacity() - TRAILER_BYTES;
+            if (t < 0 || buf.getInt(t) != MAGIC || buf.getInt(t + 4) != FORMAT)
+                throw new IllegalStateException("Not an index segment: " + name);
+            this.docCount = buf.getInt(t + 8);
+            this.termCount = buf.getInt(t + 12);
+            this.docTable = buf.getInt(t + 16);
+            this.termTable = buf.getInt(t + 20);
+        }
+
+        static Segment open(Path file, String name) throws IOException {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                // the mapping stays valid after the channel is closed
+                return new Segment(name, ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+            }
+        }
+
+        private String stringAt(int pos) {
+            int len = buf.getShort(pos) & 0xFFFF;
+            byte[] bytes = new byte[len];
+            for (int i = 0; i < len; i++)
+                bytes[i] = buf.get(pos + 2 + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int skipString(int pos) {
+            return pos + 2 + (buf.getShort(pos) & 0xFFFF);
+        }
+
+        String keyAt(int doc) {
+            return stringAt(buf.getInt(docTable + 4 * doc));
+        }
+
+        String ownerAt(int doc) {
+            return stringAt(skipString(buf.getInt(docTable + 4 * doc)));
+        }
+
+        String termAt(int term) {
+            return stringAt(buf.getInt(termTable + 4 * term));
+        }
+
+        /** Document number of a key, or -1. */
+        int findKey(String key) {
+            int lo = 0;
+            int hi = docCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = keyAt(mid).compareTo(key);
+                if (c < 0)
+                    lo = mid + 1;
+                else if (c > 0)
+                    hi = mid - 1;
+                else
+                    return mid;
+            }
+            return -1;
+        }
+
+        /** Postings of a term, or null when no document has it. */
+        Postings postings(String term) {
+            int lo = 0;
+            int hi = termCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int c = termAt(mid).compareTo(term);
+                if (c < 0)
+                    lo = mid + 1;
+                else if (c > 0)
+                    hi = mid - 1;
+                else
+                    return postingsAt(mid);
+            }
+            return null;
+        }
+
+        Postings postingsAt(int term) {
+            int entry = skipString(buf.getInt(termTable + 4 * term));
+            int count = buf.getInt(entry);
+            int pos = buf.getInt(entry + 4);
+            int[] docs = new int[count];
+            byte[] masks = new byte[count];
+            int doc = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = buf.get(pos++);
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                doc += delta;
+                docs[i] = doc;
+                masks[i] = buf.get(pos++);
+            }
+            return new Postings(docs, masks, count);
+        }
+    }
+
+    /**
+     * Writes a segment file to a temporary name; {@link #finish} moves it into
+     * place, so a segment abandoned half-way is never mistaken for one.
+     */
+    private static final class SegmentWriter implements AutoCloseable {
+        private final Path file;
+        private final Path tmp;
+        private final FileOutputStream fos;
+        private final DataOutputStream out;
+        private final int[] docOffsets;
+        private final List<String> terms = new ArrayList<>();
+        private final List<int[]> termInfo = new ArrayList<>(); // count, postings offset
+
+        SegmentWriter(Path file, List<String> keys, List<String> owners) throws IOException {
+            this.file = file;
+            this.tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            this.fos = new FileOutputStream(tmp.toFile());
+            this.out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16));
+            this.docOffsets = new int[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                docOffsets[i] = out.size();
+                writeString(keys.get(i));
+                writeString(owners.get(i));
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF)
+                throw new IllegalArgumentException("Too long to index: " + s.substring(0, 40) + "...");
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+
+        /** Add the postings of the next term; terms must come in order. */
+        void addTerm(String term, int[] docs, byte[] masks, int n) throws IOException {
+            terms.add(term);
+            termInfo.add(new int[] { n, out.size() });
+            int prev = 0;
+            for (int i = 0; i < n; i++) {
+                int delta = docs[i] - prev;
+                prev = docs[i];
+                while ((delta & ~0x7F) != 0) {
+                    out.writeByte((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                out.writeByte(delta);
+                out.writeByte(masks[i]);
+            }
+        }
+
+        /** Write the tables and trailer and move the file into place. */
+        void finish() throws IOException {
+            try {
+                int[] termOffsets = new int[terms.size()];
+                for (int i = 0; i < termOffsets.length; i++) {
+                    termOffsets[i] = out.size();
+                    writeString(terms.get(i));
+                    out.writeInt(termInfo.get(i)[0]);
+                    out.writeInt(termInfo.get(i)[1]);
+                }
+                int docTable = out.size();
+                for (int o : docOffsets)
+                    out.writeInt(o);
+                int termTable = out.size();
+                for (int o : termOffsets)
+                    out.writeInt(o);
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeInt(docOffsets.length);
+                out.writeInt(termOffsets.length);
+                out.writeInt(docTable);
+                out.writeInt(termTable);
+                if (out.size() == Integer.MAX_VALUE)
+                    throw new IOException("Segment larger than 2 GB: " + file);
+                out.flush();
+                fos.getFD().sync();
+            } finally {
+                out.close();
+            }
+            move(tmp, file);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+public class DiskTextIndexTest {
+    private static final String[] WORDS = {
+            "fever", "fevers", "cough", "coughing", "headache", "rash", "asthma", "inhaler", "amoxicillin",
+            "paracetamol", "follow", "up", "the", "chest", "pain", "and", "rest"
+    };
+    private static final int FIELDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("hpms-text-index-test");
+        int failures = 0;
+        try {
+            DiskTextIndex index = new DiskTextIndex(dir);
+            index.put("r1", "p1", "Fevers and a dry cough", "Amoxicillin", null);
+            index.put("r2", "p2", "Headache", null, "follow up on the fever");
+            System.out.println("Before commit, fever: " + keys(index.search("fever", DiskTextIndex.ALL_FIELDS)));
+            index.commit();
+            System.out.println("After commit, fever: " + keys(index.search("fever", DiskTextIndex.ALL_FIELDS))
+                    + ", in field 0 only: " + keys(index.search("fever", 1)));
+            index.remove("r1");
+            index.commit();
+            System.out.println("After remove, fever: " + keys(index.search("fever", DiskTextIndex.ALL_FIELDS)));
+
+            // random documents over a small vocabulary, committed often enough
+            // to merge segments, compared with a scan of the same documents
+            Random rnd = new Random(7);
+            Map<String, String[]> expected = new HashMap<>();
+            Map<String, String> owners = new HashMap<>();
+            index.clear();
+            index.commit();
+            for (int round = 0; round < 60; round++) {
+                for (int i = 0; i < 40; i++) {
+                    String key = "r" + rnd.nextInt(300);
+                    if (rnd.nextInt(5) == 0) {
+                        index.remove(key);
+                        expected.remove(key);
+                    } else {
+                        String[] fields = new String[FIELDS];
+                        for (int f = 0; f < FIELDS; f++)
+                            fields[f] = rnd.nextInt(4) == 0 ? null : randomText(rnd);
+                        String owner = "p" + rnd.nextInt(20);
+                        index.put(key, owner, fields);
+                        expected.put(key, fields);
+                        owners.put(key, owner);
+                    }
+                }
+                index.commit();
+                failures += compare(index, expected, owners, rnd);
+            }
+            System.out.println("Segments after 60 commits: " + index.segmentCount()
+                    + ", documents: " + index.size() + " (expected " + expected.size() + ")");
+            if (index.size() != expected.size()) failures++;
+
+            DiskTextIndex reopened = new DiskTextIndex(dir);
+            failures += compare(reopened, expected, owners, rnd);
+            System.out.println("Reopened documents: " + reopened.size());
+            if (reopened.size() != expected.size()) failures++;
+
+            reopened.clear();
+            reopened.put("r0", "p0", "rash", null, null);
+            reopened.commit();
+            System.out.println("After clear, documents: " + reopened.size() + ", rash: "
+                    + keys(reopened.search("rash", DiskTextIndex.ALL_FIELDS)));
+            if (reopened.size() != 1) failures++;
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+        System.out.println("DiskTextIndex matches scan: " + (failures == 0) + " (" + failures + " mismatches)");
+        if (failures > 0) System.exit(1);
+    }
+
+    private static String randomText(Random rnd) {
+        StringBuilder sb = new StringBuilder();
+        int n = 1 + rnd.nextInt(5);
+        for (int i = 0; i < n; i++)
+            sb.append(i == 0 ? "" : " ").append(WORDS[rnd.nextInt(WORDS.length)]);
+        return sb.toString();
+    }
+
+    // number of random queries whose hits differ from a scan of expected
+    private static int compare(DiskTextIndex index, Map<String, String[]> expected, Map<String, String> owners,
+            Random rnd) {
+        int mismatches = 0;
+        for (int q = 0; q < 20; q++) {
+            String query = rnd.nextInt(3) == 0 ? randomText(rnd) : WORDS[rnd.nextInt(WORDS.length)];
+            int mask = rnd.nextInt(2) == 0 ? DiskTextIndex.ALL_FIELDS : 1 + rnd.nextInt((1 << FIELDS) - 1);
+            TreeSet<String> want = new TreeSet<>();
+            List<String> terms = DiskTextIndex.terms(query);
+            for (Map.Entry<String, String[]> e : expected.entrySet()) {
+                if (!terms.isEmpty() && matches(e.getValue(), terms, mask))
+                    want.add(e.getKey() + "@" + owners.get(e.getKey()));
+            }
+            TreeSet<String> got = new TreeSet<>();
+            for (DiskTextIndex.Hit h : index.search(query, mask))
+                got.add(h.getKey() + "@" + h.getOwner());
+            if (!got.equals(want)) {
+                System.out.println("Mismatch for \"" + query + "\" (fields " + mask + "): " + got + " vs " + want);
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    // every term in some field of the mask
+    private static boolean matches(String[] fields, List<String> terms, int mask) {
+        for (String t : terms) {
+            boolean found = false;
+            for (int f = 0; f < fields.length && !found; f++)
+                found = (mask & (1 << f)) != 0 && DiskTextIndex.terms(fields[f]).contains(t);
+            if (!found)
+                return false;
+        }
+        return true;
+    }
+
+    private static List<String> keys(List<DiskTextIndex.Hit> hits) {
+        List<String> out = new ArrayList<>();
+        for (DiskTextIndex.Hit h : hits)
+            out.add(h.getKey());
+        out.sort(null);
+        return out;
+    }
+}
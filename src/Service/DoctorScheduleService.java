@@ -2,7 +2,6 @@ package Service;
 
 import Model.DoctorSchedule;
 import Repository.InMemoryRepository;
-import Repository.Repository;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
@@ -10,23 +9,23 @@ import java.time.LocalTime;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class DoctorScheduleService {
-    private final Repository<String, DoctorSchedule> repo;
+    private final InMemoryRepository<String, DoctorSchedule> repo;
 
     private static final class Holder { static final DoctorScheduleService INSTANCE = new DoctorScheduleService(); }
     public static DoctorScheduleService getInstance() { return Holder.INSTANCE; }
 
     public DoctorScheduleService() {
-        this.repo = new InMemoryRepository<>(DoctorSchedule::getScheduleId);
+        this.repo = new InMemoryRepository<String, DoctorSchedule>(DoctorSchedule.class, DoctorSchedule::getScheduleId)
+                .withIndex("doctorId", DoctorSchedule::getDoctorId);
     }
 
     public DoctorSchedule save(DoctorSchedule s) { return repo.save(s); }
     public Optional<DoctorSchedule> findById(String id) { return repo.findById(id); }
     public Collection<DoctorSchedule> listAll() { return repo.findAll(); }
     public List<DoctorSchedule> listByDoctorId(String doctorId) {
-        return repo.findAll().stream().filter(s -> s.getDoctorId()!=null && s.getDoctorId().equals(doctorId)).collect(Collectors.toList());
+        return repo.findBy("doctorId", doctorId);
     }
 
     /** Convenience: add a new availability slot for a doctor by id */
@@ -24,7 +24,7 @@ public class DoctorServiceImpl implements DoctorService {
     }
 
     public DoctorServiceImpl() {
-        this.repo = DoctorRepository.getInstance();
+        this.repo = DoctorRepository.cached();
     }
 
     @Override
@@ -58,9 +58,16 @@ public class DoctorServiceImpl implements DoctorService {
         return repo.findAll();
     }
 
+    /** Stream all doctors without materialising the table; close when stopping early. */
+    public java.util.stream.Stream<Doctor> streamAll() {
+        return repo.streamAll();
+    }
+
     public java.util.List<Doctor> listActive() {
-        return repo.findAll().stream().filter(d -> d.getStatus() != null && d.getStatus().name().equals("ACTIVE"))
-                .collect(Collectors.toList());
+        try (java.util.stream.Stream<Doctor> all = repo.streamAll()) {
+            return all.filter(d -> d.getStatus() != null && d.getStatus().name().equals("ACTIVE"))
+                    .collect(Collectors.toList());
+        }
     }
 
     public boolean deactivateByDoctorId(String doctorId) {
@@ -0,0 +1,279 @@
+package Service;
+
+import Model.Appointment;
+import Model.Billing;
+import Model.Patient;
+import Model.User;
+import Repository.ChangeBus;
+import Repository.ChangeEvent;
+import Repository.PatientRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resolves any identifier staff paste or type to the entity it names: patient
+ * numbers (PT-ID...), staff numbers (ST-ID...), and appointment and invoice
+ * UUIDs, exactly or by prefix.
+ *
+ * All identifiers live in one {@link IdTrie}, keyed by their letters and
+ * digits in upper case, so "pt-idab 1234" and "PT-IDAB1234" are the same key
+ * and a UUID can be given with or without dashes. Patients are loaded once on
+ * a background thread ("hpms-id-lookup") by paging through the table, staff
+ * numbers from the user accounts and appointments from
+ * {@link AppointmentService}; lookups made before the load completes wait for
+ * it, so call them off the EDT. Afterwards the trie follows the
+ * {@link ChangeBus}. Invoices are only kept in memory by each BillingService,
+ * so they are known from the events published once this service is running.
+ */
+public class IdLookupService {
+    /** What an identifier names. */
+    public enum Kind { PATIENT, STAFF, APPOINTMENT, BILLING }
+
+    /** An identifier and the entity it resolves to. */
+    public static final class Match {
+        private final Kind kind;
+        private final String primaryKey;
+        private final String id;
+
+        Match(Kind kind, String primaryKey, String id) {
+            this.kind = kind;
+            this.primaryKey = primaryKey;
+            this.id = id;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /** Id of the patient, user, appointment or invoice, as used by its service's findById. */
+        public String getPrimaryKey() {
+            return primaryKey;
+        }
+
+        /** The identifier as it was issued (e.g. "PT-IDAB1234"). */
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + id;
+        }
+    }
+
+    private static final int BUILD_PAGE_SIZE = 5000;
+
+    private final IdTrie<Match> trie = new IdTrie<>();
+    // trie key of every entity, to drop the old key when an identifier changes or is deleted
+    private final Map<List<Object>, String> keyByEntity = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CountDownLatch built = new CountDownLatch(1);
+
+    private static final class Holder {
+        static final IdLookupService INSTANCE = start(new IdLookupService());
+    }
+
+    public static IdLookupService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static IdLookupService start(IdLookupService service) {
+        // subscribe first: an entity saved during the load is then applied after it,
+        // and the load never replaces an entry (see build)
+        ChangeBus bus = ChangeBus.getInstance();
+        bus.subscribe(Patient.class, service::onPatientChanges);
+        bus.subscribe(User.class, service::onUserChanges);
+        bus.subscribe(Appointment.class, service::onAppointmentChanges);
+        bus.subscribe(Billing.class, service::onBillingChanges);
+        Thread t = new Thread(service::build, "hpms-id-lookup");
+        t.setDaemon(true);
+        t.start();
+        return service;
+    }
+
+    /** The entity an identifier names exactly. */
+    public Optional<Match> resolve(String id) {
+        String key = key(id);
+        if (key.isEmpty())
+            return Optional.empty();
+        awaitBuilt();
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(trie.get(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Entities whose identifier starts with {@code prefix}, in identifier order, at most {@code limit}. */
+    public List<Match> resolvePrefix(String prefix, int limit) {
+        String key = key(prefix);
+        if (key.isEmpty())
+            return new ArrayList<>();
+        awaitBuilt();
+        lock.readLock().lock();
+        try {
+            return trie.withPrefix(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Number of identifiers known. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trie.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** True once the initial load has finished. */
+    public boolean isReady() {
+        return built.getCount() == 0;
+    }
+
+    private void awaitBuilt() {
+        try {
+            built.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // letters and digits, upper case
+    static String key(String id) {
+        if (id == null)
+            return "";
+        StringBuilder sb = new StringBuilder(id.length());
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (Character.isLetterOrDigit(c))
+                sb.append(c);
+        }
+        return sb.toString().toUpperCase(Locale.ROOT);
+    }
+
+    // --- Initial load -----------------------------------------------
+    private void build() {
+        long started = System.currentTimeMillis();
+        try {
+            for (User u : UserService.getInstance().getAllUsers())
+                put(Kind.STAFF, u.getId(), u.getStaffNumber(), false);
+            for (Appointment a : AppointmentService.getInstance().listAll())
+                put(Kind.APPOINTMENT, a.getId(), a.getId(), false);
+            PatientRepository repo = PatientRepository.getInstance();
+            String afterId = null;
+            while (true) {
+                List<String[]> page = repo.findSearchFieldsPage(afterId, BUILD_PAGE_SIZE);
+                for (String[] f : page)
+                    put(Kind.PATIENT, f[0], f[1], false);
+                if (page.size() < BUILD_PAGE_SIZE)
+                    break;
+                afterId = page.get(page.size() - 1)[0];
+            }
+        } catch (SQLException | RuntimeException ex) {
+            System.err.println("[IdLookupService] Error loading identifiers: " + ex.getMessage());
+        } finally {
+            built.countDown();
+        }
+        System.out.println("[IdLookupService] Loaded " + size() + " identifiers in "
+                + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    // --- Updates ----------------------------------------------------
+
+    /**
+     * File an entity under its identifier (null or blank: under none). The
+     * load passes replace=false, so it never overwrites what a change event
+     * has already filed.
+     */
+    private void put(Kind kind, String primaryKey, String id, boolean replace) {
+        if (primaryKey == null)
+            return;
+        List<Object> entity = List.of(kind, primaryKey);
+        String key = key(id);
+        lock.writeLock().lock();
+        try {
+            if (!replace && keyByEntity.containsKey(entity))
+                return;
+            String old = keyByEntity.get(entity);
+            if (old != null && !old.equals(key))
+                removeKey(old, kind, primaryKey);
+            if (key.isEmpty()) {
+                keyByEntity.remove(entity);
+                return;
+            }
+            trie.put(key, new Match(kind, primaryKey, id.trim()));
+            keyByEntity.put(entity, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Kind kind, String primaryKey) {
+        lock.writeLock().lock();
+        try {
+            // a tombstone, so that a load still in progress does not bring the entity back
+            String old = keyByEntity.put(List.of(kind, primaryKey), "");
+            if (old != null && !old.isEmpty())
+                removeKey(old, kind, primaryKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // drop a trie key only if it still names this entity
+    private void removeKey(String key, Kind kind, String primaryKey) {
+        Match m = trie.get(key);
+        if (m != null && m.kind == kind && m.primaryKey.equals(primaryKey))
+            trie.remove(key);
+    }
+
+    private void onPatientChanges(List<ChangeEvent<Patient>> events) {
+        for (ChangeEvent<Patient> e : events) {
+            if (e.isDelete() || e.getEntity() == null)
+                remove(Kind.PATIENT, String.valueOf(e.getId()));
+            else
+                put(Kind.PATIENT, e.getEntity().getId(), e.getEntity().getPatientNumber(), true);
+        }
+    }
+
+    private void onUserChanges(List<ChangeEvent<User>> events) {
+        for (ChangeEvent<User> e : events) {
+            if (e.isDelete() || e.getEntity() == null)
+                remove(Kind.STAFF, String.valueOf(e.getId()));
+            else
+                put(Kind.STAFF, e.getEntity().getId(), e.getEntity().getStaffNumber(), true);
+        }
+    }
+
+    private void onAppointmentChanges(List<ChangeEvent<Appointment>> events) {
+        for (ChangeEvent<Appointment> e : events) {
+            String id = String.valueOf(e.getId());
+            if (e.isDelete())
+                remove(Kind.APPOINTMENT, id);
+            else
+                put(Kind.APPOINTMENT, id, id, true);
+        }
+    }
+
+    private void onBillingChanges(List<ChangeEvent<Billing>> events) {
+        for (ChangeEvent<Billing> e : events) {
+            String id = String.valueOf(e.getId());
+            if (e.isDelete())
+                remove(Kind.BILLING, id);
+            else
+                put(Kind.BILLING, id, id, true);
+        }
+    }
+}
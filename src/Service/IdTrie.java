@@ -0,0 +1,214 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed prefix trie (radix tree) from string keys to values.
+ *
+ * Each edge carries a run of characters rather than a single one, so a node
+ * exists only where keys branch or end and a lookup costs one comparison per
+ * character of the key plus a binary search per branch. Children are kept in
+ * arrays sorted by their first character, which also makes {@link #withPrefix}
+ * return values in key order.
+ *
+ * Not thread-safe; {@link IdLookupService} guards it with a read-write lock.
+ */
+public final class IdTrie<V> {
+    private static final char[] EMPTY = new char[0];
+
+    private static final class Node<V> {
+        char[] label;
+        @SuppressWarnings("unchecked")
+        Node<V>[] children = (Node<V>[]) new Node<?>[0];
+        int childCount;
+        V value;
+
+        Node(char[] label, V value) {
+            this.label = label;
+            this.value = value;
+        }
+
+        // index of the child whose label starts with c, or -(insertion point) - 1
+        int find(char c) {
+            int lo = 0;
+            int hi = childCount - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char m = children[mid].label[0];
+                if (m < c)
+                    lo = mid + 1;
+                else if (m > c)
+                    hi = mid - 1;
+                else
+                    return mid;
+            }
+            return -(lo + 1);
+        }
+
+        void insert(int at, Node<V> child) {
+            if (childCount == children.length)
+                children = Arrays.copyOf(children, Math.max(2, childCount * 2));
+            System.arraycopy(children, at, children, at + 1, childCount - at);
+            children[at] = child;
+            childCount++;
+        }
+
+        void removeAt(int at) {
+            System.arraycopy(children, at + 1, children, at, childCount - at - 1);
+            children[--childCount] = null;
+        }
+    }
+
+    private final Node<V> root = new Node<>(EMPTY, null);
+    private int size;
+
+    /** Number of keys. */
+    public int size() {
+        return size;
+    }
+
+    /** The value of a key, or null. */
+    public V get(String key) {
+        Node<V> n = root;
+        int i = 0;
+        while (i < key.length()) {
+            int c = n.find(key.charAt(i));
+            if (c < 0)
+                return null;
+            n = n.children[c];
+            char[] label = n.label;
+            if (key.length() - i < label.length)
+                return null;
+            for (int k = 0; k < label.length; k++) {
+                if (label[k] != key.charAt(i + k))
+                    return null;
+            }
+            i += label.length;
+        }
+        return n.value;
+    }
+
+    /** Set the value of a key; returns the previous one, or null. */
+    public V put(String key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("null value");
+        Node<V> n = root;
+        int i = 0;
+        while (true) {
+            if (i == key.length()) {
+                V old = n.value;
+                n.value = value;
+                if (old == null)
+                    size++;
+                return old;
+            }
+            int c = n.find(key.charAt(i));
+            if (c < 0) {
+                n.insert(-c - 1, new Node<>(key.substring(i).toCharArray(), value));
+                size++;
+                return null;
+            }
+            Node<V> child = n.children[c];
+            char[] label = child.label;
+            int common = 1;
+            while (common < label.length && i + common < key.length() && label[common] == key.charAt(i + common))
+                common++;
+            if (common < label.length) {
+                // the key leaves this edge part-way: split it
+                Node<V> split = new Node<>(Arrays.copyOf(label, common), null);
+                child.label = Arrays.copyOfRange(label, common, label.length);
+                split.insert(0, child);
+                n.children[c] = split;
+                child = split;
+            }
+            n = child;
+            i += common;
+        }
+    }
+
+    /** Remove a key; returns its value, or null when absent. */
+    public V remove(String key) {
+        Node<V> parent = null;
+        int at = -1;
+        Node<V> n = root;
+        int i = 0;
+        while (i < key.length()) {
+            int c = n.find(key.charAt(i));
+            if (c < 0)
+                return null;
+            Node<V> child = n.children[c];
+            char[] label = child.label;
+            if (key.length() - i < label.length)
+                return null;
+            for (int k = 0; k < label.length; k++) {
+                if (label[k] != key.charAt(i + k))
+                    return null;
+            }
+            parent = n;
+            at = c;
+            n = child;
+            i += label.length;
+        }
+        V old = n.value;
+        if (old == null)
+            return null;
+        n.value = null;
+        size--;
+        if (parent == null)
+            return old;
+        if (n.childCount == 0) {
+            parent.removeAt(at);
+            // the parent may now be a pass-through node
+            if (parent != root && parent.value == null && parent.childCount == 1)
+                absorbChild(parent);
+        } else if (n.childCount == 1) {
+            absorbChild(n);
+        }
+        return old;
+    }
+
+    // merge a value-less node with its only child (keeps the node, takes the child's place)
+    private static <V> void absorbChild(Node<V> n) {
+        Node<V> child = n.children[0];
+        char[] label = Arrays.copyOf(n.label, n.label.length + child.label.length);
+        System.arraycopy(child.label, 0, label, n.label.length, child.label.length);
+        n.label = label;
+        n.value = child.value;
+        n.children = child.children;
+        n.childCount = child.childCount;
+    }
+
+    /** Values of keys starting with {@code prefix} in key order, at most {@code limit}. */
+    public List<V> withPrefix(String prefix, int limit) {
+        List<V> out = new ArrayList<>();
+        if (limit <= 0)
+            return out;
+        Node<V> n = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int c = n.find(prefix.charAt(i));
+            if (c < 0)
+                return out;
+            n = n.children[c];
+            char[] label = n.label;
+            int k = 0;
+            while (k < label.length && i + k < prefix.length()) {
+                if (label[k] != prefix.charAt(i + k))
+                    return out;
+                k++;
+            }
+            i += k;
+        }
+        collect(n, limit, out);
+        return out;
+    }
+
+    private static <V> void collect(Node<V> n, int limit, List<V> out) {
+        if (n.value != null)
+            out.add(n.value);
+        for (int c = 0; c < n.childCount && out.size() < limit; c++)
+            collect(n.children[c], limit, out);
+    }
+}
@@ -0,0 +1,73 @@
+package Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class IdTrieTest {
+    public static void main(String[] args) {
+        // splitting an edge and merging it back
+        IdTrie<String> trie = new IdTrie<>();
+        trie.put("PT123", "a");
+        trie.put("PT124", "b");
+        trie.put("PT1", "c");
+        System.out.println("After split, prefix PT12: " + trie.withPrefix("PT12", 10));
+        trie.remove("PT1");
+        trie.remove("PT124");
+        System.out.println("After merge, get PT123: " + trie.get("PT123") + ", get PT12: " + trie.get("PT12")
+                + ", size: " + trie.size());
+
+        // random operations on short keys over a small alphabet, so keys share
+        // prefixes and nodes are split and merged often
+        Random rnd = new Random(42);
+        IdTrie<Integer> actual = new IdTrie<>();
+        TreeMap<String, Integer> expected = new TreeMap<>();
+        int mismatches = 0;
+        for (int i = 0; i < 200_000; i++) {
+            String key = randomKey(rnd);
+            switch (rnd.nextInt(4)) {
+                case 0:
+                case 1:
+                    if (!Objects.equals(actual.put(key, i), expected.put(key, i)))
+                        mismatches++;
+                    break;
+                case 2:
+                    if (!Objects.equals(actual.remove(key), expected.remove(key)))
+                        mismatches++;
+                    break;
+                default:
+                    int limit = 1 + rnd.nextInt(20);
+                    if (!actual.withPrefix(key, limit).equals(prefixed(expected, key, limit)))
+                        mismatches++;
+            }
+            if (!Objects.equals(actual.get(key), expected.get(key)) || actual.size() != expected.size())
+                mismatches++;
+        }
+        System.out.println("IdTrie matches TreeMap: " + (mismatches == 0) + " (" + mismatches + " mismatches, "
+                + expected.size() + " keys)");
+        if (mismatches > 0) System.exit(1);
+    }
+
+    private static String randomKey(Random rnd) {
+        String alphabet = "AB01";
+        StringBuilder sb = new StringBuilder();
+        int length = 1 + rnd.nextInt(6);
+        for (int i = 0; i < length; i++)
+            sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+        return sb.toString();
+    }
+
+    // first limit values of keys starting with prefix, in key order
+    private static List<Integer> prefixed(TreeMap<String, Integer> map, String prefix, int limit) {
+        List<Integer> out = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : map.tailMap(prefix, true).entrySet()) {
+            if (!e.getKey().startsWith(prefix) || out.size() == limit)
+                break;
+            out.add(e.getValue());
+        }
+        return out;
+    }
+}
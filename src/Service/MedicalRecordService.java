@@ -0,0 +1,236 @@
+package Service;
+
+import Model.MedicalRecord;
+import Repository.ChangeBus;
+import Repository.ChangeEvent;
+import Repository.MedicalRecordRepository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Medical record storage and full-text search over the narrative fields of
+ * records (diagnosis, symptoms, treatment, prescription summary and notes).
+ *
+ * Records are stored in the medical_records table through
+ * {@link MedicalRecordRepository}. Saves and deletes are published on the
+ * {@link ChangeBus}; the service keeps a {@link DiskTextIndex} in step with
+ * those events and commits it after every batch, so a record becomes
+ * searchable shortly after it is saved. The index is kept under
+ * {@code data/index/medical-records} (the directory can be moved with
+ * -Dhpms.index.dir); it files every record under its patient, so "all
+ * patients with X in notes" is answered from the index alone.
+ *
+ * The index is only an aid: on start a background thread ("hpms-record-index")
+ * reuses it only if the table is unchanged since the index was last rebuilt
+ * (same row count and latest update, see
+ * {@link MedicalRecordRepository#findVersion}) and nothing was applied to it
+ * since; otherwise it rebuilds it from the table. Searches made before that
+ * finishes wait for it, so call them off the EDT.
+ */
+public class MedicalRecordService {
+    /** Narrative fields of a record that can be searched. */
+    public enum Field {
+        DIAGNOSIS, SYMPTOMS, TREATMENT, PRESCRIPTION, NOTES;
+
+        int mask() {
+            return 1 << ordinal();
+        }
+    }
+
+    private static final String INDEX_DIR_PROPERTY = "hpms.index.dir";
+    private static final String DEFAULT_INDEX_DIR = "data/index";
+    private static final int REBUILD_PAGE_SIZE = 5000;
+
+    private final MedicalRecordRepository repo;
+    private final DiskTextIndex index;
+    // table version the index was rebuilt from; removed as soon as anything else is applied
+    private final Path versionFile;
+    private final CountDownLatch reconciled = new CountDownLatch(1);
+    // events that arrive while the index is being reconciled; guarded by this
+    private final List<ChangeEvent<MedicalRecord>> pending = new ArrayList<>();
+    private boolean ready;
+
+    private static final class Holder {
+        static final MedicalRecordService INSTANCE = start(new MedicalRecordService(
+                Paths.get(System.getProperty(INDEX_DIR_PROPERTY, DEFAULT_INDEX_DIR), "medical-records")));
+    }
+
+    public static MedicalRecordService getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static MedicalRecordService start(MedicalRecordService service) {
+        // subscribe first: events during the reconcile are held and applied after it
+        ChangeBus.getInstance().subscribe(MedicalRecord.class, service::onRecordChanges);
+        Thread t = new Thread(service::reconcile, "hpms-record-index");
+        t.setDaemon(true);
+        t.start();
+        return service;
+    }
+
+    public MedicalRecordService(Path indexDir) {
+        this.repo = MedicalRecordRepository.getInstance();
+        this.index = new DiskTextIndex(indexDir);
+        this.versionFile = indexDir.resolveSibling(indexDir.getFileName() + ".version");
+    }
+
+    public MedicalRecord save(MedicalRecord record) {
+        return repo.save(record);
+    }
+
+    public boolean delete(String recordId) {
+        return repo.delete(recordId);
+    }
+
+    public Optional<MedicalRecord> findById(String recordId) {
+        return repo.findById(recordId);
+    }
+
+    public List<MedicalRecord> listByPatientId(String patientId) {
+        return repo.findByPatientId(patientId);
+    }
+
+    public List<MedicalRecord> listByDoctorId(String doctorId) {
+        return repo.findByDoctorId(doctorId);
+    }
+
+    /**
+     * Ids of patients with a record containing every word of {@code text}
+     * (matched by stem, so "fractured" finds "fracture") in one of the given
+     * fields; no fields means any of them.
+     */
+    public List<String> findPatientIdsWith(String text, Field... fields) {
+        awaitReconciled();
+        Set<String> out = new LinkedHashSet<>();
+        for (DiskTextIndex.Hit h : index.search(text, mask(fields)))
+            out.add(h.getOwner());
+        return new ArrayList<>(out);
+    }
+
+    /** Ids of records containing every word of {@code text} in one of the given fields (none: any). */
+    public List<String> findRecordIdsWith(String text, Field... fields) {
+        awaitReconciled();
+        List<String> out = new ArrayList<>();
+        for (DiskTextIndex.Hit h : index.search(text, mask(fields)))
+            out.add(h.getKey());
+        return out;
+    }
+
+    private void awaitReconciled() {
+        try {
+            reconciled.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int mask(Field... fields) {
+        if (fields == null || fields.length == 0)
+            return DiskTextIndex.ALL_FIELDS;
+        int mask = 0;
+        for (Field f : fields)
+            mask |= f.mask();
+        return mask;
+    }
+
+    // --- Index maintenance ------------------------------------------
+
+    // bring the index in line with the table, then apply the events held meanwhile
+    private void reconcile() {
+        long started = System.currentTimeMillis();
+        try {
+            String version = repo.findVersion();
+            if (version != null && version.equals(readVersion())
+                    && version.startsWith(index.size() + "/")) {
+                System.out.println("[MedicalRecordService] Record index is current (" + index.size() + " records)");
+            } else {
+                rebuild(version);
+                System.out.println("[MedicalRecordService] Rebuilt record index (" + index.size() + " records) in "
+                        + (System.currentTimeMillis() - started) + " ms");
+            }
+        } catch (IOException | SQLException | RuntimeException ex) {
+            // searches then see whatever the index holds; the next start tries again
+            System.err.println("[MedicalRecordService] Error rebuilding record index: " + ex.getMessage());
+        }
+        while (true) {
+            List<ChangeEvent<MedicalRecord>> held;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    ready = true;
+                    break;
+                }
+                held = new ArrayList<>(pending);
+                pending.clear();
+            }
+            apply(held);
+        }
+        reconciled.countDown();
+    }
+
+    private void rebuild(String version) throws IOException, SQLException {
+        Files.deleteIfExists(versionFile);
+        index.clear();
+        String afterId = null;
+        while (true) {
+            List<String[]> page = repo.findIndexFieldsPage(afterId, REBUILD_PAGE_SIZE);
+            for (String[] f : page)
+                index.put(f[0], f[1], f[2], f[3], f[4], f[5], f[6]);
+            index.commit();
+            if (page.size() < REBUILD_PAGE_SIZE)
+                break;
+            afterId = page.get(page.size() - 1)[0];
+        }
+        if (version != null)
+            Files.write(versionFile, version.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String readVersion() {
+        try {
+            return Files.exists(versionFile) ? new String(Files.readAllBytes(versionFile), StandardCharsets.UTF_8)
+                    : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void onRecordChanges(List<ChangeEvent<MedicalRecord>> events) {
+        synchronized (this) {
+            if (!ready) {
+                pending.addAll(events);
+                return;
+            }
+        }
+        apply(events);
+    }
+
+    private void apply(List<ChangeEvent<MedicalRecord>> events) {
+        for (ChangeEvent<MedicalRecord> e : events) {
+            MedicalRecord r = e.getEntity();
+            if (e.isDelete() || r == null) {
+                index.remove(String.valueOf(e.getId()));
+            } else {
+                index.put(r.getRecordId(), r.getPatientId(), r.getDiagnosis(), r.getSymptoms(), r.getTreatment(),
+                        r.getPrescriptionSummary(), r.getNotes());
+            }
+        }
+        try {
+            // the index no longer matches a table version by itself: rebuild it on the next start
+            Files.deleteIfExists(versionFile);
+            index.commit();
+        } catch (IOException ex) {
+            // the changes stay buffered and go out with the next commit
+            System.err.println("[MedicalRecordService] Error updating record index: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package Service;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Spelling- and sound-tolerant comparison of single name words, for finding
+ * patients whose names were typed differently ("Makario" for "Macario",
+ * "Gimenez" for "Jimenez", "Josepina" for "Josefina").
+ *
+ * Words are expected already lower-cased and accent-free (see
+ * TextIndex#words). {@link #phoneticKey} reduces a word to a consonant skeleton
+ * with Spanish and Filipino spelling variants folded together;
+ * {@link #similarity} blends trigram overlap, a bounded edit distance and
+ * agreement of phonetic keys into a score between 0 and 1.
+ */
+public final class NameMatcher {
+    /** Words scoring at least this much are treated as the same name. */
+    public static final double THRESHOLD = 0.7;
+
+    private NameMatcher() {
+    }
+
+    /** Most edits tolerated between words of this length. */
+    public static int maxEdits(int length) {
+        return length <= 3 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Phonetic key of a word: its consonants after folding letters that sound
+     * alike in Spanish and Filipino names (c/k/q, s/z, b/v, f/p, j/g before e
+     * or i as h, ch/sh/ts, ny/n), dropping silent h and doubled letters; a
+     * leading vowel is kept as "a". "ll" stays "l": a dropped l is a likelier
+     * typo than a Filipinized "y" spelling.
+     */
+    public static String phoneticKey(String word) {
+        StringBuilder out = new StringBuilder(word.length());
+        int n = word.length();
+        for (int i = 0; i < n; i++) {
+            char c = word.charAt(i);
+            char next = i + 1 < n ? word.charAt(i + 1) : 0;
+            boolean soft = next == 'e' || next == 'i' || next == 'y';
+            char code;
+            switch (c) {
+                case 'a': case 'e': case 'i': case 'o': case 'u':
+                    code = out.length() == 0 ? 'a' : 0;
+                    break;
+                case 'y':
+                    // a vowel unless a vowel follows ("Marilyn", "Yolanda")
+                    code = isVowel(next) ? 'y' : (out.length() == 0 ? 'a' : 0);
+                    break;
+                case 'c':
+                    if (next == 'h') {
+                        code = 's';
+                        i++;
+                    } else {
+                        code = soft ? 's' : 'k';
+                    }
+                    break;
+                case 'q':
+                    code = 'k';
+                    if (next == 'u')
+                        i++;
+                    break;
+                case 'g':
+                    if (next == 'u' && i + 2 < n && (word.charAt(i + 2) == 'e' || word.charAt(i + 2) == 'i')) {
+                        code = 'g';
+                        i++;
+                    } else {
+                        code = soft ? 'h' : 'g';
+                    }
+                    break;
+                case 'j':
+                    code = 'h';
+                    break;
+                case 'h':
+                    // silent in Spanish spellings ("Hernandez", "Ernandez")
+                    code = 0;
+                    break;
+                case 'z':
+                    code = 's';
+                    break;
+                case 's':
+                    code = 's';
+                    if (next == 'h')
+                        i++;
+                    break;
+                case 't':
+                    code = 't';
+                    if (next == 'h') {
+                        i++;
+                    } else if (next == 's') {
+                        code = 's';
+                        i++;
+                    }
+                    break;
+                case 'v':
+                    code = 'b';
+                    break;
+                case 'f':
+                    code = 'p';
+                    break;
+                case 'p':
+                    code = 'p';
+                    if (next == 'h')
+                        i++;
+                    break;
+                case 'n':
+                    code = 'n';
+                    // "ny" as in Penya for Peña
+                    if (next == 'y' && i + 2 < n && isVowel(word.charAt(i + 2)))
+                        i++;
+                    break;
+                case 'x':
+                    out.append('k');
+                    code = 's';
+                    break;
+                default:
+                    code = Character.isLetter(c) ? c : 0;
+            }
+            if (code != 0 && (out.length() == 0 || out.charAt(out.length() - 1) != code))
+                out.append(code);
+        }
+        return out.toString();
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+
+    /**
+     * How alike two words are, from 0 to 1 (1 only when equal): the better of
+     * trigram overlap and edit distance (within {@link #maxEdits}), lifted
+     * towards 1 when the phonetic keys (of two consonants or more) agree.
+     */
+    public static double similarity(String a, String b) {
+        if (a.equals(b))
+            return 1;
+        double s = trigramSimilarity(a, b);
+        int max = maxEdits(Math.min(a.length(), b.length()));
+        int d = editDistance(a, b, max);
+        if (d <= max)
+            s = Math.max(s, 1 - (double) d / Math.max(a.length(), b.length()));
+        String key = phoneticKey(a);
+        if (key.length() > 1 && key.equals(phoneticKey(b)))
+            s = 0.6 + s * 0.4;
+        return Math.min(s, 0.99);
+    }
+
+    /** Dice coefficient of the trigrams of the two words padded with spaces. */
+    public static double trigramSimilarity(String a, String b) {
+        Set<String> ga = paddedTrigrams(a);
+        Set<String> gb = paddedTrigrams(b);
+        if (ga.isEmpty() || gb.isEmpty())
+            return 0;
+        int shared = 0;
+        for (String g : ga) {
+            if (gb.contains(g))
+                shared++;
+        }
+        return 2.0 * shared / (ga.size() + gb.size());
+    }
+
+    /** Trigrams of " word " (so short words and word starts count). */
+    public static Set<String> paddedTrigrams(String word) {
+        Set<String> out = new HashSet<>();
+        String s = " " + word + " ";
+        for (int i = 0; i + 3 <= s.length(); i++)
+            out.add(s.substring(i, i + 3));
+        return out;
+    }
+
+    /**
+     * Edit distance counting insertions, deletions, substitutions and swaps
+     * of neighbouring letters; any value above {@code max} comes back as
+     * {@code max + 1} without finishing the computation.
+     */
+    public static int editDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max)
+            return max + 1;
+        int[] prev2 = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++)
+            prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    v = Math.min(v, prev2[j - 2] + 1);
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max)
+                return max + 1;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+}
@@ -0,0 +1,39 @@
+package Service;
+
+public class NameMatcherTest {
+    // spelled differently, said the same: same phonetic key, similar
+    private static final String[][] ALIKE = {
+            { "macario", "makario" }, { "gimenez", "jimenez" }, { "josefina", "josepina" },
+            { "villanueva", "vilanueva" }, { "hernandez", "ernandes" }, { "santos", "zantos" }
+    };
+    // different names: below the threshold
+    private static final String[][] UNLIKE = {
+            { "maria", "pedro" }, { "santos", "cruz" }, { "reyes", "reynaldo" }, { "gimenez", "gomez" }
+    };
+
+    public static void main(String[] args) {
+        int failures = 0;
+        for (String[] pair : ALIKE) {
+            String ka = NameMatcher.phoneticKey(pair[0]);
+            String kb = NameMatcher.phoneticKey(pair[1]);
+            double s = NameMatcher.similarity(pair[0], pair[1]);
+            boolean ok = ka.equals(kb) && s >= NameMatcher.THRESHOLD && s < 1
+                    && s == NameMatcher.similarity(pair[1], pair[0]);
+            System.out.println(pair[0] + "/" + pair[1] + ": keys " + ka + "/" + kb + ", similarity "
+                    + String.format("%.2f", s) + (ok ? "" : "  <-- expected alike"));
+            if (!ok) failures++;
+        }
+        for (String[] pair : UNLIKE) {
+            double s = NameMatcher.similarity(pair[0], pair[1]);
+            boolean ok = s < NameMatcher.THRESHOLD;
+            System.out.println(pair[0] + "/" + pair[1] + ": similarity " + String.format("%.2f", s)
+                    + (ok ? "" : "  <-- expected different"));
+            if (!ok) failures++;
+        }
+        boolean same = NameMatcher.similarity("santos", "santos") == 1;
+        System.out.println("Equal words score 1: " + same);
+        if (!same) failures++;
+        System.out.println("NameMatcher checks passed: " + (failures == 0));
+        if (failures > 0) System.exit(1);
+    }
+}
@@ -1,8 +1,13 @@
 package Service;
 
 import Model.Patient;
+import Repository.ChangeBus;
+import Repository.ChangeEvent;
 import Repository.PatientRepository;
 import Repository.Repository;
+import Repository.Sort;
+import Repository.Transaction;
+import Repository.UserRepository;
 import DTO.PatientSummaryDTO;
 import Model.Role;
 
@@ -16,6 +21,8 @@ import java.util.stream.Collectors;
 
 /** Patient service with basic CRUD plus per-username profile storage. */
 public class PatientService {
+    // similar names checked by findPossibleDuplicates when no date of birth is given
+    private static final int DUPLICATE_CANDIDATES = 50;
     private final Repository<String, Patient> repo;
     // Simple runtime cache mapping usernames to profile data
     private final ConcurrentHashMap<String, PatientProfile> profilesByUsername = new ConcurrentHashMap<>();
@@ -35,16 +42,19 @@ public class PatientService {
     }
 
     public PatientService() {
-        this.repo = PatientRepository.getInstance();
+        this.repo = PatientRepository.cached();
     }
 
     public Patient createPatient(String firstName, String lastName, LocalDate dob,
             String gender, String phone, String email, String address) {
         Patient p = new Patient(firstName, lastName, dob, gender, phone, email, address);
-        Patient saved = repo.save(p);
-        // Auto-provision a user account for this patient
-        autoProvisionPatientAccount(saved);
-        return saved;
+        // Patient row and its login account are committed together (or not at all)
+        return Transaction.call(() -> {
+            Patient saved = repo.save(p);
+            // Auto-provision a user account for this patient
+            autoProvisionPatientAccount(saved);
+            return saved;
+        });
     }
 
     public Optional<Patient> findById(String id) {
@@ -55,35 +65,118 @@ public class PatientService {
         return repo.findAll();
     }
 
+    /**
+     * Stream all patients without loading the table into memory (for exports
+     * and scans). Close the stream when stopping early.
+     */
+    public java.util.stream.Stream<Patient> streamAll() {
+        return repo.streamAll();
+    }
+
+    /**
+     * One page of patients after the given patient id (null for the first page),
+     * for browsing the table page by page. See PatientRepository#findPage.
+     */
+    public java.util.List<Patient> findPage(String afterId, int limit, Sort sort) {
+        return PatientRepository.getInstance().findPage(afterId, limit, sort);
+    }
+
+    /** Table rows for every patient (see PatientRepository#findSummaries). */
+    public java.util.List<PatientSummaryDTO> listSummaries() {
+        return PatientRepository.getInstance().findSummaries();
+    }
+
+    /** Table rows for active (non-archived) patients. */
+    public java.util.List<PatientSummaryDTO> listActiveSummaries() {
+        return listSummaries().stream().filter(s -> !archivedIds.contains(s.getId())).collect(Collectors.toList());
+    }
+
+    /** Table rows for archived patients. */
+    public java.util.List<PatientSummaryDTO> listArchivedSummaries() {
+        return listSummaries().stream().filter(s -> archivedIds.contains(s.getId())).collect(Collectors.toList());
+    }
+
+    /** Number of patients matching a list search (see PatientRepository#countSummaries). */
+    public long countSummaries(String search) {
+        return PatientRepository.getInstance().countSummaries(search);
+    }
+
+    /** One keyset page of table rows (see PatientRepository#findSummaryPage). */
+    public java.util.List<PatientSummaryDTO> findSummaryPage(String search, String afterId, int skip, int limit,
+            Sort sort) {
+        return PatientRepository.getInstance().findSummaryPage(search, afterId, skip, limit, sort);
+    }
+
+    /** Summaries keyed by patient id, loaded with one query per few hundred ids. */
+    public java.util.Map<String, PatientSummaryDTO> findSummariesByIds(Collection<String> ids) {
+        return PatientRepository.getInstance().findSummariesByIds(ids);
+    }
+
+    /**
+     * Existing patients who may be the person being registered: names spelled
+     * or sounding alike (see SearchServiceImpl#findSimilarPatientIds) and, when
+     * a date of birth is given, born the same day. Waits for the search index
+     * if it is still being built, so call off the EDT.
+     */
+    public java.util.List<Patient> findPossibleDuplicates(String firstName, String lastName, LocalDate dob) {
+        String name = ((firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName)).trim();
+        java.util.List<Patient> out = new java.util.ArrayList<>();
+        if (name.isEmpty())
+            return out;
+        // with a date of birth every alike name is a candidate, however common,
+        // and the date narrows them in the query; without one only the closest
+        java.util.List<String> ids = SearchServiceImpl.getInstance().findSimilarPatientIds(name,
+                dob != null ? Integer.MAX_VALUE : DUPLICATE_CANDIDATES);
+        java.util.Map<String, Patient> found = PatientRepository.getInstance().findByIds(ids, dob);
+        for (String id : ids) {
+            Patient p = found.get(id);
+            if (p != null)
+                out.add(p);
+        }
+        return out;
+    }
+
     // NEW: active (non-archived) patients
     public java.util.List<Patient> listActive() {
-        return repo.findAll().stream()
-                .filter(p -> p != null && !archivedIds.contains(p.getId()))
-                .collect(Collectors.toList());
+        try (java.util.stream.Stream<Patient> all = repo.streamAll()) {
+            return all.filter(p -> p != null && !archivedIds.contains(p.getId()))
+                    .collect(Collectors.toList());
+        }
     }
 
     // NEW: archived patients
     public java.util.List<Patient> listArchived() {
-        return repo.findAll().stream()
-                .filter(p -> p != null && archivedIds.contains(p.getId()))
-                .collect(Collectors.toList());
+        try (java.util.stream.Stream<Patient> all = repo.streamAll()) {
+            return all.filter(p -> p != null && archivedIds.contains(p.getId()))
+                    .collect(Collectors.toList());
+        }
     }
 
     // NEW: archive by id (soft-delete)
     public boolean archivePatient(String id) {
         if (id == null || id.isBlank())
             return false;
-        if (repo.findById(id).isEmpty())
+        Optional<Patient> p = repo.findById(id);
+        if (p.isEmpty())
             return false;
-        archivedIds.add(id);
+        if (archivedIds.add(id))
+            archiveChanged(p.get());
         return true;
     }
 
+    // archiving is kept in memory only, so the repository publishes nothing for it
+    private static void archiveChanged(Patient p) {
+        ChangeBus.getInstance().publish(Patient.class, ChangeEvent.Kind.UPDATED, p.getId(), p);
+    }
+
     // NEW: unarchive by id
     public boolean unarchivePatient(String id) {
         if (id == null || id.isBlank())
             return false;
-        return archivedIds.remove(id);
+        if (!archivedIds.remove(id))
+            return false;
+        repo.findById(id).ifPresent(PatientService::archiveChanged);
+        return true;
     }
 
     public boolean deletePatient(String id) {
@@ -119,24 +212,8 @@ public class PatientService {
     public java.util.Optional<PatientSummaryDTO> getPatientSummaryById(String id) {
         if (id == null || id.isBlank())
             return java.util.Optional.empty();
-        java.util.Optional<Model.Patient> opt = findById(id);
-        if (opt.isEmpty())
-            return java.util.Optional.empty();
-        Model.Patient p = opt.get();
-        PatientSummaryDTO dto = new PatientSummaryDTO();
-        dto.setId(p.getId());
-        dto.setFullName(p.getFirstName() + " " + p.getLastName());
-        dto.setGender(p.getGender());
-        dto.setAge(computeAge(p.getDateOfBirth()));
-        // status/room/bed/admittedAt are not tracked here; leave null
-        return java.util.Optional.of(dto);
-    }
-
-    private Integer computeAge(java.time.LocalDate dob) {
-        if (dob == null)
-            return null;
-        java.time.Period period = java.time.Period.between(dob, java.time.LocalDate.now());
-        return Math.max(0, period.getYears());
+        // status/room/bed/admittedAt are not tracked here; left null
+        return java.util.Optional.ofNullable(findSummariesByIds(java.util.List.of(id)).get(id));
     }
 
     /** Lightweight DTO to hold patient-facing profile fields. */
@@ -239,7 +316,7 @@ public class PatientService {
         repo.save(p);
         // link back to user
         try {
-            user.setLinkedPatientId(p.getId());
+            UserService.getInstance().linkPatient(user, p.getId());
         } catch (Exception ignored) {
         }
         return p;
@@ -252,27 +329,23 @@ public class PatientService {
         UserService userService = UserService.getInstance();
         String base = (patient.getFirstName() + "." + patient.getLastName()).toLowerCase().replaceAll("[^a-z0-9]+",
                 ".");
-        String username = base;
-        int attempt = 0;
-        while (userService.findByUsername(username).isPresent()) {
-            attempt++;
-            username = base + attempt;
-            if (attempt > 1000) { // fallback to UUID tail
-                username = base + Long.toHexString(Double.doubleToLongBits(Math.random())).substring(8);
-                break;
-            }
-        }
+        // next free base, base1, base2, ... (see UsernameAllocator)
+        String username = UsernameAllocator.getInstance().allocate(base,
+                name -> userService.findByUsername(name).isPresent());
         String tempPassword = generateTempPassword(patient);
         try {
             userService.createUser(username, tempPassword.toCharArray(), Role.PATIENT);
             // Attempt to locate created user and attach linkedPatientId where supported
             userService.findByUsername(username).ifPresent(u -> {
                 try {
-                    u.setLinkedPatientId(patient.getId());
+                    userService.linkPatient(u, patient.getId());
+                    // persist the link in the same unit of work as the account
+                    UserRepository.getInstance().save(u);
                 } catch (Exception ignored) {
                 }
             });
             provisionedAccounts.put(patient.getId(), new ProvisionedAccount(username, tempPassword));
+            Transaction.onRollback(() -> provisionedAccounts.remove(patient.getId()));
         } catch (RuntimeException ex) {
             // In case password policy or other issues, ensure we don't crash patient
             // creation
@@ -0,0 +1,302 @@
+package Service;
+
+/**
+ * Porter's suffix-stripping stemmer for English, so that "fractured",
+ * "fractures" and "fracturing" index and match as the same word.
+ *
+ * This is the original 1980 algorithm (steps 1a to 5b) operating on
+ * lower-case ASCII words; words of two letters or fewer and words containing
+ * anything but a-z are returned unchanged. Stems end up in index files on disk,
+ * so any change here must bump {@link DiskTextIndex#FORMAT}.
+ */
+public final class PorterStemmer {
+    private final char[] b;
+    private int k; // last character of the current stem
+    private int j; // end of the stem before a suffix matched by ends()
+
+    private PorterStemmer(String word) {
+        this.b = word.toCharArray();
+        this.k = b.length - 1;
+    }
+
+    /** The stem of a lower-case word. */
+    public static String stem(String word) {
+        if (word == null || word.length() <= 2)
+            return word;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z')
+                return word;
+        }
+        PorterStemmer s = new PorterStemmer(word);
+        s.step1ab();
+        if (s.k > 0) {
+            s.step1c();
+            s.step2();
+            s.step3();
+            s.step4();
+            s.step5();
+        }
+        return new String(s.b, 0, s.k + 1);
+    }
+
+    private boolean cons(int i) {
+        switch (b[i]) {
+            case 'a': case 'e': case 'i': case 'o': case 'u':
+                return false;
+            case 'y':
+                return i == 0 || !cons(i - 1);
+            default:
+                return true;
+        }
+    }
+
+    // number of vowel-consonant sequences in b[0..j]
+    private int m() {
+        int n = 0;
+        int i = 0;
+        while (true) {
+            if (i > j)
+                return n;
+            if (!cons(i))
+                break;
+            i++;
+        }
+        i++;
+        while (true) {
+            while (true) {
+                if (i > j)
+                    return n;
+                if (cons(i))
+                    break;
+                i++;
+            }
+            i++;
+            n++;
+            while (true) {
+                if (i > j)
+                    return n;
+                if (!cons(i))
+                    break;
+                i++;
+            }
+            i++;
+        }
+    }
+
+    private boolean vowelInStem() {
+        for (int i = 0; i <= j; i++) {
+            if (!cons(i))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean doubleC(int i) {
+        return i >= 1 && b[i] == b[i - 1] && cons(i);
+    }
+
+    // consonant-vowel-consonant ending at i, the last not w, x or y ("hop", not "snow")
+    private boolean cvc(int i) {
+        if (i < 2 || !cons(i) || cons(i - 1) || !cons(i - 2))
+            return false;
+        char c = b[i];
+        return c != 'w' && c != 'x' && c != 'y';
+    }
+
+    private boolean ends(String s) {
+        int l = s.length();
+        int o = k - l + 1;
+        if (o < 0)
+            return false;
+        for (int i = 0; i < l; i++) {
+            if (b[o + i] != s.charAt(i))
+                return false;
+        }
+        j = k - l;
+        return true;
+    }
+
+    // replace b[j+1..k] with s; b never grows past its original length here
+    private void setTo(String s) {
+        int l = s.length();
+        int o = j + 1;
+        for (int i = 0; i < l; i++)
+            b[o + i] = s.charAt(i);
+        k = j + l;
+    }
+
+    private void r(String s) {
+        if (m() > 0)
+            setTo(s);
+    }
+
+    // plurals and -ed/-ing: caresses -> caress, ponies -> poni, matting -> mat, agreed -> agree
+    private void step1ab() {
+        if (b[k] == 's') {
+            if (ends("sses"))
+                k -= 2;
+            else if (ends("ies"))
+                setTo("i");
+            else if (b[k - 1] != 's')
+                k--;
+        }
+        if (ends("eed")) {
+            if (m() > 0)
+                k--;
+        } else if ((ends("ed") || ends("ing")) && vowelInStem()) {
+            k = j;
+            if (ends("at")) {
+                setTo("ate");
+            } else if (ends("bl")) {
+                setTo("ble");
+            } else if (ends("iz")) {
+                setTo("ize");
+            } else if (doubleC(k)) {
+                k--;
+                char c = b[k];
+                if (c == 'l' || c == 's' || c == 'z')
+                    k++;
+            } else if (m() == 1 && cvc(k)) {
+                setTo("e");
+            }
+        }
+    }
+
+    // terminal y -> i when there is another vowel in the stem
+    private void step1c() {
+        if (ends("y") && vowelInStem())
+            b[k] = 'i';
+    }
+
+    // double suffixes to single ones: -ization -> -ize, -ational -> -ate
+    private void step2() {
+        if (k == 0)
+            return;
+        switch (b[k - 1]) {
+            case 'a':
+                if (ends("ational")) { r("ate"); break; }
+                if (ends("tional")) { r("tion"); break; }
+                break;
+            case 'c':
+                if (ends("enci")) { r("ence"); break; }
+                if (ends("anci")) { r("ance"); break; }
+                break;
+            case 'e':
+                if (ends("izer")) { r("ize"); break; }
+                break;
+            case 'l':
+                if (ends("bli")) { r("ble"); break; }
+                if (ends("alli")) { r("al"); break; }
+                if (ends("entli")) { r("ent"); break; }
+                if (ends("eli")) { r("e"); break; }
+                if (ends("ousli")) { r("ous"); break; }
+                break;
+            case 'o':
+                if (ends("ization")) { r("ize"); break; }
+                if (ends("ation")) { r("ate"); break; }
+                if (ends("ator")) { r("ate"); break; }
+                break;
+            case 's':
+                if (ends("alism")) { r("al"); break; }
+                if (ends("iveness")) { r("ive"); break; }
+                if (ends("fulness")) { r("ful"); break; }
+                if (ends("ousness")) { r("ous"); break; }
+                break;
+            case 't':
+                if (ends("aliti")) { r("al"); break; }
+                if (ends("iviti")) { r("ive"); break; }
+                if (ends("biliti")) { r("ble"); break; }
+                break;
+            case 'g':
+                if (ends("logi")) { r("log"); break; }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // -ic-, -full, -ness etc.
+    private void step3() {
+        switch (b[k]) {
+            case 'e':
+                if (ends("icate")) { r("ic"); break; }
+                if (ends("ative")) { r(""); break; }
+                if (ends("alize")) { r("al"); break; }
+                break;
+            case 'i':
+                if (ends("iciti")) { r("ic"); break; }
+                break;
+            case 'l':
+                if (ends("ical")) { r("ic"); break; }
+                if (ends("ful")) { r(""); break; }
+                break;
+            case 's':
+                if (ends("ness")) { r(""); break; }
+                break;
+            default:
+                break;
+        }
+    }
+
+    // -ant, -ence etc. in context <c>vcvc<v>
+    private void step4() {
+        if (k == 0)
+            return;
+        boolean matched;
+        switch (b[k - 1]) {
+            case 'a':
+                matched = ends("al");
+                break;
+            case 'c':
+                matched = ends("ance") || ends("ence");
+                break;
+            case 'e':
+                matched = ends("er");
+                break;
+            case 'i':
+                matched = ends("ic");
+                break;
+            case 'l':
+                matched = ends("able") || ends("ible");
+                break;
+            case 'n':
+                matched = ends("ant") || ends("ement") || ends("ment") || ends("ent");
+                break;
+            case 'o':
+                matched = (ends("ion") && j >= 0 && (b[j] == 's' || b[j] == 't')) || ends("ou");
+                break;
+            case 's':
+                matched = ends("ism");
+                break;
+            case 't':
+                matched = ends("ate") || ends("iti");
+                break;
+            case 'u':
+                matched = ends("ous");
+                break;
+            case 'v':
+                matched = ends("ive");
+                break;
+            case 'z':
+                matched = ends("ize");
+                break;
+            default:
+                matched = false;
+        }
+        if (matched && m() > 1)
+            k = j;
+    }
+
+    // final -e and -ll
+    private void step5() {
+        j = k;
+        if (b[k] == 'e') {
+            int a = m();
+            if (a > 1 || a == 1 && !cvc(k - 1))
+                k--;
+        }
+        if (b[k] == 'l' && doubleC(k) && m() > 1)
+            k--;
+    }
+}
@@ -0,0 +1,302 @@
+package Service;
+
+import Model.Doctor;
+import Model.Patient;
+import Model.User;
+import Repository.ChangeBus;
+import Repository.ChangeEvent;
+import Repository.PatientRepository;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * SearchService backed by in-memory {@link TextIndex}es, so keyword lookups
+ * never scan the patients table.
+ *
+ * Patients are indexed by first and last name, account full name, patient
+ * number, contact number and username; doctors by name, specialization,
+ * username and staff number. The patient index is built once per process on a
+ * background thread ("hpms-search-index") by paging through the table, and
+ * searches made before it is complete wait for it, so call them off the EDT.
+ * A failed build is retried a few times; if it never completes the service
+ * stays not ready and searches throw rather than answer from part of the table.
+ * Afterwards both indexes follow the {@link ChangeBus}: saves and deletes of
+ * patients, doctors and their user accounts are applied as they are published.
+ */
+public class SearchServiceImpl implements SearchService {
+    /** Results returned by the single-argument finders. */
+    public static final int DEFAULT_LIMIT = 50;
+    private static final int BUILD_PAGE_SIZE = 5000;
+    private static final int BUILD_ATTEMPTS = 3;
+    private static final long BUILD_RETRY_DELAY_MS = 5000;
+
+    private final TextIndex patients = new TextIndex();
+    private final TextIndex doctors = new TextIndex();
+    // doctor id by user id, to follow user account changes
+    private final Map<String, String> doctorByUser = new ConcurrentHashMap<>();
+    private final CountDownLatch built = new CountDownLatch(1);
+    // why the build gave up, null while it runs and once it has succeeded
+    private volatile RuntimeException buildFailure;
+    // guards the build against overwriting newer entries from change events
+    private final Object buildLock = new Object();
+    private final Set<String> changedDuringBuild = new HashSet<>();
+    private boolean building = true;
+
+    private static final class Holder {
+        static final SearchServiceImpl INSTANCE = start(new SearchServiceImpl());
+    }
+
+    public static SearchServiceImpl getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static SearchServiceImpl start(SearchServiceImpl service) {
+        // subscribe first so nothing saved while the build runs is missed
+        ChangeBus bus = ChangeBus.getInstance();
+        bus.subscribe(Patient.class, service::onPatientChanges);
+        bus.subscribe(Doctor.class, service::onDoctorChanges);
+        bus.subscribe(User.class, service::onUserChanges);
+        Thread t = new Thread(service::build, "hpms-search-index");
+        t.setDaemon(true);
+        t.start();
+        return service;
+    }
+
+    @Override
+    public List<Patient> findPatients(String keyword) {
+        return findPatients(keyword, DEFAULT_LIMIT);
+    }
+
+    /** The best {@code limit} patients for a keyword, best match first. */
+    public List<Patient> findPatients(String keyword, int limit) {
+        List<String> ids = findPatientIds(keyword, limit);
+        Map<String, Patient> found = PatientRepository.getInstance().findByIds(ids);
+        List<Patient> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Patient p = found.get(id);
+            if (p != null)
+                out.add(p);
+        }
+        return out;
+    }
+
+    /**
+     * Ids of the best {@code limit} patients for a keyword, best match first.
+     * A keyword nothing starts with or contains is retried as a misspelled
+     * name (see {@link #findSimilarPatientIds}).
+     */
+    public List<String> findPatientIds(String keyword, int limit) {
+        awaitBuilt();
+        List<TextIndex.Hit> hits = patients.search(keyword, limit);
+        return hits.isEmpty() ? keys(patients.searchSimilar(keyword, limit)) : keys(hits);
+    }
+
+    /**
+     * Ids of patients whose names are spelled or sound like {@code name}
+     * ("Makario Santos" finds "Macario Santos"), most alike first.
+     */
+    public List<String> findSimilarPatientIds(String name, int limit) {
+        awaitBuilt();
+        return keys(patients.searchSimilar(name, limit));
+    }
+
+    @Override
+    public List<Doctor> findDoctors(String keyword) {
+        return findDoctors(keyword, DEFAULT_LIMIT);
+    }
+
+    public List<Doctor> findDoctors(String keyword, int limit) {
+        awaitBuilt();
+        DoctorServiceImpl service = DoctorServiceImpl.getInstance();
+        List<Doctor> out = new ArrayList<>();
+        for (String id : keys(doctors.search(keyword, limit)))
+            service.findByDoctorId(id).ifPresent(out::add);
+        return out;
+    }
+
+    /** True once the initial index build has succeeded. */
+    public boolean isReady() {
+        return built.getCount() == 0 && buildFailure == null;
+    }
+
+    /**
+     * Wait for the initial build.
+     *
+     * @throws IllegalStateException if it failed on every attempt
+     */
+    private void awaitBuilt() {
+        try {
+            built.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        RuntimeException failure = buildFailure;
+        if (failure != null)
+            throw new IllegalStateException("Search index is not available: " + failure.getMessage(), failure);
+    }
+
+    private static List<String> keys(List<TextIndex.Hit> hits) {
+        List<String> out = new ArrayList<>(hits.size());
+        for (TextIndex.Hit h : hits)
+            out.add(h.getKey());
+        return out;
+    }
+
+    // --- Initial build ----------------------------------------------
+    private void build() {
+        long started = System.currentTimeMillis();
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= BUILD_ATTEMPTS; attempt++) {
+            try {
+                load();
+                failure = null;
+                break;
+            } catch (RuntimeException ex) {
+                failure = ex;
+                System.err.println("[SearchServiceImpl] Error building search index (attempt " + attempt + " of "
+                        + BUILD_ATTEMPTS + "): " + ex.getMessage());
+            }
+            if (attempt < BUILD_ATTEMPTS && !pause(BUILD_RETRY_DELAY_MS * attempt)) {
+                failure = new IllegalStateException("build interrupted");
+                break;
+            }
+        }
+        synchronized (buildLock) {
+            building = false;
+            changedDuringBuild.clear();
+        }
+        buildFailure = failure;
+        built.countDown();
+        if (failure != null) {
+            System.err.println("[SearchServiceImpl] Search index unavailable: " + failure.getMessage());
+            return;
+        }
+        System.out.println("[SearchServiceImpl] Indexed " + patients.size() + " patients and " + doctors.size()
+                + " doctors in " + (System.currentTimeMillis() - started) + " ms");
+    }
+
+    // one pass over doctors and patients; a retry puts every row again
+    private void load() {
+        for (Doctor d : DoctorServiceImpl.getInstance().listAll())
+            buildEntry(d.getDoctorId(), () -> indexDoctor(d));
+        PatientRepository repo = PatientRepository.getInstance();
+        String afterId = null;
+        while (true) {
+            List<String[]> page;
+            try {
+                page = repo.findSearchFieldsPage(afterId, BUILD_PAGE_SIZE);
+            } catch (SQLException ex) {
+                throw new IllegalStateException(ex.getMessage(), ex);
+            }
+            for (String[] f : page) {
+                buildEntry(f[0], () -> patients.put(f[0], Arrays.asList(f[2], f[3], f[6]),
+                        Arrays.asList(f[1], f[4], f[5])));
+            }
+            if (page.size() < BUILD_PAGE_SIZE)
+                break;
+            afterId = page.get(page.size() - 1)[0];
+        }
+        patients.prepare();
+        doctors.prepare();
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // rows read by the build may be older than a change already applied
+    private void buildEntry(String id, Runnable index) {
+        synchronized (buildLock) {
+            if (!changedDuringBuild.contains(id))
+                index.run();
+        }
+    }
+
+    // --- Incremental updates ----------------------------------------
+    private void changed(String id, Runnable apply) {
+        synchronized (buildLock) {
+            if (building)
+                changedDuringBuild.add(id);
+            apply.run();
+        }
+    }
+
+    private void onPatientChanges(List<ChangeEvent<Patient>> events) {
+        for (ChangeEvent<Patient> e : events) {
+            String id = String.valueOf(e.getId());
+            changed(id, () -> {
+                if (e.isDelete())
+                    patients.remove(id);
+                else
+                    indexPatient(e.getEntity());
+            });
+        }
+    }
+
+    private void onDoctorChanges(List<ChangeEvent<Doctor>> events) {
+        for (ChangeEvent<Doctor> e : events) {
+            String id = String.valueOf(e.getId());
+            changed(id, () -> {
+                if (e.isDelete()) {
+                    doctors.remove(id);
+                    doctorByUser.values().remove(id);
+                } else {
+                    indexDoctor(e.getEntity());
+                }
+            });
+        }
+    }
+
+    // a renamed account changes the name and username of its patient or doctor
+    private void onUserChanges(List<ChangeEvent<User>> events) {
+        for (ChangeEvent<User> e : events) {
+            User u = e.getEntity();
+            if (u == null)
+                continue;
+            if (u.getLinkedPatientId() != null) {
+                Optional<Patient> p = PatientService.getInstance().findById(u.getLinkedPatientId());
+                p.ifPresent(patient -> changed(patient.getId(), () -> indexPatient(patient)));
+            }
+            String doctorId = doctorByUser.get(u.getId());
+            if (doctorId != null) {
+                DoctorServiceImpl.getInstance().findByDoctorId(doctorId)
+                        .ifPresent(d -> changed(doctorId, () -> indexDoctor(d)));
+            }
+        }
+    }
+
+    private void indexPatient(Patient p) {
+        if (p == null || p.getId() == null)
+            return;
+        User u = p.getUser();
+        patients.put(p.getId(), Arrays.asList(p.getFirstName(), p.getLastName(), u == null ? null : u.getFullName()),
+                Arrays.asList(p.getPatientNumber(), p.getContactNumber(), u == null ? null : u.getUsername()));
+    }
+
+    private void indexDoctor(Doctor d) {
+        if (d == null || d.getDoctorId() == null)
+            return;
+        User u = d.getUser();
+        if (u != null && u.getId() != null)
+            doctorByUser.put(u.getId(), d.getDoctorId());
+        doctors.put(d.getDoctorId(),
+                Arrays.asList(u == null ? null : u.getFullName(), d.getSpecialization()),
+                Arrays.asList(u == null ? null : u.getUsername(), u == null ? null : u.getStaffNumber(),
+                        d.getContactNumber()));
+    }
+}
@@ -0,0 +1,766 @@
+package Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over short identifying text (names, record numbers,
+ * phone numbers, usernames) with ranked prefix and substring lookup.
+ *
+ * A document has name fields, split into words, and identifier fields, each
+ * kept as one compact token with separators removed ("PT-IDRN0943" is
+ * "ptidrn0943"). All text is lower-cased and stripped of accents, so "Peña"
+ * finds "pena". Every word of a query must match a token of the document:
+ * exactly (3 points, 4 on an identifier), as a prefix (2) or, for name words
+ * of three letters or more, anywhere inside a name word (1, found through a
+ * trigram index over the distinct name words). Documents are ranked by their
+ * summed points, ties in the order the matching words sort.
+ * {@link #searchSimilar} instead matches name words by spelling and sound
+ * (see {@link NameMatcher}), for misspelled names.
+ *
+ * A query starts from its most selective word and checks the others against
+ * each candidate's own tokens, so its cost follows the rarest word, not the
+ * index size; it stops as soon as no remaining candidate can enter the top
+ * results. Terms are looked up in a hash map; prefix scans walk a sorted term
+ * array plus a small sorted set of terms added since, merged into the array
+ * once the set grows past an eighth of it. New terms are only sorted in when
+ * the next query runs, so a bulk load sorts once (keeping a tree over a million
+ * terms makes the initial build several times slower). Thread-safe: queries
+ * share a read lock, updates take the write lock.
+ */
+public final class TextIndex {
+    private static final int EXACT_ID = 4;
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int SUBSTRING = 1;
+    private static final int GRAM = 3;
+    // prefix expansions counted when estimating how selective a query word is
+    private static final int ESTIMATE_CAP = 50_000;
+    private static final int ESTIMATE_TERMS = 1024;
+    private static final int MIN_MERGE = 4096;
+
+    private static final String[] NONE = new String[0];
+
+    /** One search result: the document key and its score. */
+    public static final class Hit {
+        private final String key;
+        private final int score;
+        private final int rank;
+
+        Hit(String key, int score, int rank) {
+            this.key = key;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public String getKey() { return key; }
+
+        public int getScore() { return score; }
+    }
+
+    private static final class Doc {
+        final String key;
+        final String[] names;
+        final String[] ids;
+
+        Doc(String key, String[] names, String[] ids) {
+            this.key = key;
+            this.names = names;
+            this.ids = ids;
+        }
+    }
+
+    /** Sorted document ordinals of one term. */
+    private static final class Postings {
+        int[] ords = new int[2];
+        int size;
+        // documents holding the term as a name word (those are trigram-indexed)
+        int nameDocs;
+        // documents holding the term as an identifier
+        int idDocs;
+
+        void add(int ord) {
+            int i = Arrays.binarySearch(ords, 0, size, ord);
+            if (i >= 0)
+                return;
+            i = -i - 1;
+            if (size == ords.length)
+                ords = Arrays.copyOf(ords, size * 2);
+            System.arraycopy(ords, i, ords, i + 1, size - i);
+            ords[i] = ord;
+            size++;
+        }
+
+        void remove(int ord) {
+            int i = Arrays.binarySearch(ords, 0, size, ord);
+            if (i < 0)
+                return;
+            System.arraycopy(ords, i + 1, ords, i, size - i - 1);
+            size--;
+        }
+    }
+
+    /** One word of a query; "dela-cruz" also matches as "dela" and "cruz". */
+    private static final class Word {
+        final String compact;
+        final String[] parts;
+
+        Word(String compact, String[] parts) {
+            this.compact = compact;
+            this.parts = parts;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> terms = new HashMap<>();
+    // every term in order, possibly with some removed since the last merge
+    private String[] sortedTerms = NONE;
+    // terms added since the last merge, and since the last query (unsorted)
+    private final TreeSet<String> newTerms = new TreeSet<>();
+    private List<String> addedTerms = new ArrayList<>();
+    private volatile boolean termsPending;
+    private boolean termsDropped;
+    private final Map<String, Set<String>> nameTermsByGram = new HashMap<>();
+    // name words by NameMatcher phonetic key, for searchSimilar
+    private final Map<String, Set<String>> nameTermsByKey = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private Doc[] docs = new Doc[1024];
+    private int nextOrdinal;
+
+    /**
+     * Add or replace a document.
+     *
+     * @param names words to match by prefix and substring (names, specializations)
+     * @param ids   identifiers to match whole or by prefix (numbers, usernames)
+     */
+    public void put(String key, List<String> names, List<String> ids) {
+        if (key == null)
+            return;
+        Set<String> nameTokens = new LinkedHashSet<>();
+        for (String field : names)
+            nameTokens.addAll(words(field));
+        Set<String> idTokens = new LinkedHashSet<>();
+        for (String field : ids) {
+            String c = compact(field);
+            if (!c.isEmpty())
+                idTokens.add(c);
+        }
+        Doc doc = new Doc(key, nameTokens.toArray(NONE), idTokens.toArray(NONE));
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.get(key);
+            if (ord != null) {
+                unindex(ord);
+            } else {
+                ord = nextOrdinal++;
+                if (ord == docs.length)
+                    docs = Arrays.copyOf(docs, docs.length * 2);
+                ordinals.put(key, ord);
+            }
+            docs[ord] = doc;
+            for (String t : doc.names) {
+                Postings p = postings(t);
+                p.add(ord);
+                if (++p.nameDocs == 1)
+                    addNameTerm(t);
+            }
+            for (String t : doc.ids) {
+                Postings p = postings(t);
+                p.add(ord);
+                p.idDocs++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer ord = ordinals.remove(key);
+            if (ord == null)
+                return false;
+            unindex(ord);
+            docs[ord] = null;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String key) {
+        lock.readLock().lock();
+        try {
+            return ordinals.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Sort in the terms of a bulk load now, rather than in the next query. */
+    public void prepare() {
+        lock.writeLock().lock();
+        try {
+            if (termsPending)
+                sortAddedTerms();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Postings postings(String term) {
+        Postings p = terms.get(term);
+        if (p == null) {
+            p = new Postings();
+            terms.put(term, p);
+            addedTerms.add(term);
+            termsPending = true;
+        }
+        return p;
+    }
+
+    /**
+     * Make the terms added since the last query visible to prefix scans. A few
+     * go into the small sorted set; a bulk load is sorted once and merged.
+     */
+    private void sortAddedTerms() {
+        if (addedTerms.size() < MIN_MERGE) {
+            newTerms.addAll(addedTerms);
+            if (newTerms.size() > Math.max(MIN_MERGE, sortedTerms.length >> 3)) {
+                mergeTerms(newTerms.iterator(), newTerms.size());
+                newTerms.clear();
+            }
+        } else {
+            String[] added = addedTerms.toArray(NONE);
+            Arrays.sort(added);
+            mergeTerms(newTerms.iterator(), newTerms.size());
+            newTerms.clear();
+            mergeTerms(Arrays.asList(added).iterator(), added.length);
+        }
+        addedTerms = new ArrayList<>();
+        termsPending = false;
+    }
+
+    // fold sorted terms into the sorted array, dropping duplicates and removed terms
+    private void mergeTerms(Iterator<String> added, int count) {
+        String[] merged = new String[sortedTerms.length + count];
+        int n = 0;
+        int i = 0;
+        String next = added.hasNext() ? added.next() : null;
+        while (i < sortedTerms.length || next != null) {
+            String t;
+            int c = next == null ? -1 : i == sortedTerms.length ? 1 : sortedTerms[i].compareTo(next);
+            if (c <= 0)
+                t = sortedTerms[i++];
+            else
+                t = next;
+            if (c >= 0)
+                next = added.hasNext() ? added.next() : null;
+            if (!termsDropped || terms.containsKey(t))
+                merged[n++] = t;
+        }
+        sortedTerms = n == merged.length ? merged : Arrays.copyOf(merged, n);
+        termsDropped = false;
+    }
+
+    private void unindex(int ord) {
+        Doc doc = docs[ord];
+        for (String t : doc.names) {
+            Postings p = terms.get(t);
+            p.remove(ord);
+            if (--p.nameDocs == 0)
+                removeNameTerm(t);
+            if (p.size == 0)
+                dropTerm(t);
+        }
+        for (String t : doc.ids) {
+            Postings p = terms.get(t);
+            if (p == null)
+                continue;
+            p.remove(ord);
+            p.idDocs--;
+            if (p.size == 0)
+                dropTerm(t);
+        }
+    }
+
+    private void dropTerm(String term) {
+        terms.remove(term);
+        termsDropped = true;
+    }
+
+    /** Live terms starting with q (q itself excluded), in order. */
+    private Iterator<String> prefixTerms(String q) {
+        String end = q + Character.MAX_VALUE;
+        int at = Arrays.binarySearch(sortedTerms, q);
+        int from = at < 0 ? -at - 1 : at + 1;
+        int to = Arrays.binarySearch(sortedTerms, end);
+        int stop = to < 0 ? -to - 1 : to;
+        Iterator<String> added = newTerms.subSet(q, false, end, false).iterator();
+        return new Iterator<String>() {
+            int i = from;
+            String a = added.hasNext() ? added.next() : null;
+            String next = advance();
+
+            private String advance() {
+                while (i < stop || a != null) {
+                    String t;
+                    int c = a == null ? -1 : i == stop ? 1 : sortedTerms[i].compareTo(a);
+                    if (c <= 0)
+                        t = sortedTerms[i++];
+                    else
+                        t = a;
+                    if (c >= 0)
+                        a = added.hasNext() ? added.next() : null;
+                    if (terms.containsKey(t))
+                        return t;
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public String next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+                String t = next;
+                next = advance();
+                return t;
+            }
+        };
+    }
+
+    private void addNameTerm(String term) {
+        for (String g : grams(term))
+            nameTermsByGram.computeIfAbsent(g, x -> new HashSet<>()).add(term);
+        nameTermsByKey.computeIfAbsent(NameMatcher.phoneticKey(term), x -> new HashSet<>()).add(term);
+    }
+
+    private void removeNameTerm(String term) {
+        for (String g : grams(term))
+            removeFrom(nameTermsByGram, g, term);
+        removeFrom(nameTermsByKey, NameMatcher.phoneticKey(term), term);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> map, String key, String term) {
+        Set<String> set = map.get(key);
+        if (set != null && set.remove(term) && set.isEmpty())
+            map.remove(key);
+    }
+
+    /** Best documents for a query, highest score first; empty for a blank query. */
+    public List<Hit> search(String query, int limit) {
+        List<Word> words = parse(query);
+        if (words.isEmpty() || limit <= 0)
+            return Collections.emptyList();
+        if (termsPending)
+            prepare();
+        lock.readLock().lock();
+        try {
+            // start from the word whose matches are fewest
+            Word start = words.get(0);
+            String startPart = start.parts.length > 1 ? mostSelective(start.parts) : null;
+            if (words.size() > 1) {
+                long best = Long.MAX_VALUE;
+                for (Word w : words) {
+                    String part = w.parts.length > 1 ? mostSelective(w.parts) : null;
+                    long n = estimate(w.compact) + (part == null ? 0 : estimate(part));
+                    if (n < best) {
+                        best = n;
+                        start = w;
+                        startPart = part;
+                    }
+                }
+            }
+            // the most any candidate can score on the other words
+            int others = 0;
+            for (Word w : words) {
+                if (w != start)
+                    others += maxScore(w);
+            }
+
+            PriorityQueue<Hit> top = newTop();
+            BitSet seen = new BitSet(nextOrdinal);
+            int[] rank = new int[1];
+            List<String> sources = startPart == null ? List.of(start.compact) : List.of(start.compact, startPart);
+
+            // exact matches first, then prefixes in term order, then substrings:
+            // a later tier can only beat the current top results by its best score
+            for (String q : sources) {
+                Postings p = terms.get(q);
+                if (p != null && !collect(p, words, limit, top, seen, rank, (p.idDocs > 0 ? EXACT_ID : EXACT) + others))
+                    return results(top);
+            }
+            for (String q : sources) {
+                for (Iterator<String> it = prefixTerms(q); it.hasNext();) {
+                    if (!collect(terms.get(it.next()), words, limit, top, seen, rank, PREFIX + others))
+                        return results(top);
+                }
+            }
+            for (String q : sources) {
+                for (String t : substringTerms(q)) {
+                    if (!collect(terms.get(t), words, limit, top, seen, rank, SUBSTRING + others))
+                        return results(top);
+                }
+            }
+            return results(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean full(PriorityQueue<Hit> top, int limit, int bestRemaining) {
+        return top.size() >= limit && top.peek().score >= bestRemaining;
+    }
+
+    /**
+     * Score the unseen documents of p into top; false once top is full of
+     * scores no remaining candidate (scoring at most bestRemaining) can beat.
+     */
+    private boolean collect(Postings p, List<Word> words, int limit, PriorityQueue<Hit> top, BitSet seen,
+            int[] rank, int bestRemaining) {
+        for (int i = 0; i < p.size; i++) {
+            if (full(top, limit, bestRemaining))
+                return false;
+            int ord = p.ords[i];
+            if (seen.get(ord))
+                continue;
+            seen.set(ord);
+            Doc doc = docs[ord];
+            int score = 0;
+            for (Word w : words) {
+                int s = score(doc, w);
+                if (s == 0) {
+                    score = 0;
+                    break;
+                }
+                score += s;
+            }
+            if (score == 0)
+                continue;
+            offer(top, limit, new Hit(doc.key, score, rank[0]++));
+        }
+        return !full(top, limit, bestRemaining);
+    }
+
+    private static void offer(PriorityQueue<Hit> top, int limit, Hit hit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (hit.score > top.peek().score) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static PriorityQueue<Hit> newTop() {
+        return new PriorityQueue<>(
+                (a, b) -> a.score != b.score ? Integer.compare(a.score, b.score) : Integer.compare(b.rank, a.rank));
+    }
+
+    /**
+     * Documents whose name words are spelled or sound like the words of the
+     * query, best first; identifiers are not compared. Each query word is
+     * matched against the distinct name words sharing its phonetic key or
+     * enough trigrams with it, scored with {@link NameMatcher#similarity} and
+     * kept from {@link NameMatcher#THRESHOLD} up; every query word must match
+     * some name word of the document. A hit's score is the sum of its words'
+     * similarities in percent.
+     */
+    public List<Hit> searchSimilar(String query, int limit) {
+        List<String> words = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (words.isEmpty() || limit <= 0)
+            return Collections.emptyList();
+        lock.readLock().lock();
+        try {
+            List<Map<String, Double>> alike = new ArrayList<>(words.size());
+            Map<String, Double> start = null;
+            long fewest = Long.MAX_VALUE;
+            for (String w : words) {
+                Map<String, Double> similar = similarTerms(w);
+                if (similar.isEmpty())
+                    return Collections.emptyList();
+                alike.add(similar);
+                long n = 0;
+                for (String t : similar.keySet())
+                    n += terms.get(t).size;
+                if (n < fewest) {
+                    fewest = n;
+                    start = similar;
+                }
+            }
+
+            // the most the other words can add, for stopping early
+            double others = 0;
+            for (Map<String, Double> word : alike) {
+                if (word != start)
+                    others += Collections.max(word.values());
+            }
+
+            PriorityQueue<Hit> top = newTop();
+            BitSet seen = new BitSet(nextOrdinal);
+            int rank = 0;
+            // closest spellings first, so ties keep the better-spelled names
+            List<Map.Entry<String, Double>> ordered = new ArrayList<>(start.entrySet());
+            ordered.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+            for (Map.Entry<String, Double> e : ordered) {
+                Postings p = terms.get(e.getKey());
+                int bestRemaining = (int) Math.round((e.getValue() + others) * 100);
+                for (int i = 0; i < p.size; i++) {
+                    if (full(top, limit, bestRemaining))
+                        return results(top);
+                    int ord = p.ords[i];
+                    if (seen.get(ord))
+                        continue;
+                    seen.set(ord);
+                    Doc doc = docs[ord];
+                    double total = 0;
+                    for (Map<String, Double> word : alike) {
+                        double best = 0;
+                        for (String t : doc.names)
+                            best = Math.max(best, word.getOrDefault(t, 0.0));
+                        if (best == 0) {
+                            total = 0;
+                            break;
+                        }
+                        total += best;
+                    }
+                    if (total > 0)
+                        offer(top, limit, new Hit(doc.key, (int) Math.round(total * 100), rank++));
+                }
+            }
+            return results(top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // name words alike enough to w, with their similarity
+    private Map<String, Double> similarTerms(String w) {
+        Set<String> candidates = new HashSet<>(
+                nameTermsByKey.getOrDefault(NameMatcher.phoneticKey(w), Collections.emptySet()));
+        Postings exact = terms.get(w);
+        if (exact != null && exact.nameDocs > 0)
+            candidates.add(w);
+        List<String> grams = grams(w);
+        if (!grams.isEmpty()) {
+            // words sharing at least a third of w's trigrams, of a length an edit or two away
+            Map<String, Integer> shared = new HashMap<>();
+            for (String g : grams) {
+                for (String t : nameTermsByGram.getOrDefault(g, Collections.emptySet())) {
+                    if (Math.abs(t.length() - w.length()) <= 2)
+                        shared.merge(t, 1, Integer::sum);
+                }
+            }
+            int min = Math.max(1, (grams.size() + 2) / 3);
+            for (Map.Entry<String, Integer> e : shared.entrySet()) {
+                if (e.getValue() >= min)
+                    candidates.add(e.getKey());
+            }
+        }
+        Map<String, Double> out = new HashMap<>();
+        for (String t : candidates) {
+            double sim = NameMatcher.similarity(w, t);
+            if (sim >= NameMatcher.THRESHOLD)
+                out.put(t, sim);
+        }
+        return out;
+    }
+
+    private static List<Hit> results(PriorityQueue<Hit> top) {
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort((a, b) -> a.score != b.score ? Integer.compare(b.score, a.score) : Integer.compare(a.rank, b.rank));
+        return hits;
+    }
+
+    private static int score(Doc doc, Word w) {
+        int s = score(doc, w.compact);
+        if (w.parts.length > 1 && s < EXACT) {
+            int all = EXACT_ID;
+            for (String part : w.parts)
+                all = Math.min(all, score(doc, part));
+            s = Math.max(s, all);
+        }
+        return s;
+    }
+
+    private static int score(Doc doc, String q) {
+        int s = 0;
+        for (String t : doc.ids) {
+            if (t.equals(q))
+                return EXACT_ID;
+            if (t.startsWith(q))
+                s = PREFIX;
+        }
+        for (String t : doc.names) {
+            if (t.equals(q))
+                s = Math.max(s, EXACT);
+            else if (t.startsWith(q))
+                s = Math.max(s, PREFIX);
+            else if (s == 0 && q.length() >= GRAM && t.contains(q))
+                s = SUBSTRING;
+        }
+        return s;
+    }
+
+    // upper bound of score(doc, w) over all documents
+    private int maxScore(Word w) {
+        int s = maxScore(w.compact);
+        if (w.parts.length > 1 && s < EXACT) {
+            int all = EXACT_ID;
+            for (String part : w.parts)
+                all = Math.min(all, maxScore(part));
+            s = Math.max(s, all);
+        }
+        return s;
+    }
+
+    private int maxScore(String q) {
+        Postings p = terms.get(q);
+        if (p != null)
+            return p.idDocs > 0 ? EXACT_ID : EXACT;
+        if (prefixTerms(q).hasNext())
+            return PREFIX;
+        return substringTerms(q).isEmpty() ? 0 : SUBSTRING;
+    }
+
+    private String mostSelective(String[] parts) {
+        String best = parts[0];
+        long n = Long.MAX_VALUE;
+        for (String part : parts) {
+            long e = estimate(part);
+            if (e < n) {
+                n = e;
+                best = part;
+            }
+        }
+        return best;
+    }
+
+    // documents matching q in some way, counted up to a cap
+    private long estimate(String q) {
+        Postings exact = terms.get(q);
+        long n = exact == null ? 0 : exact.size;
+        Iterator<String> it = prefixTerms(q);
+        for (int seen = 0; it.hasNext() && n < ESTIMATE_CAP; seen++) {
+            if (seen == ESTIMATE_TERMS)
+                return ESTIMATE_CAP;
+            n += terms.get(it.next()).size;
+        }
+        if (n >= ESTIMATE_CAP)
+            return n;
+        for (String t : substringTerms(q))
+            n += terms.get(t).size;
+        return n;
+    }
+
+    // name words containing q past their first letter, in term order
+    private List<String> substringTerms(String q) {
+        if (q.length() < GRAM)
+            return Collections.emptyList();
+        Set<String> candidates = null;
+        for (String g : grams(q)) {
+            Set<String> set = nameTermsByGram.get(g);
+            if (set == null)
+                return Collections.emptyList();
+            if (candidates == null || set.size() < candidates.size())
+                candidates = set;
+        }
+        List<String> out = new ArrayList<>();
+        for (String t : candidates) {
+            if (t.contains(q) && !t.startsWith(q))
+                out.add(t);
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    private static List<String> grams(String term) {
+        if (term.length() < GRAM)
+            return Collections.emptyList();
+        List<String> out = new ArrayList<>(term.length() - GRAM + 1);
+        for (int i = 0; i + GRAM <= term.length(); i++)
+            out.add(term.substring(i, i + GRAM));
+        return out;
+    }
+
+    private static List<Word> parse(String query) {
+        List<Word> out = new ArrayList<>();
+        if (query == null)
+            return out;
+        for (String raw : query.trim().split("\\s+")) {
+            List<String> parts = words(raw);
+            if (parts.isEmpty())
+                continue;
+            out.add(new Word(String.join("", parts), parts.toArray(NONE)));
+        }
+        return out;
+    }
+
+    /** Lower-case, accent-free words of a text (runs of letters and digits). */
+    static List<String> words(String text) {
+        if (text == null || text.isBlank())
+            return Collections.emptyList();
+        String s = normalize(text);
+        List<String> out = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /** The words of a text run together ("0917-123 4567" is "09171234567"). */
+    static String compact(String text) {
+        return String.join("", words(text));
+    }
+
+    static String normalize(String text) {
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++)
+            ascii = text.charAt(i) < 128;
+        if (ascii)
+            return text.toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(text.length());
+        for (char c : Normalizer.normalize(text, Normalizer.Form.NFD).toCharArray()) {
+            int type = Character.getType(c);
+            if (type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK
+                    && type != Character.ENCLOSING_MARK)
+                sb.append(c);
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+}
@@ -4,9 +4,12 @@ import Model.Role;
 import Model.User;
 import Model.UserStatus;
 import Util.PasswordHasher;
+import Util.PasswordHashingPool;
 
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Arrays;
 import java.util.ArrayList;
@@ -19,9 +22,19 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * Replace with a DB-backed repo later. This keeps UI code clean and centralizes
  * auth logic.
+ *
+ * Users are keyed by lowercase username, with secondary indexes on id, staff
+ * number (case-insensitive) and linked patient id so lookups by those are O(1).
+ * All four maps are written together under one lock; reads do not lock. Code
+ * that changes a user's staff number or patient link directly on the User
+ * should call {@link #reindex(User)} (or use {@link #linkPatient}).
  */
 public class UserService {
     private final Map<String, User> usersByUsername = new ConcurrentHashMap<>();
+    private final Map<String, Indexed> usersById = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByStaffNumber = new ConcurrentHashMap<>();
+    private final Map<String, User> usersByLinkedPatientId = new ConcurrentHashMap<>();
+    private final Object indexLock = new Object();
     // simple in-memory counter for auto-generated passwords (PW000001, PW000002,
     // ...)
     private final AtomicInteger autoPwCounter = new AtomicInteger(1);
@@ -38,6 +51,82 @@ public class UserService {
     public UserService() {
     }
 
+    /** A registered user plus the keys it is currently indexed under. */
+    private static final class Indexed {
+        final User user;
+        final String usernameKey;
+        final String staffKey;
+        final String linkKey;
+
+        Indexed(User user, String usernameKey) {
+            this.user = user;
+            this.usernameKey = usernameKey;
+            this.staffKey = staffKey(user.getStaffNumber());
+            this.linkKey = user.getLinkedPatientId();
+        }
+    }
+
+    private static String staffKey(String staffNumber) {
+        return staffNumber == null ? null : staffNumber.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private void index(String usernameKey, User user) {
+        synchronized (indexLock) {
+            User previous = usersByUsername.get(usernameKey);
+            if (previous != null && previous != user)
+                unindex(previous);
+            Indexed old = usersById.get(user.getId());
+            if (old != null)
+                unindex(old.user);
+            Indexed ix = new Indexed(user, usernameKey);
+            usersById.put(user.getId(), ix);
+            if (ix.staffKey != null)
+                usersByStaffNumber.put(ix.staffKey, user);
+            if (ix.linkKey != null)
+                usersByLinkedPatientId.put(ix.linkKey, user);
+            usersByUsername.put(usernameKey, user);
+        }
+    }
+
+    /** Caller holds indexLock. */
+    private void unindex(User user) {
+        Indexed ix = usersById.get(user.getId());
+        if (ix == null || ix.user != user)
+            return;
+        usersByUsername.remove(ix.usernameKey, user);
+        usersById.remove(user.getId(), ix);
+        if (ix.staffKey != null)
+            usersByStaffNumber.remove(ix.staffKey, user);
+        if (ix.linkKey != null)
+            usersByLinkedPatientId.remove(ix.linkKey, user);
+    }
+
+    /**
+     * Refresh the staff number / linked patient indexes after those fields were
+     * changed on a registered user. Unknown users are ignored.
+     */
+    public void reindex(User user) {
+        if (user == null)
+            return;
+        synchronized (indexLock) {
+            Indexed ix = usersById.get(user.getId());
+            if (ix != null && ix.user == user)
+                index(ix.usernameKey, user);
+        }
+    }
+
+    /** Link a user account to a patient record and keep the index current. */
+    public void linkPatient(User user, String patientId) {
+        user.setLinkedPatientId(patientId);
+        reindex(user);
+        changed(user);
+    }
+
+    // tell ChangeBus subscribers about an in-memory edit of a user
+    private static void changed(User user) {
+        Repository.ChangeBus.getInstance().publish(User.class, Repository.ChangeEvent.Kind.UPDATED, user.getId(), user);
+    }
+
     /**
      * Generate the next auto password in plain text (e.g. PW000001) and advance the
      * counter.
@@ -89,7 +178,14 @@ public class UserService {
         }
 
         // Also keep in memory for fast access
-        usersByUsername.put(normalized, user);
+        index(normalized, user);
+        UsernameAllocator.getInstance().register(normalized);
+        // forget the user again if an enclosing unit of work rolls back
+        Repository.Transaction.onRollback(() -> {
+            synchronized (indexLock) {
+                unindex(user);
+            }
+        });
         return user;
     }
 
@@ -110,8 +206,29 @@ public class UserService {
         if (staffNumber == null)
             return java.util.Optional.empty();
         String s = staffNumber.trim();
-        return usersByUsername.values().stream()
-                .filter(u -> u.getStaffNumber() != null && u.getStaffNumber().equalsIgnoreCase(s)).findFirst();
+        User u = usersByStaffNumber.get(staffKey(s));
+        if (u == null)
+            return java.util.Optional.empty();
+        if (u.getStaffNumber() == null || !u.getStaffNumber().equalsIgnoreCase(s)) {
+            // changed on the User without reindex()
+            reindex(u);
+            return java.util.Optional.empty();
+        }
+        return java.util.Optional.of(u);
+    }
+
+    /** The account linked to a patient record, if any. */
+    public Optional<User> findByLinkedPatientId(String patientId) {
+        if (patientId == null)
+            return Optional.empty();
+        User u = usersByLinkedPatientId.get(patientId);
+        if (u == null)
+            return Optional.empty();
+        if (!patientId.equals(u.getLinkedPatientId())) {
+            reindex(u);
+            return Optional.empty();
+        }
+        return Optional.of(u);
     }
 
     /**
@@ -120,6 +237,10 @@ public class UserService {
      * clearing can be
      * added if desired. (We avoid clearing here to prevent surprises for callers
      * that reuse it.)
+     *
+     * Hashing is slow on purpose; UI code should use {@link #authenticateAsync}.
+     * A hash stored with fewer than the current iterations is replaced after a
+     * successful login.
      */
     public Optional<User> authenticate(String username, char[] password) {
         if (username == null)
@@ -128,15 +249,51 @@ public class UserService {
         User user = usersByUsername.get(normalized);
         if (user == null)
             return Optional.empty();
-        boolean ok = PasswordHasher.verify(password, user.getPasswordHash());
+        String stored = user.getPasswordHash();
+        boolean ok = PasswordHasher.verify(password, stored);
         if (!ok)
             return Optional.empty();
         // Ensure account is active
         if (user.getStatus() != UserStatus.ACTIVE)
             return Optional.empty();
+        if (PasswordHasher.needsRehash(stored))
+            rehash(user, stored, password);
         return Optional.of(user);
     }
 
+    /**
+     * Authenticate on the password hashing pool. The password is copied, so the
+     * caller may clear its array as soon as this returns. The future fails with
+     * RejectedExecutionException when too many logins are already waiting.
+     */
+    public CompletableFuture<Optional<User>> authenticateAsync(String username, char[] password) {
+        char[] copy = password == null ? null : password.clone();
+        return PasswordHashingPool.getInstance().submit(() -> {
+            try {
+                return authenticate(username, copy);
+            } finally {
+                if (copy != null)
+                    Arrays.fill(copy, '\0');
+            }
+        });
+    }
+
+    private void rehash(User user, String stored, char[] password) {
+        String upgraded = PasswordHasher.hash(password);
+        synchronized (user) {
+            // a concurrent password change (set under this lock too) wins over the upgrade
+            if (!stored.equals(user.getPasswordHash()))
+                return;
+            user.setPasswordHash(upgraded);
+        }
+        try {
+            Repository.UserRepository.getInstance().save(user);
+        } catch (Exception ex) {
+            System.err.println("[UserService] Could not persist rehashed password for " + user.getUsername() + ": "
+                    + ex.getMessage());
+        }
+    }
+
     /**
      * Change password for an existing user. Returns true if changed.
      * Clears both currentPassword and newPassword arrays (best-effort) after use.
@@ -154,7 +311,10 @@ public class UserService {
         // Clear new password chars ASAP
         Arrays.fill(newPassword, '\0');
         User user = opt.get();
-        user.setPasswordHash(newHash);
+        // under the user's lock, so a login rehash in progress cannot overwrite it
+        synchronized (user) {
+            user.setPasswordHash(newHash);
+        }
         return true;
     }
 
@@ -168,10 +328,22 @@ public class UserService {
         return new ArrayList<>(usersByUsername.values());
     }
 
+    /** Number of persisted users matching a list search (see UserRepository#countUserSummaries). */
+    public long countUserSummaries(String search) {
+        return Repository.UserRepository.getInstance().countUserSummaries(search);
+    }
+
+    /** One keyset page of user list rows, read from the database. */
+    public List<DTO.UserDTO> findUserSummaryPage(String search, String afterId, int skip, int limit,
+            Repository.Sort sort) {
+        return Repository.UserRepository.getInstance().findUserSummaryPage(search, afterId, skip, limit, sort);
+    }
+
     public Optional<User> findById(String id) {
         if (id == null)
             return Optional.empty();
-        return usersByUsername.values().stream().filter(u -> id.equals(u.getId())).findFirst();
+        Indexed ix = usersById.get(id);
+        return ix == null ? Optional.empty() : Optional.of(ix.user);
     }
 
     public boolean updateRoleById(String id, Role newRole) {
@@ -179,56 +351,100 @@ public class UserService {
         if (opt.isEmpty())
             return false;
         opt.get().setRole(newRole);
+        changed(opt.get());
         return true;
     }
 
+    /**
+     * Like {@link #findById}, but a user that is only in the database (e.g.
+     * created in an earlier session and listed from the users table) is read
+     * from there and registered, so id-based admin actions work on every
+     * listed user.
+     */
+    private Optional<User> loadById(String id) {
+        Optional<User> cached = findById(id);
+        if (cached.isPresent() || id == null)
+            return cached;
+        Optional<User> stored = Repository.UserRepository.getInstance().findById(id);
+        stored.ifPresent(u -> {
+            synchronized (indexLock) {
+                if (!usersById.containsKey(id))
+                    index(u.getUsername().trim().toLowerCase(), u);
+            }
+        });
+        return stored.isPresent() ? findById(id) : stored;
+    }
+
+    // write an admin change through to the users table (publishes UPDATED on success); false if it failed
+    private static boolean persist(User user) {
+        boolean saved = Repository.UserRepository.getInstance().trySave(user);
+        if (!saved)
+            System.err.println("[UserService] Could not persist changes to " + user.getUsername());
+        return saved;
+    }
+
     public boolean resetPasswordById(String id, char[] newPassword) {
-        Optional<User> opt = findById(id);
+        Optional<User> opt = loadById(id);
         if (opt.isEmpty())
             return false;
         validatePassword(newPassword);
         String newHash = PasswordHasher.hash(newPassword);
         Arrays.fill(newPassword, '\0');
-        opt.get().setPasswordHash(newHash);
-        return true;
+        User user = opt.get();
+        String oldHash;
+        synchronized (user) {
+            oldHash = user.getPasswordHash();
+            user.setPasswordHash(newHash);
+        }
+        if (persist(user))
+            return true;
+        // keep memory in line with the table: the old password still works
+        synchronized (user) {
+            if (newHash.equals(user.getPasswordHash()))
+                user.setPasswordHash(oldHash);
+        }
+        return false;
     }
 
     public boolean deleteById(String id) {
         if (id == null)
             return false;
-        String keyToRemove = null;
-        for (Map.Entry<String, User> e : usersByUsername.entrySet()) {
-            if (id.equals(e.getValue().getId())) {
-                keyToRemove = e.getKey();
-                break;
-            }
-        }
-        if (keyToRemove != null) {
-            usersByUsername.remove(keyToRemove);
-            return true;
+        synchronized (indexLock) {
+            Indexed ix = usersById.get(id);
+            if (ix == null)
+                return false;
+            unindex(ix.user);
         }
-        return false;
+        Repository.ChangeBus.getInstance().publish(User.class, Repository.ChangeEvent.Kind.DELETED, id, null);
+        return true;
     }
 
     // Deactivate user (soft delete) and activate back
     public boolean deactivateById(String id) {
-        Optional<User> opt = findById(id);
+        Optional<User> opt = loadById(id);
         if (opt.isEmpty())
             return false;
         User u = opt.get();
         if (u.getRole() == Role.ADMIN)
             return false; // protect admin
-        u.setStatus(Model.UserStatus.INACTIVE);
-        return true;
+        return setStatus(u, Model.UserStatus.INACTIVE);
     }
 
     public boolean activateById(String id) {
-        Optional<User> opt = findById(id);
+        Optional<User> opt = loadById(id);
         if (opt.isEmpty())
             return false;
-        User u = opt.get();
-        u.setStatus(Model.UserStatus.ACTIVE);
-        return true;
+        return setStatus(opt.get(), Model.UserStatus.ACTIVE);
+    }
+
+    // change and persist a status; restored in memory if the write fails
+    private static boolean setStatus(User u, UserStatus status) {
+        UserStatus old = u.getStatus();
+        u.setStatus(status);
+        if (persist(u))
+            return true;
+        u.setStatus(old);
+        return false;
     }
 
     public java.util.List<User> findDeactivatedByRole(Role role) {
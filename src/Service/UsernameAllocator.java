@@ -0,0 +1,86 @@
+package Service;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Hands out free usernames of the form base, base1, base2, ... without probing.
+ *
+ * For every base name the highest suffix in use is kept in a counter
+ * (-1 = base unused, 0 = bare base taken). The counters are seeded from the
+ * users table and the in-memory UserService on first use. Every username
+ * created afterwards is reported through {@link #register}, so concurrent
+ * registrations cannot get the same name: allocation is a single atomic
+ * increment.
+ */
+public final class UsernameAllocator {
+    // longer digit runs are treated as part of the base name
+    private static final int MAX_SUFFIX_DIGITS = 9;
+    // guard against names taken behind the allocator's back (e.g. rows inserted directly)
+    private static final int MAX_VERIFY_ATTEMPTS = 16;
+
+    private final ConcurrentHashMap<String, AtomicInteger> highestSuffix = new ConcurrentHashMap<>();
+
+    private static final class Holder {
+        static final UsernameAllocator INSTANCE = seeded();
+    }
+
+    public static UsernameAllocator getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private static UsernameAllocator seeded() {
+        UsernameAllocator allocator = new UsernameAllocator();
+        try {
+            for (String username : Repository.UserRepository.getInstance().findAllUsernames())
+                allocator.register(username);
+        } catch (Exception ex) {
+            System.err.println("[UsernameAllocator] Could not seed from database: " + ex.getMessage());
+        }
+        for (Model.User u : UserService.getInstance().getAllUsers())
+            allocator.register(u.getUsername());
+        return allocator;
+    }
+
+    /** Record a username as taken. */
+    public void register(String username) {
+        if (username == null || username.isBlank())
+            return;
+        String name = username.trim().toLowerCase(Locale.ROOT);
+        int digits = 0;
+        while (digits < name.length() && Character.isDigit(name.charAt(name.length() - 1 - digits)))
+            digits++;
+        String base = name;
+        int suffix = 0;
+        if (digits > 0 && digits <= MAX_SUFFIX_DIGITS && digits < name.length()) {
+            base = name.substring(0, name.length() - digits);
+            suffix = Integer.parseInt(name.substring(name.length() - digits));
+        }
+        highestSuffix.computeIfAbsent(base, k -> new AtomicInteger(-1)).accumulateAndGet(suffix, Math::max);
+    }
+
+    /** Reserve the next free username for a base name. */
+    public String allocate(String base) {
+        return allocate(base, name -> false);
+    }
+
+    /**
+     * Reserve the next free username for a base name, skipping names the
+     * {@code taken} check reports as used. The check only runs for the allocated
+     * candidate, so with consistent registration it is called once.
+     */
+    public String allocate(String base, Predicate<String> taken) {
+        String b = base.trim().toLowerCase(Locale.ROOT);
+        AtomicInteger counter = highestSuffix.computeIfAbsent(b, k -> new AtomicInteger(-1));
+        String name = null;
+        for (int i = 0; i < MAX_VERIFY_ATTEMPTS; i++) {
+            int n = counter.incrementAndGet();
+            name = n == 0 ? b : b + n;
+            if (!taken.test(name))
+                return name;
+        }
+        return name;
+    }
+}
@@ -4,9 +4,6 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
-import javax.swing.RowFilter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -209,11 +206,14 @@ public class AdminDashboardPanel extends JPanel implements GlobalSearchable {
 
     // Tables (exposed for future data binding)
     private JTable userTable;
+    private PagedTableModel<DTO.UserDTO> userModel;
+    private static final int USER_PAGE_SIZE = 100;
     private JTable paymentTable;
     // Global search/filter state
     private String globalSearchQuery;
     private final Map<String, Map<String, String>> columnFilters = new HashMap<>();
     private final UserService userService = UserService.getInstance();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
     private final String currentUsername;
     // NEW: username label reference to control visibility
     private JLabel userTagLabel;
@@ -492,13 +492,23 @@ public class AdminDashboardPanel extends JPanel implements GlobalSearchable {
         root.add(topPanel, BorderLayout.NORTH);
 
         String[] cols = { "Username", "Role" };
-        DefaultTableModel model = new DefaultTableModel(cols, 0) {
-            @Override
-            public boolean isCellEditable(int r, int c) {
-                return false;
-            }
-        };
-        userTable = new JTable(model);
+        // pages of users are read from the database as the table scrolls; search and sort run in SQL
+        userModel = new PagedTableModel<>("users", cols, new String[] { "username", "role" },
+                u -> new Object[] { u.getUsername(), u.getRole() }, DTO.UserDTO::getId,
+                new PagedTableModel.Source<DTO.UserDTO>() {
+                    @Override
+                    public long count(String search) {
+                        return userService.countUserSummaries(search);
+                    }
+
+                    @Override
+                    public List<DTO.UserDTO> page(String search, String afterId, int skip, int limit,
+                            Repository.Sort sort) {
+                        return userService.findUserSummaryPage(search, afterId, skip, limit, sort);
+                    }
+                }, loader, USER_PAGE_SIZE);
+        userTable = new JTable(userModel);
+        userModel.installHeaderSorting(userTable);
         // load users from service
         reloadUsersTable();
 
@@ -522,11 +532,7 @@ public class AdminDashboardPanel extends JPanel implements GlobalSearchable {
     }
 
     private void reloadUsersTable() {
-        DefaultTableModel model = (DefaultTableModel) userTable.getModel();
-        model.setRowCount(0);
-        for (User u : userService.getAllUsers()) {
-            model.addRow(new Object[] { u.getUsername(), u.getRole().name() });
-        }
+        userModel.refresh();
     }
 
     // PAYMENT PANEL ----------------------------------------------------
@@ -759,58 +765,13 @@ public class AdminDashboardPanel extends JPanel implements GlobalSearchable {
         getSearchableTables().forEach(this::applyFiltersToTable);
     }
 
-    @SuppressWarnings("unchecked")
     private void applyFiltersToTable(String logicalName, JTable table) {
-        if (table.getRowSorter() == null) {
-            table.setRowSorter(new TableRowSorter<>(table.getModel()));
-        }
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) table.getRowSorter();
-        List<RowFilter<TableModel, Object>> filters = new ArrayList<>();
-        if (globalSearchQuery != null) {
-            final String q = globalSearchQuery.toLowerCase();
-            filters.add(new RowFilter<TableModel, Object>() {
-                @Override
-                public boolean include(Entry<? extends TableModel, ? extends Object> entry) {
-                    int cols = entry.getValueCount();
-                    for (int i = 0; i < cols; i++) {
-                        Object v = entry.getValue(i);
-                        if (v != null && v.toString().toLowerCase().contains(q))
-                            return true;
-                    }
-                    return false;
-                }
-            });
-        }
-        Map<String, String> colMap = columnFilters.get(logicalName);
-        if (colMap != null) {
-            for (Map.Entry<String, String> e : colMap.entrySet()) {
-                String colName = e.getKey();
-                String val = e.getValue();
-                if (val == null || val.isBlank())
-                    continue;
-                int colIndex;
-                try {
-                    colIndex = table.getColumnModel().getColumnIndex(colName);
-                } catch (IllegalArgumentException ex) {
-                    continue;
-                }
-                final String qv = val.toLowerCase();
-                filters.add(new RowFilter<TableModel, Object>() {
-                    @Override
-                    public boolean include(Entry<? extends TableModel, ? extends Object> entry) {
-                        Object v = entry.getValue(colIndex);
-                        return v != null && v.toString().toLowerCase().contains(qv);
-                    }
-                });
-            }
-        }
-        if (filters.isEmpty()) {
-            sorter.setRowFilter(null);
-        } else if (filters.size() == 1) {
-            sorter.setRowFilter(filters.get(0));
-        } else {
-            sorter.setRowFilter(RowFilter.andFilter(filters));
+        if (table.getModel() instanceof PagedTableModel) {
+            // paged tables filter in SQL; a RowSorter would read every row (column filters are not pushed down)
+            ((PagedTableModel<?>) table.getModel()).setSearch(globalSearchQuery);
+            return;
         }
+        TableFilter.of(table, loader).filter(globalSearchQuery, columnFilters.get(logicalName));
     }
 
     // HELPERS & PLACEHOLDERS -----------------------------------------
@@ -839,90 +800,82 @@ public class AdminDashboardPanel extends JPanel implements GlobalSearchable {
     }
 
     private void filterUserTable(String query) {
-        if (userTable == null)
+        if (userModel == null)
             return;
-        if (userTable.getRowSorter() == null)
-            userTable.setRowSorter(new TableRowSorter<>(userTable.getModel()));
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) userTable.getRowSorter();
-        if (query == null || query.isBlank()) {
-            sorter.setRowFilter(null);
-            return;
-        }
-        final String q = "(?i).*" + java.util.regex.Pattern.quote(query.trim()) + ".*";
-        sorter.setRowFilter(RowFilter.regexFilter(q));
+        userModel.setSearch(query);
     }
 
     private void filterPaymentTable(String query) {
         if (paymentTable == null)
             return;
-        if (paymentTable.getRowSorter() == null)
-            paymentTable.setRowSorter(new TableRowSorter<>(paymentTable.getModel()));
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) paymentTable.getRowSorter();
-        if (query == null || query.isBlank()) {
-            sorter.setRowFilter(null);
-            return;
-        }
-        final String q = "(?i).*" + java.util.regex.Pattern.quote(query.trim()) + ".*";
-        sorter.setRowFilter(RowFilter.regexFilter(q));
+        TableFilter.of(paymentTable, loader).filter(query);
     }
 
     private void openEditUserDialog() {
-        int r = userTable.getSelectedRow();
-        if (r < 0) {
-            JOptionPane.showMessageDialog(this, "Select a user to edit.", "Edit User", JOptionPane.WARNING_MESSAGE);
+        DTO.UserDTO u = selectedUser("Edit User", "edit");
+        if (u == null)
             return;
-        }
-        String uname = userTable.getValueAt(userTable.convertRowIndexToModel(r), 0).toString();
+        String uname = u.getUsername();
         JOptionPane.showMessageDialog(this, "Edit user feature not implemented yet for: " + uname, "Edit User",
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
     private void openResetPasswordDialog() {
-        int r = userTable.getSelectedRow();
-        if (r < 0) {
-            JOptionPane.showMessageDialog(this, "Select a user to reset password.", "Reset Password",
-                    JOptionPane.WARNING_MESSAGE);
+        DTO.UserDTO u = selectedUser("Reset Password", "reset password");
+        if (u == null)
             return;
+        String uname = u.getUsername();
+        int ok = JOptionPane.showConfirmDialog(this, "Reset password for " + uname + "?", "Reset Password",
+                JOptionPane.YES_NO_OPTION);
+        if (ok == JOptionPane.YES_OPTION) {
+            String newPw = userService.generateNextPlainPassword();
+            boolean changed = userService.resetPasswordById(u.getId(), newPw.toCharArray());
+            if (changed)
+                JOptionPane.showMessageDialog(this, "Password reset. New password: " + newPw, "Password Reset",
+                        JOptionPane.INFORMATION_MESSAGE);
+            else
+                JOptionPane.showMessageDialog(this, "Failed to reset password for " + uname
+                        + " (user not found or could not be saved).", "Error", JOptionPane.ERROR_MESSAGE);
         }
-        String uname = userTable.getValueAt(userTable.convertRowIndexToModel(r), 0).toString();
-        userService.findByUsername(uname).ifPresentOrElse(u -> {
-            int ok = JOptionPane.showConfirmDialog(this, "Reset password for " + uname + "?", "Reset Password",
-                    JOptionPane.YES_NO_OPTION);
-            if (ok == JOptionPane.YES_OPTION) {
-                String newPw = userService.generateNextPlainPassword();
-                boolean changed = userService.resetPasswordById(u.getId(), newPw.toCharArray());
-                if (changed)
-                    JOptionPane.showMessageDialog(this, "Password reset. New password: " + newPw, "Password Reset",
-                            JOptionPane.INFORMATION_MESSAGE);
-                else
-                    JOptionPane.showMessageDialog(this, "Failed to reset password.", "Error",
-                            JOptionPane.ERROR_MESSAGE);
-            }
-        }, () -> JOptionPane.showMessageDialog(this, "User not found: " + uname, "Error", JOptionPane.ERROR_MESSAGE));
     }
 
     private void openDeactivateUserDialog() {
+        DTO.UserDTO u = selectedUser("Deactivate User", "deactivate");
+        if (u == null)
+            return;
+        String uname = u.getUsername();
+        int ok = JOptionPane.showConfirmDialog(this, "Deactivate user " + uname + "?", "Deactivate",
+                JOptionPane.YES_NO_OPTION);
+        if (ok == JOptionPane.YES_OPTION) {
+            boolean deact = userService.deactivateById(u.getId());
+            if (deact) {
+                JOptionPane.showMessageDialog(this, "User deactivated.", "Deactivated",
+                        JOptionPane.INFORMATION_MESSAGE);
+                reloadUsersTable();
+            } else
+                JOptionPane.showMessageDialog(this, "Could not deactivate user (not found, protected role or not saved).",
+                        "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * The user row selected in the user table, or null (after telling the
+     * admin why) when nothing is selected or the row's page is still loading.
+     */
+    private DTO.UserDTO selectedUser(String title, String action) {
         int r = userTable.getSelectedRow();
         if (r < 0) {
-            JOptionPane.showMessageDialog(this, "Select a user to deactivate.", "Deactivate User",
+            JOptionPane.showMessageDialog(this, "Select a user to " + action + ".", title,
                     JOptionPane.WARNING_MESSAGE);
-            return;
+            return null;
         }
-        String uname = userTable.getValueAt(userTable.convertRowIndexToModel(r), 0).toString();
-        userService.findByUsername(uname).ifPresentOrElse(u -> {
-            int ok = JOptionPane.showConfirmDialog(this, "Deactivate user " + uname + "?", "Deactivate",
-                    JOptionPane.YES_NO_OPTION);
-            if (ok == JOptionPane.YES_OPTION) {
-                boolean deact = userService.deactivateById(u.getId());
-                if (deact) {
-                    JOptionPane.showMessageDialog(this, "User deactivated.", "Deactivated",
-                            JOptionPane.INFORMATION_MESSAGE);
-                    reloadUsersTable();
-                } else
-                    JOptionPane.showMessageDialog(this, "Could not deactivate user (protected role?).", "Error",
-                            JOptionPane.ERROR_MESSAGE);
-            }
-        }, () -> JOptionPane.showMessageDialog(this, "User not found: " + uname, "Error", JOptionPane.ERROR_MESSAGE));
+        DTO.UserDTO u = userModel.getRow(userTable.convertRowIndexToModel(r));
+        if (u == null) {
+            JOptionPane.showMessageDialog(this, "This user is still loading. Please try again in a moment.", title,
+                    JOptionPane.INFORMATION_MESSAGE);
+            return null;
+        }
+        return u;
     }
 
     private void openExportDialog() {
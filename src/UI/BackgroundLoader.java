@@ -0,0 +1,184 @@
+package UI;
+
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * Runs a panel's data loads off the event dispatch thread.
+ *
+ * Every load has a key (usually the table it fills). Starting a load cancels
+ * the one still running under the same key, and the results of a cancelled or
+ * superseded load are dropped, so a slow query can never overwrite newer data.
+ * Row loads hand rows to the EDT in chunks while the source is still being
+ * read and leave the old rows on screen until the first chunk arrives. All
+ * loads are cancelled when the owning panel leaves its window (logout, role
+ * switch).
+ *
+ * Cancelling does not interrupt the worker thread (that would break pooled
+ * JDBC connections); a query already sent runs to completion, but no further
+ * rows are read and nothing reaches the UI. Call all methods on the EDT.
+ */
+public final class BackgroundLoader {
+    private static final int CHUNK_SIZE = 200;
+
+    private final Map<String, SwingWorker<?, ?>> running = new HashMap<>();
+
+    public BackgroundLoader(JComponent owner) {
+        owner.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0 && !owner.isDisplayable())
+                cancelAll();
+        });
+    }
+
+    /** Compute a value in the background and hand it to {@code onLoaded} on the EDT. */
+    public <R> void load(String key, Callable<R> task, Consumer<R> onLoaded) {
+        load(key, task, onLoaded, null);
+    }
+
+    /**
+     * Like {@link #load(String, Callable, Consumer)}, but if the task throws,
+     * {@code onFailed} (may be null) gets the error on the EDT after it is
+     * logged. Neither callback runs for a cancelled or superseded load.
+     */
+    public <R> void load(String key, Callable<R> task, Consumer<R> onLoaded, Consumer<Throwable> onFailed) {
+        start(key, new SwingWorker<R, Void>() {
+            @Override
+            protected R doInBackground() throws Exception {
+                return task.call();
+            }
+
+            @Override
+            protected void done() {
+                if (!finish(key, this))
+                    return;
+                R value;
+                try {
+                    value = get();
+                } catch (InterruptedException | ExecutionException | CancellationException ex) {
+                    Throwable cause = failed(key, ex);
+                    if (onFailed != null)
+                        onFailed.accept(cause);
+                    return;
+                }
+                onLoaded.accept(value);
+            }
+        });
+    }
+
+    /**
+     * Read rows in the background and deliver them to {@code onRows} on the EDT
+     * in chunks. {@code onStart} runs just before the first chunk (or at the end
+     * for an empty result) so callers can clear their old rows there;
+     * {@code onDone} (may be null) runs after the last one. The stream is closed
+     * by the loader.
+     */
+    public <R> void loadRows(String key, Callable<? extends Stream<? extends R>> rows, Runnable onStart,
+            Consumer<List<R>> onRows, Runnable onDone) {
+        boolean[] started = new boolean[1];
+        Runnable begin = () -> {
+            if (!started[0]) {
+                started[0] = true;
+                onStart.run();
+            }
+        };
+        start(key, new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                try (Stream<? extends R> s = rows.call()) {
+                    Iterator<? extends R> it = s.iterator();
+                    while (it.hasNext() && !isCancelled()) {
+                        List<R> chunk = new ArrayList<>(CHUNK_SIZE);
+                        while (chunk.size() < CHUNK_SIZE && it.hasNext())
+                            chunk.add(it.next());
+                        // invokeLater is FIFO, so chunks arrive in order and before done()
+                        SwingUtilities.invokeLater(() -> {
+                            if (isCurrent(key, this)) {
+                                begin.run();
+                                onRows.accept(chunk);
+                            }
+                        });
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                if (!finish(key, this))
+                    return;
+                try {
+                    get();
+                    begin.run();
+                    if (onDone != null)
+                        onDone.run();
+                } catch (InterruptedException | ExecutionException | CancellationException ex) {
+                    failed(key, ex);
+                }
+            }
+        });
+    }
+
+    /** Replace the rows of a table model with the given rows, loaded in the background. */
+    public void loadTable(String key, DefaultTableModel model, Callable<? extends Stream<Object[]>> rows,
+            Runnable onDone) {
+        loadRows(key, rows, () -> model.setRowCount(0), chunk -> {
+            for (Object[] row : chunk)
+                model.addRow(row);
+        }, onDone);
+    }
+
+    public boolean isLoading(String key) {
+        return running.containsKey(key);
+    }
+
+    public void cancel(String key) {
+        SwingWorker<?, ?> worker = running.remove(key);
+        if (worker != null)
+            worker.cancel(false);
+    }
+
+    public void cancelAll() {
+        for (SwingWorker<?, ?> worker : running.values())
+            worker.cancel(false);
+        running.clear();
+    }
+
+    private void start(String key, SwingWorker<?, ?> worker) {
+        SwingWorker<?, ?> previous = running.put(key, worker);
+        if (previous != null)
+            previous.cancel(false);
+        worker.execute();
+    }
+
+    private boolean isCurrent(String key, SwingWorker<?, ?> worker) {
+        return running.get(key) == worker && !worker.isCancelled();
+    }
+
+    // true if the worker's result should be used; forgets it either way
+    private boolean finish(String key, SwingWorker<?, ?> worker) {
+        if (!isCurrent(key, worker))
+            return false;
+        running.remove(key);
+        return true;
+    }
+
+    // log a failed load; returns what the task threw
+    private static Throwable failed(String key, Exception ex) {
+        Throwable cause = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+        System.err.println("[BackgroundLoader] Load '" + key + "' failed: " + cause);
+        return cause;
+    }
+}
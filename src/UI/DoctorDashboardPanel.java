@@ -4,9 +4,6 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
-import javax.swing.RowFilter;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
@@ -22,6 +19,7 @@ import java.util.Map;
 import Controller.DoctorController;
 import Model.Appointment;
 import Service.AppointmentService;
+import Service.MedicalRecordService;
 import Service.PatientService;
 
 public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
@@ -67,6 +65,7 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
     private String globalSearchQuery;
     private final Map<String, Map<String,String>> columnFilters = new HashMap<>();
     private final String currentUsername;
+    private final BackgroundLoader loader = new BackgroundLoader(this);
     // Username label no longer displayed
     private JLabel userTagLabel;
 
@@ -271,7 +270,8 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
         JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0)); actionPanel.setOpaque(false);
         JButton btnView = new JButton("View"); styleSecondaryButton(btnView); btnView.addActionListener(e -> openViewPatientDialog());
         JButton btnArchive = new JButton("Archive"); styleSecondaryButton(btnArchive); btnArchive.addActionListener(e -> openArchivePatientDialog());
-        actionPanel.add(btnView); actionPanel.add(btnArchive);
+        JButton btnSearchNotes = new JButton("Search Notes"); styleSecondaryButton(btnSearchNotes); btnSearchNotes.addActionListener(e -> openSearchNotesDialog());
+        actionPanel.add(btnView); actionPanel.add(btnArchive); actionPanel.add(btnSearchNotes);
         topPanel.add(actionPanel, BorderLayout.EAST);
         root.add(topPanel, BorderLayout.NORTH);
 
@@ -296,12 +296,10 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
 
     private void reloadPatientsTable() {
         DefaultTableModel m = (DefaultTableModel) patientsTable.getModel();
-        m.setRowCount(0);
-        for (Model.Patient p : PatientService.getInstance().listActive()) {
-            m.addRow(new Object[]{p.getId(), (p.getFirstName()==null?"":p.getFirstName()) + " " + (p.getLastName()==null?"":p.getLastName()), p.getDateOfBirth(), p.getGender(), p.getContactNumber()});
-        }
-        // update dashboard counters (simple demo: patients count)
-        if (lblPatients != null) lblPatients.setText("Active Patients: " + m.getRowCount());
+        loader.loadTable("patients", m, () -> PatientService.getInstance().listActiveSummaries().stream()
+                .map(p -> new Object[]{p.getId(), p.getFullName(), p.getDateOfBirth(), p.getGender(), p.getContactNumber()}),
+                // update dashboard counters (simple demo: patients count)
+                () -> { if (lblPatients != null) lblPatients.setText("Active Patients: " + m.getRowCount()); });
     }
 
     // APPOINTMENTS PANEL -----------------------------------------------
@@ -330,28 +328,34 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
 
     private void refreshAppointments() {
         DefaultTableModel m = (DefaultTableModel) appointmentsTable.getModel();
-        m.setRowCount(0);
-        int todaysForDoctor = 0;
-        for (Appointment a : AppointmentService.getInstance().listAll()) {
-            // Skip pending requests here — those belong in the Appointment Requests panel until approved
-            if (a.getStatus() != null && a.getStatus().name().equalsIgnoreCase("PENDING")) continue;
-             String doc = a.getStaffId();
-             if (this.currentUsername != null && !this.currentUsername.isBlank()) {
-                 // show only appointments for this doctor
-                 if (!this.currentUsername.equalsIgnoreCase(doc) && !doc.equalsIgnoreCase(this.currentUsername)) continue;
-             }
-             // Resolve patient display name when possible
-             String patientDisplay = a.getPatientId();
-             java.util.Optional<Model.Patient> pat = PatientService.getInstance().findById(a.getPatientId());
-             if (pat.isPresent()) {
-                 Model.Patient pp = pat.get();
-                 patientDisplay = (pp.getFirstName()==null?"":pp.getFirstName()) + " " + (pp.getLastName()==null?"":pp.getLastName());
-             }
-             m.addRow(new Object[]{a.getId(), a.getPatientId(), patientDisplay, a.getStaffId(), dtf.format(a.getScheduledAt()), a.getReason(), a.getStatus().name()});
-             try { if (a.getScheduledAt().toLocalDate().equals(java.time.LocalDate.now())) todaysForDoctor++; } catch (Exception ignored) {}
-         }
-         // Update dashboard counter
-         if (lblAppointments != null) lblAppointments.setText("Appointments Today: " + todaysForDoctor);
+        // written by the loader thread, read in the completion callback on the EDT
+        int[] todaysForDoctor = {0};
+        loader.loadTable("appointments", m, () -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            java.util.Collection<Appointment> appts = AppointmentService.getInstance().listAll();
+            // one summary query for all patient names instead of a full patient load per row
+            java.util.Map<String, DTO.PatientSummaryDTO> names = PatientService.getInstance().findSummariesByIds(
+                    appts.stream().map(Appointment::getPatientId).collect(java.util.stream.Collectors.toList()));
+            for (Appointment a : appts) {
+                // Skip pending requests here — those belong in the Appointment Requests panel until approved
+                if (a.getStatus() != null && a.getStatus().name().equalsIgnoreCase("PENDING")) continue;
+                String doc = a.getStaffId();
+                if (this.currentUsername != null && !this.currentUsername.isBlank()) {
+                    // show only appointments for this doctor
+                    if (!this.currentUsername.equalsIgnoreCase(doc) && !doc.equalsIgnoreCase(this.currentUsername)) continue;
+                }
+                // Resolve patient display name when possible
+                String patientDisplay = a.getPatientId();
+                DTO.PatientSummaryDTO pat = names.get(a.getPatientId());
+                if (pat != null) patientDisplay = pat.getFullName();
+                rows.add(new Object[]{a.getId(), a.getPatientId(), patientDisplay, a.getStaffId(), dtf.format(a.getScheduledAt()), a.getReason(), a.getStatus().name()});
+                try { if (a.getScheduledAt().toLocalDate().equals(java.time.LocalDate.now())) todaysForDoctor[0]++; } catch (Exception ignored) {}
+            }
+            return rows.stream();
+        }, () -> {
+            // Update dashboard counter
+            if (lblAppointments != null) lblAppointments.setText("Appointments Today: " + todaysForDoctor[0]);
+        });
          try {
              appointmentsTable.getColumnModel().getColumn(0).setMinWidth(0);
              appointmentsTable.getColumnModel().getColumn(0).setMaxWidth(0);
@@ -404,6 +408,23 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
         JOptionPane.showMessageDialog(this, info, "Patient Details", JOptionPane.INFORMATION_MESSAGE);
     }
 
+    // Patients whose medical record notes mention the given words (full-text index, see MedicalRecordService)
+    private void openSearchNotesDialog() {
+        String text = JOptionPane.showInputDialog(this, "Find patients with these words in their record notes:", "Search Notes", JOptionPane.QUESTION_MESSAGE);
+        if (text == null || text.isBlank()) return;
+        loader.load("searchNotes", () -> {
+            List<String> lines = new ArrayList<>();
+            for (String id : MedicalRecordService.getInstance().findPatientIdsWith(text, MedicalRecordService.Field.NOTES)) {
+                PatientService.getInstance().findById(id).ifPresent(p -> lines.add(p.getPatientNumber() + "  " + p.getFirstName() + " " + p.getLastName()));
+            }
+            return lines;
+        }, lines -> {
+            if (lines.isEmpty()) { JOptionPane.showMessageDialog(this, "No patient records mention \"" + text.trim() + "\"."); return; }
+            JTextArea area = new JTextArea(String.join("\n", lines), Math.min(lines.size(), 15), 40); area.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(area), lines.size() + " patient(s) with \"" + text.trim() + "\" in notes", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
     private void openArchivePatientDialog() {
         int row = patientsTable.getSelectedRow();
         if (row == -1) { JOptionPane.showMessageDialog(this, "Select a patient first."); return; }
@@ -446,27 +467,11 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
     // GLOBAL SEARCHABLE INTERFACE --------------------------------------
     // (implemented methods for global search/filter across tables)
     private void filterPatientsTable(String query) {
-        if (patientsTable.getRowSorter() == null) {
-            patientsTable.setRowSorter(new TableRowSorter<>(patientsTable.getModel()));
-        }
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) patientsTable.getRowSorter();
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query.trim()));
-        }
+        TableFilter.of(patientsTable, loader).filter(query);
     }
 
     private void filterReportsTable(String query) {
-        if (reportsTable.getRowSorter() == null) {
-            reportsTable.setRowSorter(new TableRowSorter<>(reportsTable.getModel()));
-        }
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) reportsTable.getRowSorter();
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query.trim()));
-        }
+        TableFilter.of(reportsTable, loader).filter(query);
     }
 
     @Override
@@ -501,57 +506,32 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
 
     private void refreshAllFilters() { getSearchableTables().forEach(this::applyFiltersToTable); }
 
-    @SuppressWarnings("unchecked")
     private void applyFiltersToTable(String logicalName, JTable table) {
-        if (table.getRowSorter() == null) table.setRowSorter(new TableRowSorter<>(table.getModel()));
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) table.getRowSorter();
-        List<RowFilter<TableModel,Object>> filters = new ArrayList<>();
-        if (globalSearchQuery != null) {
-            final String q = globalSearchQuery.toLowerCase();
-            filters.add(new RowFilter<TableModel,Object>() {
-                @Override public boolean include(Entry<? extends TableModel, ? extends Object> entry) {
-                    for (int i=0;i<entry.getValueCount();i++){ Object v=entry.getValue(i); if (v!=null && v.toString().toLowerCase().contains(q)) return true; }
-                    return false;
-                }
-            });
-        }
-        Map<String,String> colMap = columnFilters.get(logicalName);
-        if (colMap != null) {
-            for (Map.Entry<String,String> e : colMap.entrySet()) {
-                String colName = e.getKey(); String val = e.getValue(); if (val==null||val.isBlank()) continue;
-                int colIndex; try { colIndex = table.getColumnModel().getColumnIndex(colName); } catch (IllegalArgumentException ex){ continue; }
-                final String qv = val.toLowerCase();
-                filters.add(new RowFilter<TableModel,Object>() {
-                    @Override public boolean include(Entry<? extends TableModel, ? extends Object> entry) {
-                        Object v = entry.getValue(colIndex); return v!=null && v.toString().toLowerCase().contains(qv);
-                    }
-                });
-            }
-        }
-        if (filters.isEmpty()) sorter.setRowFilter(null);
-        else if (filters.size()==1) sorter.setRowFilter(filters.get(0));
-        else sorter.setRowFilter(RowFilter.andFilter(filters));
+        TableFilter.of(table, loader).filter(globalSearchQuery, columnFilters.get(logicalName));
     }
 
     // Appointment Requests actions --------------------------------------
     private void refreshRequestList() {
         DefaultTableModel m = (DefaultTableModel) requestsTable.getModel();
-        m.setRowCount(0);
-        for (Appointment a : AppointmentService.getInstance().listAll()) {
-            if (a.getStatus() != null && a.getStatus().name().equalsIgnoreCase("PENDING")) {
-                String doc = a.getStaffId();
-                if (this.currentUsername != null && !this.currentUsername.isBlank()) {
-                    if (!this.currentUsername.equalsIgnoreCase(doc) && !doc.equalsIgnoreCase(this.currentUsername)) continue;
-                }
-                String patientName = a.getPatientId();
-                java.util.Optional<Model.Patient> pat = PatientService.getInstance().findById(a.getPatientId());
-                if (pat.isPresent()) {
-                    Model.Patient pp = pat.get();
-                    patientName = (pp.getFirstName()==null?"":pp.getFirstName()) + " " + (pp.getLastName()==null?"":pp.getLastName());
+        loader.loadTable("requests", m, () -> {
+            java.util.List<Object[]> rows = new java.util.ArrayList<>();
+            java.util.Collection<Appointment> appts = AppointmentService.getInstance().listAll();
+            java.util.Map<String, DTO.PatientSummaryDTO> names = PatientService.getInstance().findSummariesByIds(
+                    appts.stream().map(Appointment::getPatientId).collect(java.util.stream.Collectors.toList()));
+            for (Appointment a : appts) {
+                if (a.getStatus() != null && a.getStatus().name().equalsIgnoreCase("PENDING")) {
+                    String doc = a.getStaffId();
+                    if (this.currentUsername != null && !this.currentUsername.isBlank()) {
+                        if (!this.currentUsername.equalsIgnoreCase(doc) && !doc.equalsIgnoreCase(this.currentUsername)) continue;
+                    }
+                    String patientName = a.getPatientId();
+                    DTO.PatientSummaryDTO pat = names.get(a.getPatientId());
+                    if (pat != null) patientName = pat.getFullName();
+                    rows.add(new Object[]{a.getId(), patientName, a.getStaffId(), dtf.format(a.getScheduledAt()), a.getReason(), a.getStatus().name()});
                 }
-                m.addRow(new Object[]{a.getId(), patientName, a.getStaffId(), dtf.format(a.getScheduledAt()), a.getReason(), a.getStatus().name()});
             }
-        }
+            return rows.stream();
+        }, null);
     }
 
     private JPanel buildAppointmentRequestsPanel() {
@@ -716,10 +696,8 @@ public class DoctorDashboardPanel extends JPanel implements GlobalSearchable {
     private void reloadArchivedTable() {
         if (archivedTable == null) return;
         DefaultTableModel m = (DefaultTableModel) archivedTable.getModel();
-        m.setRowCount(0);
-        for (Model.Patient p : PatientService.getInstance().listArchived()) {
-            m.addRow(new Object[]{p.getId(), (p.getFirstName()==null?"":p.getFirstName()) + " " + (p.getLastName()==null?"":p.getLastName()), p.getDateOfBirth(), p.getGender(), p.getContactNumber()});
-        }
+        loader.loadTable("archived", m, () -> PatientService.getInstance().listArchivedSummaries().stream()
+                .map(p -> new Object[]{p.getId(), p.getFullName(), p.getDateOfBirth(), p.getGender(), p.getContactNumber()}), null);
     }
 
     // Toolbar button styling helper
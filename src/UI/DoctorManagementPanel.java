@@ -69,7 +69,7 @@ public class DoctorManagementPanel extends JPanel {
         List<Doctor> list = List.copyOf(doctorService.listAll());
         for (Doctor d : list) {
             String name = d.getUser()!=null?d.getUser().getFullName():"(unknown)";
-            long patients = appointmentService.listAll().stream().filter(a -> a.getDoctorId()!=null && a.getDoctorId().equals(d.getDoctorId()) && a.getAppointmentStatus()!=null && a.getAppointmentStatus().name().equals("PENDING")).count();
+            long patients = appointmentService.countPendingForDoctor(d.getDoctorId());
             model.addRow(new Object[]{d.getDoctorId(), name, d.getSpecialization(), d.getStatus(), patients});
         }
     }
@@ -116,7 +116,7 @@ public class DoctorManagementPanel extends JPanel {
             meta.add(new JLabel("Emergency Contact: " + (dp==null?"":(dp.emergencyContactName + " " + dp.emergencyContactNumber))));
             meta.add(new JLabel("Status: " + (d.getStatus()==null?"(n/a)":d.getStatus().name())));
 
-            long patients = appointmentService.listAll().stream().filter(a -> a.getDoctorId()!=null && a.getDoctorId().equals(d.getDoctorId()) && a.getAppointmentStatus()!=null && a.getAppointmentStatus().name().equals("PENDING")).count();
+            long patients = appointmentService.countPendingForDoctor(d.getDoctorId());
             meta.add(new JLabel("Current patients: " + patients));
 
             left.add(meta, BorderLayout.CENTER);
@@ -133,7 +133,7 @@ public class DoctorManagementPanel extends JPanel {
             JPanel sched = new JPanel(new BorderLayout());
             sched.setBorder(BorderFactory.createTitledBorder("Upcoming Appointments"));
             DefaultListModel<String> lm = new DefaultListModel<>();
-            appointmentService.listAll().stream().filter(a->a.getDoctorId()!=null && a.getDoctorId().equals(d.getDoctorId()) && a.getAppointmentStatus()!=null && a.getAppointmentStatus().name().equals("PENDING")).sorted((a,b)->a.getScheduledAt().compareTo(b.getScheduledAt())).limit(10).forEach(a-> {
+            appointmentService.listByDoctorAndStatus(d.getDoctorId(), Model.AppointmentStatus.PENDING).stream().sorted((a,b)->a.getScheduledAt().compareTo(b.getScheduledAt())).limit(10).forEach(a-> {
                 patientService.getPatientSummaryById(a.getPatientId()).ifPresent(p-> lm.addElement(p.getFullName() + " — " + a.getScheduledAt().toString()));
             });
             JList<String> list = new JList<>(lm);
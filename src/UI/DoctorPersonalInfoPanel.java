@@ -108,7 +108,7 @@ public class DoctorPersonalInfoPanel extends JPanel {
         meta.add(new JLabel("Emergency Contact: " + (dp==null?"":(dp.emergencyContactName + " " + dp.emergencyContactNumber))));
         meta.add(new JLabel("Status: " + (currentDoctor.getStatus()==null?"(n/a)":currentDoctor.getStatus().name())));
 
-        long patients = appointmentService.listAll().stream().filter(a -> a.getDoctorId()!=null && a.getDoctorId().equals(currentDoctor.getDoctorId()) && a.getAppointmentStatus()!=null && a.getAppointmentStatus().name().equals("PENDING")).count();
+        long patients = appointmentService.countPendingForDoctor(currentDoctor.getDoctorId());
         meta.add(new JLabel("Current patients: " + patients));
 
         left.add(meta, BorderLayout.CENTER);
@@ -125,7 +125,7 @@ public class DoctorPersonalInfoPanel extends JPanel {
         JPanel sched = new JPanel(new BorderLayout());
         sched.setBorder(BorderFactory.createTitledBorder("Upcoming Appointments"));
         DefaultListModel<String> lm = new DefaultListModel<>();
-        appointmentService.listAll().stream().filter(a->a.getDoctorId()!=null && a.getDoctorId().equals(currentDoctor.getDoctorId()) && a.getAppointmentStatus()!=null && a.getAppointmentStatus().name().equals("PENDING")).sorted((a,b)->a.getScheduledAt().compareTo(b.getScheduledAt())).limit(10).forEach(a-> {
+        appointmentService.listByDoctorAndStatus(currentDoctor.getDoctorId(), Model.AppointmentStatus.PENDING).stream().sorted((a,b)->a.getScheduledAt().compareTo(b.getScheduledAt())).limit(10).forEach(a-> {
             patientService.getPatientSummaryById(a.getPatientId()).ifPresent(p-> lm.addElement(p.getFullName() + " — " + a.getScheduledAt().toString()));
         });
         JList<String> list = new JList<>(lm);
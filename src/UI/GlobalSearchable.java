@@ -5,7 +5,7 @@ import javax.swing.JTable;
 
 /**
  * Contract for dashboard panels that support a global search/filter initiated from the parent frame.
- * Implementations should expose their tables and apply RowFilters accordingly.
+ * Implementations should expose their tables and filter them through {@link TableFilter}.
  */
 public interface GlobalSearchable {
     /** Returns a mapping of logical table names to table instances for filter targeting. */
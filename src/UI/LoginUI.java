@@ -19,6 +19,7 @@ public class LoginUI extends JFrame {
     private JTextField usernameField;
     private JPasswordField passwordField;
     private char defaultEcho;
+    private JButton btnLogin;
     private final UserService userService; // use app service for auth
     public LoginUI(String role) {
         this.userService = UserService.getInstance();
@@ -77,7 +78,7 @@ public class LoginUI extends JFrame {
         showBtn.setBounds(363, 159, 50, 25);
         formPanel.add(showBtn);
         showBtn.addActionListener(e -> togglePassword(showBtn));
-        JButton btnLogin = new JButton("Log In");
+        btnLogin = new JButton("Log In");
         btnLogin.setBounds(188, 211, 108, 32);
         formPanel.add(btnLogin);
         btnLogin.addActionListener(e -> loginUser());
@@ -109,15 +110,39 @@ public class LoginUI extends JFrame {
         }
     }
     private void loginUser() {
+        if (!btnLogin.isEnabled()) return; // a login is already being checked
         String username = usernameField.getText().trim();
         char[] password = passwordField.getPassword();
         if (username.isEmpty() || password.length == 0) {
             JOptionPane.showMessageDialog(this, "Please fill in both username and password.", "Missing Information", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        Optional<User> auth = userService.authenticate(username, password);
-        // Clear sensitive data ASAP
+        setLoginBusy(true);
+        // Password hashing runs on the auth pool so the window stays responsive
+        java.util.concurrent.CompletableFuture<Optional<User>> pending = userService.authenticateAsync(username, password);
+        // Clear sensitive data ASAP (authenticateAsync keeps its own copy)
         Arrays.fill(password, '\0');
+        pending.whenComplete((auth, err) -> SwingUtilities.invokeLater(() -> {
+            setLoginBusy(false);
+            if (err != null) {
+                Throwable cause = (err instanceof java.util.concurrent.CompletionException && err.getCause() != null) ? err.getCause() : err;
+                String msg = (cause instanceof java.util.concurrent.RejectedExecutionException)
+                        ? "The system is busy signing in other users. Please try again in a moment."
+                        : "Login failed: " + cause.getMessage();
+                JOptionPane.showMessageDialog(this, msg, "Login Failed", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            onAuthenticated(username, auth);
+        }));
+    }
+    private void setLoginBusy(boolean busy) {
+        btnLogin.setEnabled(!busy);
+        btnLogin.setText(busy ? "Checking..." : "Log In");
+        usernameField.setEnabled(!busy);
+        passwordField.setEnabled(!busy);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+    private void onAuthenticated(String username, Optional<User> auth) {
         if (auth.isEmpty()) {
             JOptionPane.showMessageDialog(this, "Incorrect username or password.", "Login Failed", JOptionPane.ERROR_MESSAGE);
             passwordField.setText("");
@@ -0,0 +1,278 @@
+package UI;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import Repository.Sort;
+
+/**
+ * Table model for large database lists that never loads the whole list.
+ *
+ * Only the row count is read up front; rows are fetched a page at a time, off
+ * the EDT, when the table first asks for them, and the pages next to the one
+ * being shown are prefetched. A few pages are cached (least recently used
+ * first out). Pages are keyset-paged: the last id of every page read is kept as
+ * the anchor for the next one, so scrolling down reads index ranges, and a jump
+ * further ahead skips from the nearest known anchor. Search text and sort order
+ * are handed to the {@link Source} and applied in SQL; tables using this model
+ * must not install a RowSorter (it would read every row).
+ *
+ * Rows not loaded yet show as empty cells; a page whose load failed is read
+ * again when next shown. Use on the EDT only.
+ */
+public class PagedTableModel<R> extends AbstractTableModel {
+    /** Where rows come from. Both calls run on a background thread. */
+    public interface Source<R> {
+        long count(String search);
+
+        List<R> page(String search, String afterId, int skip, int limit, Sort sort);
+    }
+
+    private static final int MAX_CACHED_PAGES = 8;
+
+    private static final class Page<R> {
+        final List<R> rows;
+        final List<Object[]> cells;
+
+        Page(List<R> rows, List<Object[]> cells) {
+            this.rows = rows;
+            this.cells = cells;
+        }
+    }
+
+    private final String name;
+    private final String[] columns;
+    private final String[] sortColumns;
+    private final Function<R, Object[]> toCells;
+    private final Function<R, String> idOf;
+    private final Source<R> source;
+    private final BackgroundLoader loader;
+    private final int pageSize;
+
+    private final Map<Integer, Page<R>> pages = new LinkedHashMap<Integer, Page<R>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page<R>> eldest) {
+            return size() > MAX_CACHED_PAGES;
+        }
+    };
+    // last id of each page read since the last refresh: the keyset anchor of the page after it
+    private final TreeMap<Integer, String> lastIds = new TreeMap<>();
+    private final Set<Integer> loading = new HashSet<>();
+    private int rowCount;
+    private int generation;
+    private boolean counting;
+    private String search;
+    private Sort sort;
+    private int sortColumn = -1;
+
+    /**
+     * @param name        unique among the loads of {@code loader} (used in its keys)
+     * @param columns     column headers
+     * @param sortColumns SQL column to sort by for each table column; null
+     *                    entries are not sortable
+     * @param toCells     cell values of a row, one per column
+     * @param idOf        primary key of a row
+     */
+    public PagedTableModel(String name, String[] columns, String[] sortColumns, Function<R, Object[]> toCells,
+            Function<R, String> idOf, Source<R> source, BackgroundLoader loader, int pageSize) {
+        this.name = name;
+        this.columns = columns.clone();
+        this.sortColumns = sortColumns.clone();
+        this.toCells = toCells;
+        this.idOf = idOf;
+        this.source = source;
+        this.loader = loader;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Object[] cells = cellsAt(row);
+        return cells == null ? null : cells[column];
+    }
+
+    /** The row object at a model row, or null while its page is still loading. */
+    public R getRow(int row) {
+        int p = row / pageSize;
+        Page<R> page = pages.get(p);
+        int i = row % pageSize;
+        return page == null || i >= page.rows.size() ? null : page.rows.get(i);
+    }
+
+    private Object[] cellsAt(int row) {
+        int p = row / pageSize;
+        Page<R> page = pages.get(p);
+        request(p - 1);
+        request(p + 1);
+        if (page == null) {
+            request(p);
+            return null;
+        }
+        int i = row % pageSize;
+        // a page can come back short when rows were deleted after counting
+        return i < page.cells.size() ? page.cells.get(i) : null;
+    }
+
+    /** Filter rows by search text (null or blank: all rows) and reload. */
+    public void setSearch(String text) {
+        String s = text == null || text.isBlank() ? null : text.trim();
+        if (Objects.equals(s, search))
+            return;
+        search = s;
+        refresh();
+    }
+
+    public String getSearch() {
+        return search;
+    }
+
+    /** Sort by a table column (ignored for columns without a SQL column) and reload. */
+    public void setSort(int column, boolean ascending) {
+        if (column < 0 || column >= sortColumns.length || sortColumns[column] == null)
+            return;
+        sortColumn = column;
+        sort = ascending ? Sort.asc(sortColumns[column]) : Sort.desc(sortColumns[column]);
+        refresh();
+    }
+
+    /** Sort ascending by a column, or flip the direction if already sorted by it. */
+    public void toggleSort(int column) {
+        setSort(column, column != sortColumn || !sort.isAscending());
+    }
+
+    /** Make clicks on the table header sort by the clicked column. */
+    public void installHeaderSorting(JTable table) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn >= 0)
+                    toggleSort(table.convertColumnIndexToModel(viewColumn));
+            }
+        });
+    }
+
+    /**
+     * Recount and reload. Pages already shown stay visible until the new count
+     * arrives, so a refresh does not blank the table.
+     */
+    public void refresh() {
+        generation++;
+        for (int p : loading)
+            loader.cancel(pageKey(p));
+        loading.clear();
+        counting = true;
+        int gen = generation;
+        String s = search;
+        loader.load(name + ":count", () -> source.count(s), n -> {
+            if (gen != generation)
+                return;
+            counting = false;
+            pages.clear();
+            lastIds.clear();
+            rowCount = (int) Math.min(Integer.MAX_VALUE, n);
+            fireTableDataChanged();
+        }, ex -> {
+            // keep what is shown; the next refresh counts again
+            if (gen == generation)
+                counting = false;
+        });
+    }
+
+    /**
+     * Reload the cached pages holding these ids. An id not on any cached page
+     * may be a new row, so that refreshes the whole model instead.
+     */
+    public void refreshRows(Collection<?> ids) {
+        Set<Object> missing = new HashSet<>(ids);
+        Set<Integer> hit = new TreeSet<>();
+        for (Map.Entry<Integer, Page<R>> e : pages.entrySet()) {
+            for (R r : e.getValue().rows) {
+                if (missing.remove(idOf.apply(r)))
+                    hit.add(e.getKey());
+            }
+        }
+        if (!missing.isEmpty()) {
+            refresh();
+            return;
+        }
+        for (int p : hit)
+            load(p);
+    }
+
+    private void request(int p) {
+        if (p < 0 || (long) p * pageSize >= rowCount || pages.containsKey(p))
+            return;
+        load(p);
+    }
+
+    private void load(int p) {
+        if (counting || !loading.add(p))
+            return;
+        Map.Entry<Integer, String> anchor = lastIds.lowerEntry(p);
+        String afterId = anchor == null ? null : anchor.getValue();
+        int skip = (anchor == null ? p : p - anchor.getKey() - 1) * pageSize;
+        int gen = generation;
+        String s = search;
+        Sort so = sort;
+        loader.load(pageKey(p), () -> {
+            List<R> rows = source.page(s, afterId, skip, pageSize, so);
+            List<Object[]> cells = new ArrayList<>(rows.size());
+            for (R r : rows)
+                cells.add(toCells.apply(r));
+            return new Page<>(rows, cells);
+        }, page -> {
+            if (gen != generation)
+                return;
+            loading.remove(p);
+            if (page.rows.isEmpty() && afterId != null) {
+                // the anchor row was deleted since it was read: start over
+                refresh();
+                return;
+            }
+            pages.put(p, page);
+            if (!page.rows.isEmpty())
+                lastIds.put(p, idOf.apply(page.rows.get(page.rows.size() - 1)));
+            int first = p * pageSize;
+            int last = Math.min(rowCount, first + pageSize) - 1;
+            if (first <= last)
+                fireTableRowsUpdated(first, last);
+        }, ex -> {
+            // the page is asked for again the next time the table paints it
+            if (gen == generation)
+                loading.remove(p);
+        });
+    }
+
+    private String pageKey(int p) {
+        return name + ":page:" + p;
+    }
+}
@@ -10,9 +10,6 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.event.*;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
-import javax.swing.RowFilter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -74,6 +71,12 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
     private JLabel userTagLabel;
 
     // Simple in-memory profile model to retain values (can be replaced by Service/Model integration)
+    // Patient record and age for the profile panel, loaded in the background
+    private static class LinkedPatient {
+        Patient patient;
+        Integer age;
+    }
+
     private static class ProfileData {
         String name = "";
         String age = "";
@@ -89,6 +92,7 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
     // private static final ConcurrentHashMap<String, ProfileData> PROFILE_CACHE = new ConcurrentHashMap<>();
     private ProfileData profileData;
     private final PatientService patientService = PatientService.getInstance();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     // NEW: profilePanel and profileCenter fields
     private JPanel profilePanel;
@@ -286,8 +290,25 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
         return root;
     }
 
-    // Rebuilds the profile center grid with current data
+    // Rebuilds the profile center grid with current data; the patient record is read off the EDT
     private void rebuildProfileCenter(JPanel center) {
+        loader.load("profile", this::loadLinkedPatient, lp -> rebuildProfileCenter(center, lp.patient, lp.age));
+    }
+
+    private LinkedPatient loadLinkedPatient() {
+        // Resolve patient via current user
+        LinkedPatient lp = new LinkedPatient();
+        if (currentUsername == null || currentUsername.isBlank()) return lp;
+        String patientId = UserService.getInstance().findByUsername(currentUsername)
+                .filter(u -> currentUsername.equals(u.getUsername()))
+                .map(Model.User::getLinkedPatientId).orElse(null);
+        if (patientId != null) lp.patient = patientService.findById(patientId).orElse(null);
+        // Age from PatientService summary (computed from DOB)
+        if (lp.patient != null) lp.age = patientService.getPatientSummaryById(lp.patient.getId()).map(DTO.PatientSummaryDTO::getAge).orElse(null);
+        return lp;
+    }
+
+    private void rebuildProfileCenter(JPanel center, Patient modelPatient, Integer ageVal) {
         center.removeAll();
         center.setLayout(new BoxLayout(center, BoxLayout.Y_AXIS));
 
@@ -316,15 +337,6 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
             return wrapper;
         };
 
-        // Resolve patient via current user
-        String patientId = null; Patient modelPatient = null;
-        if (currentUsername != null && !currentUsername.isBlank()) {
-            for (Model.User u : UserService.getInstance().getAllUsers()) {
-                if (currentUsername.equals(u.getUsername())) { patientId = u.getLinkedPatientId(); break; }
-            }
-            if (patientId != null) { modelPatient = patientService.findById(patientId).orElse(null); }
-        }
-
         // Personal Info panel
         JPanel personalGrid = new JPanel(new GridBagLayout()); personalGrid.setBackground(Color.WHITE);
         GridBagConstraints pgbc = new GridBagConstraints(); pgbc.insets = new Insets(6,10,6,10); pgbc.anchor = GridBagConstraints.WEST; pgbc.fill = GridBagConstraints.HORIZONTAL; pgbc.gridx=0; pgbc.gridy=0; pgbc.weightx=0;
@@ -364,8 +376,6 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
             String fullName = ((modelPatient.getFirstName()==null?"":modelPatient.getFirstName()) + " " + (modelPatient.getLastName()==null?"":modelPatient.getLastName())).trim();
             // Personal Info
             addPersonal.accept("Name", fullName.isEmpty()?profileData.name:fullName);
-            // Age from PatientService summary (computed from DOB)
-            Integer ageVal = patientService.getPatientSummaryById(modelPatient.getId()).map(DTO.PatientSummaryDTO::getAge).orElse(null);
             addPersonal.accept("Age", ageVal==null?profileData.age:String.valueOf(ageVal));
             addPersonal.accept("Gender", modelPatient.getGender());
             addPersonal.accept("Civil Status", modelPatient.getCivilStatus());
@@ -674,12 +684,7 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
         admissionTable = new JTable(new DefaultTableModel(data, cols) { @Override public boolean isCellEditable(int r,int c){ return false; } });
 
         searchField.getDocument().addDocumentListener(new DocumentListener() {
-            private void apply(String q) {
-                TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) admissionTable.getRowSorter();
-                if (sorter == null) { sorter = new TableRowSorter<>(admissionTable.getModel()); admissionTable.setRowSorter(sorter); }
-                if (q == null || q.trim().isEmpty()) { sorter.setRowFilter(null); }
-                else { sorter.setRowFilter(RowFilter.regexFilter("(?i)" + q.trim(), 0, 2, 3)); }
-            }
+            private void apply(String q) { TableFilter.of(admissionTable, loader).filter(q, null, 0, 2, 3); }
             public void insertUpdate(DocumentEvent e) { apply(searchField.getText()); }
             public void removeUpdate(DocumentEvent e) { apply(searchField.getText()); }
             public void changedUpdate(DocumentEvent e) { apply(searchField.getText()); }
@@ -815,69 +820,26 @@ public class PatientDashboardPanel extends JPanel implements GlobalSearchable {
     @Override
     public void clearGlobalFilter() { columnFilters.clear(); refreshAllFilters(); }
     private void refreshAllFilters(){ getSearchableTables().forEach(this::applyFiltersToTable); }
-    @SuppressWarnings("unchecked")
     private void applyFiltersToTable(String logicalName, JTable table){
-        if (table.getRowSorter()==null) table.setRowSorter(new TableRowSorter<>(table.getModel()));
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) table.getRowSorter();
-        List<RowFilter<TableModel,Object>> filters = new ArrayList<>();
-        if (globalSearchQuery!=null){ final String q=globalSearchQuery.toLowerCase(); filters.add(new RowFilter<TableModel,Object>(){ @Override public boolean include(Entry<? extends TableModel, ? extends Object> entry){ for(int i=0;i<entry.getValueCount();i++){ Object v=entry.getValue(i); if(v!=null && v.toString().toLowerCase().contains(q)) return true;} return false; }}); }
-        Map<String,String> colMap = columnFilters.get(logicalName);
-        if (colMap!=null){ for(Map.Entry<String,String> e: colMap.entrySet()){ String colName=e.getKey(); String val=e.getValue(); if(val==null||val.isBlank()) continue; int colIndex; try{ colIndex=table.getColumnModel().getColumnIndex(colName);} catch(IllegalArgumentException ex){ continue;} final String qv=val.toLowerCase(); filters.add(new RowFilter<TableModel,Object>(){ @Override public boolean include(Entry<? extends TableModel, ? extends Object> entry){ Object v=entry.getValue(colIndex); return v!=null && v.toString().toLowerCase().contains(qv);} }); }}
-        if (filters.isEmpty()) sorter.setRowFilter(null); else if(filters.size()==1) sorter.setRowFilter(filters.get(0)); else sorter.setRowFilter(RowFilter.andFilter(filters));
+        TableFilter.of(table, loader).filter(globalSearchQuery, columnFilters.get(logicalName));
     }
 
     // FILTERING LOGIC FOR APPOINTMENTS TABLE ---------------------------
     private void filterAppointmentsTable(String query) {
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) appointmentsTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(appointmentsTable.getModel());
-            appointmentsTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 2, 3));
-        }
+        TableFilter.of(appointmentsTable, loader).filter(query, null, 2, 3);
     }
     // FILTERING LOGIC FOR BILLS TABLE ---------------------------------
     private void filterBillsTable(String query) {
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) billsTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(billsTable.getModel());
-            billsTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            // Include Description (1) and Status (3) in filtering
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 3));
-        }
+        // Include Description (1) and Status (3) in filtering
+        TableFilter.of(billsTable, loader).filter(query, null, 1, 3);
     }
     // FILTERING LOGIC FOR LAB TABLE ---------------------------------
     private void filterLabTable(String query) {
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) labTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(labTable.getModel());
-            labTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 2));
-        }
+        TableFilter.of(labTable, loader).filter(query, null, 1, 2);
     }
     // FILTERING LOGIC FOR SERVICES TABLE ---------------------------------
     private void filterServicesTable(String query) {
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) servicesTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(servicesTable.getModel());
-            servicesTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 0, 1));
-        }
+        TableFilter.of(servicesTable, loader).filter(query, null, 0, 1);
     }
 
     // Renders profileArea text from profileData
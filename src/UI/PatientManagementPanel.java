@@ -3,24 +3,34 @@ package UI;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
 
+import Service.IdLookupService;
 import Service.PatientService;
 import Model.Patient;
+import DTO.PatientSummaryDTO;
+import Repository.ChangeBus;
+import Repository.ChangeEvent;
 
 /**
  * Patient Management panel - lists patients and allows view/edit/deactivate similar to Admin usermanagement.
+ * The table pages through the registry on demand (search and sort run in SQL) and, while showing,
+ * reloads only the affected pages when the ChangeBus reports patient changes.
  */
 public class PatientManagementPanel extends JPanel {
     private final PatientService patientService = PatientService.getInstance();
 
+    private static final int PAGE_SIZE = 100;
+
+    private final BackgroundLoader loader = new BackgroundLoader(this);
     private JTable table;
-    private DefaultTableModel model;
+    private PagedTableModel<PatientSummaryDTO> model;
     private JPanel detailsPane;
+    private ChangeBus.Subscription changes;
 
     public PatientManagementPanel() {
         setLayout(new BorderLayout(8,8));
@@ -28,12 +38,34 @@ public class PatientManagementPanel extends JPanel {
 
         JLabel header = new JLabel("Patient Management", SwingConstants.LEFT);
         header.setFont(new Font("Segoe UI", Font.BOLD, 18));
-        add(header, BorderLayout.NORTH);
+        JPanel top = new JPanel(new BorderLayout(8,8));
+        top.add(header, BorderLayout.WEST);
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        searchPanel.add(new JLabel("Search (Enter):"));
+        JTextField searchField = new JTextField(20);
+        searchPanel.add(searchField);
+        top.add(searchPanel, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
 
-        model = new DefaultTableModel(new String[]{"ID","Name","DOB","Gender","Phone"}, 0) {
-            @Override public boolean isCellEditable(int r,int c){return false;}
-        };
+        // Name, gender and phone may be empty, so only the NOT NULL columns can be keyset-sorted
+        model = new PagedTableModel<>("patients", new String[]{"ID","Name","DOB","Gender","Phone"},
+                new String[]{"patient_number", null, "date_of_birth", null, null}, PatientManagementPanel::toRow,
+                PatientSummaryDTO::getId, new PagedTableModel.Source<PatientSummaryDTO>() {
+                    public long count(String search) { return patientService.countSummaries(search); }
+                    public List<PatientSummaryDTO> page(String search, String afterId, int skip, int limit, Repository.Sort sort) {
+                        return patientService.findSummaryPage(search, afterId, skip, limit, sort);
+                    }
+                }, loader, PAGE_SIZE);
         table = new JTable(model);
+        model.installHeaderSorting(table);
+        // a pasted patient number also opens that patient straight away
+        searchField.addActionListener(e -> {
+            String q = searchField.getText();
+            model.setSearch(q);
+            loader.load("idLookup", () -> IdLookupService.getInstance().resolve(q)
+                    .filter(m -> m.getKind() == IdLookupService.Kind.PATIENT)
+                    .flatMap(m -> patientService.findById(m.getPrimaryKey())), found -> found.ifPresent(this::showDetails));
+        });
         JScrollPane sp = new JScrollPane(table);
         sp.setPreferredSize(new Dimension(700,300));
 
@@ -66,82 +98,102 @@ public class PatientManagementPanel extends JPanel {
         _doReload();
     }
     private void _doReload() {
-        model.setRowCount(0);
-        java.util.List<Model.Patient> list = java.util.List.copyOf(patientService.listAll());
-        for (Model.Patient p : list) {
-            // Display PT-ID formatted patientNumber instead of internal UUID
-            String displayId = (p.getPatientNumber() != null && !p.getPatientNumber().isBlank()) ? p.getPatientNumber() : p.getId();
-            model.addRow(new Object[]{displayId, (p.getFirstName()==null?"":p.getFirstName()) + " " + (p.getLastName()==null?"":p.getLastName()), p.getDateOfBirth(), p.getGender(), p.getContactNumber()});
-        }
+        model.refresh();
+    }
+
+    private static Object[] toRow(PatientSummaryDTO p) {
+        // Display PT-ID formatted patientNumber instead of internal UUID
+        String displayId = (p.getPatientNumber() != null && !p.getPatientNumber().isBlank()) ? p.getPatientNumber() : p.getId();
+        return new Object[]{displayId, p.getFullName(), p.getDateOfBirth(), p.getGender(), p.getContactNumber()};
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (changes == null) changes = ChangeBus.getInstance().subscribe(Patient.class, this::onPatientChanges);
+    }
+
+    @Override
+    public void removeNotify() {
+        if (changes != null) { changes.close(); changes = null; }
+        super.removeNotify();
+    }
+
+    // Runs on the ChangeBus thread. Deletes shift every later row, so they recount; edits reload their pages.
+    private void onPatientChanges(List<ChangeEvent<Patient>> events) {
+        List<Object> ids = new ArrayList<>();
+        boolean deleted = false;
+        for (ChangeEvent<Patient> e : events) { ids.add(e.getId()); deleted |= e.isDelete(); }
+        boolean recount = deleted;
+        SwingUtilities.invokeLater(() -> { if (recount) model.refresh(); else model.refreshRows(ids); });
     }
 
     private void showSelectedDetails() {
         int r = table.getSelectedRow(); if (r==-1) return;
-        int modelRow = table.convertRowIndexToModel(r);
-        // When displaying PT-ID, the repo findById uses internal UUID; instead, search by matching display fields
-        // We’ll iterate over listAll to find the patient whose patientNumber or UUID matches the selected ID.
-        String selectedId = (String) model.getValueAt(modelRow, 0);
-        java.util.Optional<Model.Patient> opt = patientService.listAll().stream().filter(px -> {
-            String num = px.getPatientNumber(); String pid = px.getId();
-            return (num != null && num.equals(selectedId)) || (pid != null && pid.equals(selectedId));
-        }).findFirst();
-        opt.ifPresent(p -> {
-            detailsPane.removeAll();
-            JPanel root = new JPanel(new BorderLayout(8,8)); root.setBorder(new EmptyBorder(10,10,10,10));
-            JPanel top = new JPanel(new BorderLayout(12,12));
-
-            // Left: avatar placeholder (patients may not have profile pictures stored here)
-            JPanel left = new JPanel(new BorderLayout());
-            JLabel pic = new JLabel(); pic.setPreferredSize(new Dimension(180,180));
-            if (p.getUser()!=null && p.getUser().getProfilePictureUrl()!=null && !p.getUser().getProfilePictureUrl().isBlank()) {
-                ImageIcon ic = new ImageIcon(p.getUser().getProfilePictureUrl()); Image im = ic.getImage().getScaledInstance(180,180,Image.SCALE_SMOOTH); pic.setIcon(new ImageIcon(im));
-            } else {
-                pic.setIcon(new ImageIcon(new java.awt.image.BufferedImage(180,180,java.awt.image.BufferedImage.TYPE_INT_ARGB)));
-                pic.setText("No image"); pic.setHorizontalTextPosition(SwingConstants.CENTER); pic.setVerticalTextPosition(SwingConstants.CENTER);
-            }
-            left.add(pic, BorderLayout.NORTH);
-
-            // Meta details (read-only), similar richness to doctor panel
-            JPanel meta = new JPanel(new GridLayout(0,1,6,6));
-            meta.add(new JLabel("Patient ID: " + (p.getPatientNumber()!=null?p.getPatientNumber():p.getId())));
-            meta.add(new JLabel("Name: " + (p.getFirstName()==null?"":p.getFirstName()) + " " + (p.getLastName()==null?"":p.getLastName())));
-            meta.add(new JLabel("DOB: " + p.getDateOfBirth()));
-            meta.add(new JLabel("Gender: " + p.getGender()));
-            meta.add(new JLabel("Phone: " + (p.getContactNumber()==null?"":p.getContactNumber())));
-            meta.add(new JLabel("Address: " + (p.getAddress()==null?"":p.getAddress())));
-            meta.add(new JLabel("Emergency Contact: " + ((p.getEmergencyContactName()==null?"":p.getEmergencyContactName()) + " " + (p.getEmergencyContactNumber()==null?"":p.getEmergencyContactNumber()))));
-            if (p.getUser() != null) meta.add(new JLabel("Linked user: " + p.getUser().getUsername()));
-            left.add(meta, BorderLayout.CENTER);
-
-            // Right: notes area (view-only)
-            JTextArea notes = new JTextArea(); notes.setEditable(false); notes.setLineWrap(true); notes.setWrapStyleWord(true);
-            notes.setText("Patient details are view-only for admin.");
-
-            top.add(left, BorderLayout.WEST);
-            top.add(new JScrollPane(notes), BorderLayout.CENTER);
-
-            // Bottom: summary placeholder
-            JPanel bottom = new JPanel(new BorderLayout()); bottom.setBorder(BorderFactory.createTitledBorder("Summary"));
-            DefaultListModel<String> lm = new DefaultListModel<>();
-            lm.addElement("Record created: " + p.getCreatedAt());
-            if (p.getUser() != null) lm.addElement("Login status: " + p.getUser().getStatus());
-            JList<String> summary = new JList<>(lm);
-            bottom.add(new JScrollPane(summary), BorderLayout.CENTER);
-
-            root.add(top, BorderLayout.CENTER);
-            root.add(bottom, BorderLayout.SOUTH);
-            detailsPane.add(root, BorderLayout.CENTER);
-            detailsPane.revalidate(); detailsPane.repaint();
-        });
+        // The table shows the PT-ID; the row object carries the internal UUID for findById
+        PatientSummaryDTO row = model.getRow(table.convertRowIndexToModel(r));
+        if (row == null) return;
+        patientService.findById(row.getId()).ifPresent(this::showDetails);
+    }
+
+    private void showDetails(Patient p) {
+        detailsPane.removeAll();
+        JPanel root = new JPanel(new BorderLayout(8,8)); root.setBorder(new EmptyBorder(10,10,10,10));
+        JPanel top = new JPanel(new BorderLayout(12,12));
+
+        // Left: avatar placeholder (patients may not have profile pictures stored here)
+        JPanel left = new JPanel(new BorderLayout());
+        JLabel pic = new JLabel(); pic.setPreferredSize(new Dimension(180,180));
+        if (p.getUser()!=null && p.getUser().getProfilePictureUrl()!=null && !p.getUser().getProfilePictureUrl().isBlank()) {
+            ImageIcon ic = new ImageIcon(p.getUser().getProfilePictureUrl()); Image im = ic.getImage().getScaledInstance(180,180,Image.SCALE_SMOOTH); pic.setIcon(new ImageIcon(im));
+        } else {
+            pic.setIcon(new ImageIcon(new java.awt.image.BufferedImage(180,180,java.awt.image.BufferedImage.TYPE_INT_ARGB)));
+            pic.setText("No image"); pic.setHorizontalTextPosition(SwingConstants.CENTER); pic.setVerticalTextPosition(SwingConstants.CENTER);
+        }
+        left.add(pic, BorderLayout.NORTH);
+
+        // Meta details (read-only), similar richness to doctor panel
+        JPanel meta = new JPanel(new GridLayout(0,1,6,6));
+        meta.add(new JLabel("Patient ID: " + (p.getPatientNumber()!=null?p.getPatientNumber():p.getId())));
+        meta.add(new JLabel("Name: " + (p.getFirstName()==null?"":p.getFirstName()) + " " + (p.getLastName()==null?"":p.getLastName())));
+        meta.add(new JLabel("DOB: " + p.getDateOfBirth()));
+        meta.add(new JLabel("Gender: " + p.getGender()));
+        meta.add(new JLabel("Phone: " + (p.getContactNumber()==null?"":p.getContactNumber())));
+        meta.add(new JLabel("Address: " + (p.getAddress()==null?"":p.getAddress())));
+        meta.add(new JLabel("Emergency Contact: " + ((p.getEmergencyContactName()==null?"":p.getEmergencyContactName()) + " " + (p.getEmergencyContactNumber()==null?"":p.getEmergencyContactNumber()))));
+        if (p.getUser() != null) meta.add(new JLabel("Linked user: " + p.getUser().getUsername()));
+        left.add(meta, BorderLayout.CENTER);
+
+        // Right: notes area (view-only)
+        JTextArea notes = new JTextArea(); notes.setEditable(false); notes.setLineWrap(true); notes.setWrapStyleWord(true);
+        notes.setText("Patient details are view-only for admin.");
+
+        top.add(left, BorderLayout.WEST);
+        top.add(new JScrollPane(notes), BorderLayout.CENTER);
+
+        // Bottom: summary placeholder
+        JPanel bottom = new JPanel(new BorderLayout()); bottom.setBorder(BorderFactory.createTitledBorder("Summary"));
+        DefaultListModel<String> lm = new DefaultListModel<>();
+        lm.addElement("Record created: " + p.getCreatedAt());
+        if (p.getUser() != null) lm.addElement("Login status: " + p.getUser().getStatus());
+        JList<String> summary = new JList<>(lm);
+        bottom.add(new JScrollPane(summary), BorderLayout.CENTER);
+
+        root.add(top, BorderLayout.CENTER);
+        root.add(bottom, BorderLayout.SOUTH);
+        detailsPane.add(root, BorderLayout.CENTER);
+        detailsPane.revalidate(); detailsPane.repaint();
     }
 
     private void deactivateSelected() {
         int r = table.getSelectedRow(); if (r==-1) { JOptionPane.showMessageDialog(this, "Select a patient first."); return; }
-        String id = (String) model.getValueAt(r,0);
+        PatientSummaryDTO row = model.getRow(table.convertRowIndexToModel(r));
+        if (row == null) return;
+        String id = row.getId();
         int c = JOptionPane.showConfirmDialog(this, "Deactivate this patient account?","Confirm", JOptionPane.YES_NO_OPTION);
         if (c!=JOptionPane.YES_OPTION) return;
         boolean ok = patientService.deletePatient(id); // patient delete here uses repo delete; if you prefer soft-deactivate, we need to add that to PatientService
-        if (ok) { JOptionPane.showMessageDialog(this, "Patient removed."); reload(); }
+        if (ok) { JOptionPane.showMessageDialog(this, "Patient removed."); }
         else JOptionPane.showMessageDialog(this, "Failed to remove patient.");
     }
 
@@ -164,13 +216,56 @@ public class PatientManagementPanel extends JPanel {
         form.add(new JLabel("Email:")); form.add(email);
         int res = JOptionPane.showConfirmDialog(this, form, "Add Patient", JOptionPane.OK_CANCEL_OPTION);
         if (res==JOptionPane.OK_OPTION) {
+            java.time.LocalDate ld;
             try {
-                java.time.LocalDate ld = java.time.LocalDate.parse(dob.getText().trim());
-                patientService.createPatient(fn.getText().trim(), ln.getText().trim(), ld, gender.getText().trim(), phone.getText().trim(), email.getText().trim(), "");
-                JOptionPane.showMessageDialog(this, "Patient created."); reload();
+                ld = java.time.LocalDate.parse(dob.getText().trim());
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(this, "Invalid input: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
             }
+            String first = fn.getText().trim(); String last = ln.getText().trim();
+            // the same person may already be registered under another spelling
+            Runnable register = () -> {
+                try {
+                    patientService.createPatient(first, last, ld, gender.getText().trim(), phone.getText().trim(), email.getText().trim(), "");
+                    JOptionPane.showMessageDialog(this, "Patient created.");
+                } catch (Exception ex) {
+                    JOptionPane.showMessageDialog(this, "Invalid input: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            };
+            loader.load("duplicateCheck", () -> patientService.findPossibleDuplicates(first, last, ld), matches -> {
+                if (confirmDespiteDuplicates(this, matches)) register.run();
+            }, err -> {
+                if (confirmWithoutDuplicateCheck(this, err)) register.run();
+            });
+        }
+    }
+
+    /**
+     * Ask whether to register without knowing about existing records, after
+     * the duplicate check failed (e.g. the search index could not be built).
+     */
+    static boolean confirmWithoutDuplicateCheck(Component parent, Throwable error) {
+        return JOptionPane.showConfirmDialog(parent,
+                "Could not check for existing records of this patient:\n" + error.getMessage()
+                        + "\n\nRegister as a new patient anyway?",
+                "Duplicate Check Failed", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
+    }
+
+    /**
+     * Show patients who may already be the one being registered and ask whether
+     * to register anyway. True when there are none or the user confirms.
+     */
+    static boolean confirmDespiteDuplicates(Component parent, List<Patient> matches) {
+        if (matches == null || matches.isEmpty()) return true;
+        StringBuilder sb = new StringBuilder("Possible existing records for this patient:\n\n");
+        for (Patient p : matches) {
+            sb.append(p.getPatientNumber()).append("  ").append(p.getFirstName()).append(' ').append(p.getLastName());
+            if (p.getDateOfBirth() != null) sb.append("  (born ").append(p.getDateOfBirth()).append(')');
+            sb.append('\n');
         }
+        sb.append("\nRegister as a new patient anyway?");
+        return JOptionPane.showConfirmDialog(parent, sb.toString(), "Possible Duplicate",
+                JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION;
     }
 }
\ No newline at end of file
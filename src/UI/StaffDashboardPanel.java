@@ -5,9 +5,6 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
 import javax.swing.event.*;
 import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
-import javax.swing.RowFilter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -76,6 +73,7 @@ public class StaffDashboardPanel extends JPanel implements GlobalSearchable {
     // Global search/filter state
     private String globalSearchQuery;
     private final Map<String, Map<String,String>> columnFilters = new HashMap<>();
+    private final BackgroundLoader loader = new BackgroundLoader(this);
 
     // Summary dynamic labels
     private JLabel lblTotalPatients;
@@ -370,7 +368,13 @@ public class StaffDashboardPanel extends JPanel implements GlobalSearchable {
         DefaultTableModel m = (DefaultTableModel) patientRegTable.getModel();
         String patientId = (String) m.getValueAt(row, 0);
         String patientName = (String) m.getValueAt(row, 1);
+        // Doctors come from the database: load them off the EDT, then open the dialog (null = service unavailable)
+        loader.load("assignDoctors", () -> {
+            try { return Service.DoctorServiceImpl.getInstance().listActive(); } catch (Throwable ex) { return null; }
+        }, doctors -> showAssignAppointmentDialog(patientId, patientName, doctors));
+    }
 
+    private void showAssignAppointmentDialog(String patientId, String patientName, java.util.List<Model.Doctor> doctors) {
         JPanel p = new JPanel(new GridLayout(5, 2, 8, 8));
         p.setBorder(new EmptyBorder(10, 10, 10, 10));
         p.add(new JLabel("Patient:")); JTextField patientField = new JTextField(patientName); patientField.setEditable(false); p.add(patientField);
@@ -396,14 +400,14 @@ public class StaffDashboardPanel extends JPanel implements GlobalSearchable {
 
         // Build doctor label -> Model.Doctor map using DoctorServiceImpl if available; fall back to usernames
         java.util.Map<String, Model.Doctor> doctorByLabel = new java.util.LinkedHashMap<>();
-        try {
-            for (Model.Doctor d : Service.DoctorServiceImpl.getInstance().listActive()) {
+        if (doctors != null) {
+            for (Model.Doctor d : doctors) {
                 String uname = (d.getUser()!=null) ? d.getUser().getUsername() : (d.getDoctorId()==null?"":d.getDoctorId());
                 String spec = d.getSpecialization()==null?"General":d.getSpecialization();
                 String label = uname + " (" + spec + ")";
                 doctorByLabel.put(label, d);
             }
-        } catch (Throwable ignored) {
+        } else {
             // Fallback: use usernames from UserService if DoctorServiceImpl not available
             for (User u : UserService.getInstance().getAllUsers()) {
                 if (u.getRole() == Role.DOCTOR) {
@@ -489,7 +493,7 @@ public class StaffDashboardPanel extends JPanel implements GlobalSearchable {
             Model.Doctor doc = doctorByLabel.get(sel);
             if (doc == null) {
                 // fallback: try to resolve by username
-                try { for (Model.Doctor d : Service.DoctorServiceImpl.getInstance().listActive()) { if (d.getUser()!=null && (d.getUser().getUsername()).equalsIgnoreCase(sel.split(" ")[0])) { doc = d; break; } } } catch (Throwable ignored) {}
+                if (doctors != null) { for (Model.Doctor d : doctors) { if (d.getUser()!=null && (d.getUser().getUsername()).equalsIgnoreCase(sel.split(" ")[0])) { doc = d; break; } } }
             }
             // populate available datetimes
             try { populateSlotsForDoctor.accept(doc, dateTimeCombo); } catch (Throwable ignored) { dateTimeCombo.removeAllItems(); dateTimeCombo.addItem("(no schedule service)"); dateTimeCombo.setEnabled(false); }
@@ -1194,39 +1198,47 @@ public class StaffDashboardPanel extends JPanel implements GlobalSearchable {
         // email validation
         if (!em.matches("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$")) { warn("Please provide a valid email address (used as username)."); return; }
 
-        // Create account: username = email
-        String uname = em;
-        String plainPw = userService.generateNextPlainPassword(); passwordField.setText(plainPw);
-        char[] pw = plainPw.toCharArray();
-        try {
-            userService.createUser(uname, pw, Model.Role.PATIENT);
-            // clear pw array
-            Arrays.fill(pw, '\0');
-            // Populate profile and create Patient model linked to user
-            userService.findByUsername(uname).ifPresent(u -> {
-                // populate profile
-                PatientService.PatientProfile profile = PatientService.getInstance().getProfileByUsername(u.getUsername());
-                profile.surname = ln; profile.firstName = fn; profile.middleName = middleField.getText().trim();
-                profile.dateOfBirth = dobStr; profile.gender = gen; profile.phone = ph; profile.email = em; profile.address = addr;
-                profile.emergencyContactName = emergName; profile.emergencyContactNumber = emergContact;
-                PatientService.getInstance().saveProfile(u.getUsername(), profile);
-
-                // create Patient model for user
-                try {
-                    Patient p = PatientService.getInstance().createPatientForUser(u, fn, ln, dob, gen, ph, addr);
-                    // update patient table
-                    DefaultTableModel m = (DefaultTableModel) patientRegTable.getModel();
-                    int age = 0; try { age = Math.max(0, java.time.Period.between(dob, java.time.LocalDate.now()).getYears()); } catch (Exception ignored) {}
-                    m.addRow(new Object[]{p.getId(), p.getFirstName() + " " + p.getLastName(), age, p.getGender(), "Active"});
-                } catch (Exception ignored) {
-                    // fallback: if createPatientForUser fails, do nothing — profile still saved
-                }
-            });
+        // the same person may already be registered under another spelling
+        Runnable register = () -> {
+            // Create account: username = email
+            String uname = em;
+            String plainPw = userService.generateNextPlainPassword(); passwordField.setText(plainPw);
+            char[] pw = plainPw.toCharArray();
+            try {
+                userService.createUser(uname, pw, Model.Role.PATIENT);
+                // clear pw array
+                Arrays.fill(pw, '\0');
+                // Populate profile and create Patient model linked to user
+                userService.findByUsername(uname).ifPresent(u -> {
+                    // populate profile
+                    PatientService.PatientProfile profile = PatientService.getInstance().getProfileByUsername(u.getUsername());
+                    profile.surname = ln; profile.firstName = fn; profile.middleName = middleField.getText().trim();
+                    profile.dateOfBirth = dobStr; profile.gender = gen; profile.phone = ph; profile.email = em; profile.address = addr;
+                    profile.emergencyContactName = emergName; profile.emergencyContactNumber = emergContact;
+                    PatientService.getInstance().saveProfile(u.getUsername(), profile);
+
+                    // create Patient model for user
+                    try {
+                        Patient p = PatientService.getInstance().createPatientForUser(u, fn, ln, dob, gen, ph, addr);
+                        // update patient table
+                        DefaultTableModel m = (DefaultTableModel) patientRegTable.getModel();
+                        int age = 0; try { age = Math.max(0, java.time.Period.between(dob, java.time.LocalDate.now()).getYears()); } catch (Exception ignored) {}
+                        m.addRow(new Object[]{p.getId(), p.getFirstName() + " " + p.getLastName(), age, p.getGender(), "Active"});
+                    } catch (Exception ignored) {
+                        // fallback: if createPatientForUser fails, do nothing — profile still saved
+                    }
+                });
 
-            JOptionPane.showMessageDialog(this, "Patient account created (username: " + uname + ")\nGenerated password: " + plainPw, "Success", JOptionPane.INFORMATION_MESSAGE);
-        } catch (IllegalArgumentException ex) {
-            JOptionPane.showMessageDialog(this, "Failed to create user: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.showMessageDialog(this, "Patient account created (username: " + uname + ")\nGenerated password: " + plainPw, "Success", JOptionPane.INFORMATION_MESSAGE);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, "Failed to create user: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        };
+        loader.load("duplicateCheck", () -> PatientService.getInstance().findPossibleDuplicates(fn, ln, dob), matches -> {
+            if (PatientManagementPanel.confirmDespiteDuplicates(this, matches)) register.run();
+        }, err -> {
+            if (PatientManagementPanel.confirmWithoutDuplicateCheck(this, err)) register.run();
+        });
     }
     private void openViewPatientDialog() {
         int row = patientRegTable.getSelectedRow(); if (row==-1){warn("Select a patient first"); return;}
@@ -1433,87 +1445,30 @@ public class StaffDashboardPanel extends JPanel implements GlobalSearchable {
     @Override
     public void clearGlobalFilter() { columnFilters.clear(); refreshAllFilters(); }
     private void refreshAllFilters(){ getSearchableTables().forEach(this::applyFiltersToTable); }
-    @SuppressWarnings("unchecked")
     private void applyFiltersToTable(String logicalName, JTable table){
-        if (table.getRowSorter()==null) table.setRowSorter(new TableRowSorter<>(table.getModel()));
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) table.getRowSorter();
-        List<RowFilter<TableModel,Object>> filters = new ArrayList<>();
-        if (globalSearchQuery!=null){ final String q=globalSearchQuery.toLowerCase(); filters.add(new RowFilter<TableModel,Object>(){ @Override public boolean include(Entry<? extends TableModel, ? extends Object> entry){ for(int i=0;i<entry.getValueCount();i++){ Object v=entry.getValue(i); if(v!=null && v.toString().toLowerCase().contains(q)) return true;} return false; }}); }
-        Map<String,String> colMap = columnFilters.get(logicalName);
-        if (colMap!=null){ for(Map.Entry<String,String> e: colMap.entrySet()){ String colName=e.getKey(); String val=e.getValue(); if(val==null||val.isBlank()) continue; int colIndex; try{ colIndex=table.getColumnModel().getColumnIndex(colName);} catch(IllegalArgumentException ex){ continue;} final String qv=val.toLowerCase(); filters.add(new RowFilter<TableModel,Object>(){ @Override public boolean include(Entry<? extends TableModel, ? extends Object> entry){ Object v=entry.getValue(colIndex); return v!=null && v.toString().toLowerCase().contains(qv);} }); }}
-        if (filters.isEmpty()) sorter.setRowFilter(null); else if(filters.size()==1) sorter.setRowFilter(filters.get(0)); else sorter.setRowFilter(RowFilter.andFilter(filters));
+        TableFilter.of(table, loader).filter(globalSearchQuery, columnFilters.get(logicalName));
     }
 
     // PATIENT REGISTRATION FILTERING ----------------------------------
     private void filterPatientRegTable(String query) {
-        @SuppressWarnings("unchecked")
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) patientRegTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(patientRegTable.getModel());
-            patientRegTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            // Search across Name (1), Gender (3), Status (4)
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 3, 4));
-        }
+        // Search across Name (1), Gender (3), Status (4)
+        TableFilter.of(patientRegTable, loader).filter(query, null, 1, 3, 4);
     }
 
     private void filterMedicalTable(String query) {
-        @SuppressWarnings("unchecked")
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) medicalRecordTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(medicalRecordTable.getModel());
-            medicalRecordTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 2, 3));
-        }
+        TableFilter.of(medicalRecordTable, loader).filter(query, null, 1, 2, 3);
     }
 
     private void filterBillingTable(String query) {
-        @SuppressWarnings("unchecked")
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) billingTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(billingTable.getModel());
-            billingTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 3, 4));
-        }
+        TableFilter.of(billingTable, loader).filter(query, null, 1, 3, 4);
     }
 
     private void filterLabTable(String query) {
-        @SuppressWarnings("unchecked")
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) labTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(labTable.getModel());
-            labTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 2, 3));
-        }
+        TableFilter.of(labTable, loader).filter(query, null, 1, 2, 3);
     }
 
     private void filterAdmissionTable(String query) {
-        @SuppressWarnings("unchecked")
-        TableRowSorter<TableModel> sorter = (TableRowSorter<TableModel>) admissionTable.getRowSorter();
-        if (sorter == null) {
-            sorter = new TableRowSorter<>(admissionTable.getModel());
-            admissionTable.setRowSorter(sorter);
-        }
-        if (query == null || query.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + query, 1, 3));
-        }
+        TableFilter.of(admissionTable, loader).filter(query, null, 1, 3);
     }
 
     // Admission handlers (simple UI-only implementations)
@@ -0,0 +1,260 @@
+package UI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.swing.JTable;
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.Timer;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * Search-as-you-type row filtering for a table, evaluated off the event
+ * dispatch thread.
+ *
+ * Requests are debounced: each one restarts a short timer and only the last
+ * is evaluated. The lower-cased text of every cell is cached per model row and
+ * kept in step with the model's change events, so an evaluation reads only
+ * cached strings (rows changed since are re-read from the model on the EDT,
+ * which is cheap, and lower-cased in the background). The matching model rows
+ * are computed by the panel's {@link BackgroundLoader} and installed on the
+ * table's TableRowSorter as a filter that just looks each row up, so sorting
+ * is kept and the EDT never stringifies the table.
+ *
+ * Matching is case-insensitive and literal (no regular expressions): a row
+ * passes when the query occurs in one of the query columns and every column
+ * filter occurs in its column. While the model changes under an installed
+ * filter, rows are matched directly until the next evaluation catches up. One
+ * TableFilter per table (see {@link #of}); use on the EDT only.
+ */
+public final class TableFilter {
+    private static final int DEBOUNCE_MS = 150;
+    private static final String CLIENT_KEY = TableFilter.class.getName();
+
+    private final JTable table;
+    private final BackgroundLoader loader;
+    private final String key;
+    private final Timer debounce;
+    private final TableModelListener modelListener = this::modelChanged;
+
+    private TableModel model;
+    // lower-cased cell text by model row; null for rows not read since they changed
+    private final List<String[]> cache = new ArrayList<>();
+    private int version;
+
+    private String query;
+    private int[] queryColumns;
+    private Map<Integer, String> columnValues = Collections.emptyMap();
+
+    private TableFilter(JTable table, BackgroundLoader loader) {
+        this.table = table;
+        this.loader = loader;
+        this.key = "filter:" + System.identityHashCode(table);
+        this.debounce = new Timer(DEBOUNCE_MS, e -> evaluate());
+        this.debounce.setRepeats(false);
+    }
+
+    /** The filter of a table, created on first use. */
+    public static TableFilter of(JTable table, BackgroundLoader loader) {
+        Object existing = table.getClientProperty(CLIENT_KEY);
+        if (existing instanceof TableFilter)
+            return (TableFilter) existing;
+        TableFilter filter = new TableFilter(table, loader);
+        table.putClientProperty(CLIENT_KEY, filter);
+        return filter;
+    }
+
+    /** Show rows containing {@code query} in any column (null or blank: all rows). */
+    public void filter(String query) {
+        filter(query, null);
+    }
+
+    /**
+     * Show rows containing {@code query} in one of {@code queryColumns} (model
+     * indexes; none given: any column) and, for each entry of
+     * {@code columnFilters}, its value in the column of that name. Null or
+     * blank values are ignored, as are column names the table does not have.
+     */
+    public void filter(String query, Map<String, String> columnFilters, int... queryColumns) {
+        Map<Integer, String> columns = new LinkedHashMap<>();
+        if (columnFilters != null) {
+            for (Map.Entry<String, String> e : columnFilters.entrySet()) {
+                if (e.getValue() == null || e.getValue().isBlank())
+                    continue;
+                try {
+                    int view = table.getColumnModel().getColumnIndex(e.getKey());
+                    columns.put(table.convertColumnIndexToModel(view), lower(e.getValue().trim()));
+                } catch (IllegalArgumentException ex) {
+                    // no such column in this table
+                }
+            }
+        }
+        this.query = query == null || query.isBlank() ? null : lower(query.trim());
+        this.queryColumns = queryColumns == null || queryColumns.length == 0 ? null : queryColumns.clone();
+        this.columnValues = columns;
+        if (this.query == null && columns.isEmpty()) {
+            // clearing is cheap: no need to wait
+            debounce.stop();
+            loader.cancel(key);
+            TableRowSorter<TableModel> sorter = sorter();
+            if (sorter.getRowFilter() != null)
+                sorter.setRowFilter(null);
+            return;
+        }
+        debounce.restart();
+    }
+
+    private boolean isActive() {
+        return query != null || !columnValues.isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private TableRowSorter<TableModel> sorter() {
+        RowSorter<? extends TableModel> rs = table.getRowSorter();
+        if (rs instanceof TableRowSorter && rs.getModel() == table.getModel())
+            return (TableRowSorter<TableModel>) rs;
+        TableRowSorter<TableModel> sorter = new TableRowSorter<>(table.getModel());
+        table.setRowSorter(sorter);
+        return sorter;
+    }
+
+    // --- Row text cache ---------------------------------------------
+    private void attach() {
+        TableModel m = table.getModel();
+        if (m == model)
+            return;
+        if (model != null)
+            model.removeTableModelListener(modelListener);
+        model = m;
+        model.addTableModelListener(modelListener);
+        cache.clear();
+        version++;
+    }
+
+    private void modelChanged(TableModelEvent e) {
+        int first = e.getFirstRow();
+        int last = e.getLastRow();
+        if (first == TableModelEvent.HEADER_ROW || last == Integer.MAX_VALUE) {
+            // structure or whole-table change
+            cache.clear();
+        } else if (e.getType() == TableModelEvent.INSERT) {
+            if (first <= cache.size())
+                cache.addAll(first, Collections.nCopies(last - first + 1, null));
+            else
+                cache.clear();
+        } else if (e.getType() == TableModelEvent.DELETE) {
+            if (last < cache.size())
+                cache.subList(first, last + 1).clear();
+            else
+                cache.clear();
+        } else {
+            for (int r = first; r <= last && r < cache.size(); r++)
+                cache.set(r, null);
+        }
+        version++;
+        if (isActive())
+            debounce.restart();
+    }
+
+    private static String lower(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    // --- Evaluation -------------------------------------------------
+    private void evaluate() {
+        if (!isActive())
+            return;
+        attach();
+        int rowCount = model.getRowCount();
+        int columnCount = model.getColumnCount();
+        if (cache.size() != rowCount) {
+            cache.clear();
+            cache.addAll(Collections.nCopies(rowCount, null));
+        }
+        // raw values of rows not cached yet; reading them is cheap, converting is not
+        Map<Integer, Object[]> missing = new HashMap<>();
+        for (int r = 0; r < rowCount; r++) {
+            if (cache.get(r) != null)
+                continue;
+            Object[] values = new Object[columnCount];
+            for (int c = 0; c < columnCount; c++)
+                values[c] = model.getValueAt(r, c);
+            missing.put(r, values);
+        }
+        String[][] rows = cache.toArray(new String[0][]);
+        int v = version;
+        String q = query;
+        int[] qCols = queryColumns;
+        Map<Integer, String> cols = columnValues;
+        loader.load(key, () -> {
+            for (Map.Entry<Integer, Object[]> e : missing.entrySet()) {
+                Object[] values = e.getValue();
+                String[] text = new String[values.length];
+                for (int c = 0; c < values.length; c++)
+                    text[c] = values[c] == null ? "" : lower(values[c].toString());
+                rows[e.getKey()] = text;
+            }
+            boolean[] matches = new boolean[rows.length];
+            for (int r = 0; r < rows.length; r++)
+                matches[r] = matches(rows[r], q, qCols, cols);
+            return new Object[] { rows, matches };
+        }, result -> {
+            if (v != version) {
+                // the model changed while matching; the change restarted the timer
+                return;
+            }
+            String[][] filled = (String[][]) result[0];
+            for (int r = 0; r < filled.length; r++)
+                cache.set(r, filled[r]);
+            install((boolean[]) result[1], v, q, qCols, cols);
+        });
+    }
+
+    private static boolean matches(String[] text, String q, int[] qCols, Map<Integer, String> cols) {
+        for (Map.Entry<Integer, String> e : cols.entrySet()) {
+            int c = e.getKey();
+            if (c >= text.length || !text[c].contains(e.getValue()))
+                return false;
+        }
+        if (q == null)
+            return true;
+        if (qCols == null) {
+            for (String t : text) {
+                if (t.contains(q))
+                    return true;
+            }
+            return false;
+        }
+        for (int c : qCols) {
+            if (c < text.length && text[c].contains(q))
+                return true;
+        }
+        return false;
+    }
+
+    private void install(boolean[] matches, int v, String q, int[] qCols, Map<Integer, String> cols) {
+        sorter().setRowFilter(new RowFilter<TableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                int row = entry.getIdentifier();
+                if (v == version && row < matches.length)
+                    return matches[row];
+                // rows changed since the evaluation: match them directly until the next one
+                String[] text = new String[entry.getValueCount()];
+                for (int c = 0; c < text.length; c++) {
+                    Object value = entry.getValue(c);
+                    text[c] = value == null ? "" : lower(value.toString());
+                }
+                return matches(text, q, qCols, cols);
+            }
+        });
+    }
+}
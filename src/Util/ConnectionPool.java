@@ -0,0 +1,351 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small bounded JDBC connection pool used by {@link DB}.
+ *
+ * Connections handed out are proxies: calling close() returns the physical
+ * connection to the pool instead of closing it. The pool keeps between
+ * minSize and maxSize physical connections, validates connections that have
+ * been idle for a while before handing them out, evicts connections idle longer
+ * than idleTimeout (never dropping below minSize) and logs a warning with the
+ * borrowing stack when a connection is held longer than the leak threshold.
+ *
+ * Settings are read from config/db.properties (see db.properties.example):
+ * db.pool.minSize, db.pool.maxSize, db.pool.acquireTimeoutMs,
+ * db.pool.idleTimeoutMs, db.pool.validateAfterMs, db.pool.validationTimeoutSec,
+ * db.pool.leakDetectionMs (0 disables leak detection),
+ * db.pool.statementCacheSize (prepared statements cached per connection, 0
+ * disables the cache; see {@link StatementCache}).
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long validateAfterMs;
+    private final int validationTimeoutSec;
+    private final long leakDetectionMs;
+    private final int statementCacheSize;
+
+    // permits = connections that may still be borrowed (bounds total open connections)
+    private final Semaphore permits;
+    // most recently returned first so warm connections are reused
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Map<PooledConnection, Boolean> borrowed = new ConcurrentHashMap<>();
+    private final AtomicInteger totalOpen = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+
+    public ConnectionPool(String url, String user, String password, Properties cfg) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(1, intProp(cfg, "db.pool.maxSize", 10));
+        this.minSize = Math.min(maxSize, Math.max(0, intProp(cfg, "db.pool.minSize", 2)));
+        this.acquireTimeoutMs = Math.max(0, longProp(cfg, "db.pool.acquireTimeoutMs", 5000));
+        this.idleTimeoutMs = Math.max(0, longProp(cfg, "db.pool.idleTimeoutMs", 300000));
+        this.validateAfterMs = Math.max(0, longProp(cfg, "db.pool.validateAfterMs", 1000));
+        this.validationTimeoutSec = Math.max(1, intProp(cfg, "db.pool.validationTimeoutSec", 2));
+        this.leakDetectionMs = Math.max(0, longProp(cfg, "db.pool.leakDetectionMs", 60000));
+        this.statementCacheSize = Math.max(0, intProp(cfg, "db.pool.statementCacheSize", 64));
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hpms-db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = 30000;
+        if (idleTimeoutMs > 0)
+            period = Math.min(period, idleTimeoutMs / 2);
+        if (leakDetectionMs > 0)
+            period = Math.min(period, leakDetectionMs / 2);
+        period = Math.max(500, period);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Borrow a connection, waiting up to acquireTimeoutMs for one to become
+     * available. The returned connection has auto-commit enabled.
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown)
+            throw new SQLException("Connection pool has been shut down");
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            throw new SQLException("Timed out after " + acquireTimeoutMs + " ms waiting for a database connection (pool size "
+                    + maxSize + ", in use " + borrowed.size() + ")");
+        }
+        try {
+            PooledConnection pc = takeIdleOrOpen();
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowTrace = leakDetectionMs > 0 ? new Throwable("Connection borrowed here") : null;
+            pc.leakReported = false;
+            borrowed.put(pc, Boolean.TRUE);
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    private PooledConnection takeIdleOrOpen() throws SQLException {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            if (System.currentTimeMillis() - pc.lastReturnedAt < validateAfterMs || isUsable(pc))
+                return pc;
+            discard(pc);
+        }
+        return open();
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            return !pc.physical.isClosed() && pc.physical.isValid(validationTimeoutSec);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection c = DriverManager.getConnection(url, user, password);
+        c.setAutoCommit(true);
+        totalOpen.incrementAndGet();
+        return new PooledConnection(c);
+    }
+
+    private void discard(PooledConnection pc) {
+        totalOpen.decrementAndGet();
+        pc.statements.clear();
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /** Called by a handle's close(): reset state and put the connection back. */
+    private void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        pc.statements.onConnectionReturned();
+        try {
+            boolean healthy = !pc.physical.isClosed();
+            if (healthy && !pc.physical.getAutoCommit()) {
+                // never hand out a connection with a half-finished transaction
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            if (healthy && !shutdown) {
+                pc.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            } else {
+                discard(pc);
+            }
+        } catch (SQLException ex) {
+            System.err.println("[ConnectionPool] Dropping connection that failed to reset: " + ex.getMessage());
+            discard(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            if (idleTimeoutMs > 0) {
+                // oldest idle connections sit at the tail of the deque
+                PooledConnection pc;
+                while (totalOpen.get() > minSize && (pc = idle.peekLast()) != null
+                        && now - pc.lastReturnedAt > idleTimeoutMs) {
+                    if (idle.removeLastOccurrence(pc))
+                        discard(pc);
+                }
+            }
+            if (leakDetectionMs > 0) {
+                for (PooledConnection pc : borrowed.keySet()) {
+                    if (!pc.leakReported && now - pc.borrowedAt > leakDetectionMs) {
+                        pc.leakReported = true;
+                        System.err.println("[ConnectionPool] Possible connection leak: connection held for "
+                                + (now - pc.borrowedAt) + " ms");
+                        if (pc.borrowTrace != null)
+                            pc.borrowTrace.printStackTrace();
+                    }
+                }
+            }
+            fillToMinimum();
+        } catch (RuntimeException ex) {
+            System.err.println("[ConnectionPool] Housekeeping error: " + ex.getMessage());
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!shutdown && totalOpen.get() < minSize && permits.tryAcquire()) {
+            try {
+                PooledConnection pc = open();
+                pc.lastReturnedAt = System.currentTimeMillis();
+                idle.offerLast(pc);
+            } catch (SQLException ex) {
+                System.err.println("[ConnectionPool] Could not pre-open connection: " + ex.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /** Close all idle connections and stop accepting new borrowers. */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null)
+            discard(pc);
+    }
+
+    public int getTotalConnections() {
+        return totalOpen.get();
+    }
+
+    public int getIdleConnections() {
+        return idle.size();
+    }
+
+    public int getActiveConnections() {
+        return borrowed.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /** Prepared statements served from a connection's statement cache. */
+    public long getStatementCacheHits() {
+        return StatementCache.getHits();
+    }
+
+    /** Prepared statements that had to be parsed by the driver/server. */
+    public long getStatementCacheMisses() {
+        return StatementCache.getMisses();
+    }
+
+    public long getStatementCacheEvictions() {
+        return StatementCache.getEvictions();
+    }
+
+    public double getStatementCacheHitRatio() {
+        long h = getStatementCacheHits(), m = getStatementCacheMisses();
+        return h + m == 0 ? 0.0 : (double) h / (h + m);
+    }
+
+    private static int intProp(Properties cfg, String key, int def) {
+        try {
+            return Integer.parseInt(cfg.getProperty(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException ex) {
+            return def;
+        }
+    }
+
+    private static long longProp(Properties cfg, String key, long def) {
+        try {
+            return Long.parseLong(cfg.getProperty(key, String.valueOf(def)).trim());
+        } catch (NumberFormatException ex) {
+            return def;
+        }
+    }
+
+    /** One physical connection plus the bookkeeping the pool needs for it. */
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements;
+        volatile long lastReturnedAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowTrace;
+        volatile boolean leakReported;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = new StatementCache(physical, statementCacheSize);
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new Handle(this));
+        }
+    }
+
+    /**
+     * Logical connection given to callers. A fresh handle is created per borrow
+     * so a stale reference cannot touch a connection that has been re-issued.
+     */
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pc;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    synchronized (this) {
+                        if (pc != null) {
+                            PooledConnection p = pc;
+                            pc = null;
+                            release(p);
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return pc == null || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pc == null ? "closed" : pc.physical.toString()) + "]";
+                default:
+                    break;
+            }
+            PooledConnection current = pc;
+            if (current == null)
+                throw new SQLException("Connection is closed");
+            if ("prepareStatement".equals(name) && args.length == 1)
+                return current.statements.prepare((String) args[0], (Connection) proxy);
+            try {
+                return method.invoke(current.physical, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
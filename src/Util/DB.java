@@ -15,14 +15,22 @@ import java.sql.Statement;
 import java.util.Properties;
 
 /**
- * Minimal DB helper using plain JDBC DriverManager for development.
+ * Minimal DB helper using plain JDBC for development.
  * Defaults to an embedded H2 file database if no config provided.
+ * Connections come from a bounded {@link ConnectionPool} unless
+ * db.pool.enabled=false, in which case every call opens a fresh connection.
  *
  * Notes:
  * - Add the H2 JDBC jar (or your chosen DB driver) to the project's classpath
  * in Eclipse.
  * - The helper will attempt to execute `sql/schema.sql` once when
- * `initDatabase()` is called.
+ * `initDatabase()` is called, translated for the configured database by
+ * {@link SqlDialect#translateDdl}.
+ * - db.profile=h2-mem (or -Dhpms.db.profile=h2-mem) switches to a private
+ * in-memory H2 database for benchmarks, load tests and CI: the connection
+ * settings in the file are ignored and the schema is created on first use.
+ * - MySQL URLs get useAffectedRows=true, so an upsert that changes nothing
+ * reports 0 rows (see {@link SqlDialect#upsertSkipsKeyClash}).
  */
 public class DB {
     private static final Properties cfg = new Properties();
@@ -31,6 +39,11 @@ public class DB {
     private static final String DEFAULT_URL = "jdbc:h2:file:./data/hpms;AUTO_SERVER=TRUE";
     private static final String DEFAULT_USER = "sa";
     private static final String DEFAULT_PASS = "";
+    private static final String H2_MEM_PROFILE = "h2-mem";
+    // DB_CLOSE_DELAY=-1 keeps the database alive while no connection is open
+    private static final String H2_MEM_URL = "jdbc:h2:mem:hpms;DB_CLOSE_DELAY=-1";
+    private static final SqlDialect dialect;
+    private static volatile ConnectionPool pool;
 
     static {
         // load properties if available, otherwise use defaults
@@ -39,6 +52,19 @@ public class DB {
         } catch (Exception e) {
             // no config found - proceed with defaults
         }
+        String profile = System.getProperty("hpms.db.profile", cfg.getProperty("db.profile", "")).trim();
+        if (H2_MEM_PROFILE.equalsIgnoreCase(profile)) {
+            cfg.setProperty("db.driver", "org.h2.Driver");
+            cfg.setProperty("db.url", H2_MEM_URL);
+            cfg.setProperty("db.user", DEFAULT_USER);
+            cfg.setProperty("db.password", DEFAULT_PASS);
+            cfg.setProperty("db.init", "true");
+        } else if (!profile.isEmpty()) {
+            System.err.println("[DB] Unknown db.profile '" + profile + "', using db.url");
+        }
+        dialect = SqlDialect.fromUrl(cfg.getProperty("db.url", DEFAULT_URL));
+        if (dialect == SqlDialect.MYSQL)
+            cfg.setProperty("db.url", withAffectedRows(cfg.getProperty("db.url", DEFAULT_URL)));
         // ensure driver is loaded when possible (silently ignore if missing)
         try {
             String driver = cfg.getProperty("db.driver", DEFAULT_DRIVER);
@@ -47,19 +73,143 @@ public class DB {
         }
     }
 
+    // Connector/J reports matched rather than changed rows unless told otherwise
+    private static String withAffectedRows(String url) {
+        if (url.contains("useAffectedRows="))
+            return url.replace("useAffectedRows=false", "useAffectedRows=true");
+        return url + (url.indexOf('?') < 0 ? "?" : "&") + "useAffectedRows=true";
+    }
+
     public static Connection getConnection() throws SQLException {
         String url = cfg.getProperty("db.url", DEFAULT_URL);
+        if (isInMemory(url))
+            InMemorySchema.ensureCreated();
         String user = cfg.getProperty("db.user", DEFAULT_USER);
         String pass = cfg.getProperty("db.password", DEFAULT_PASS);
+        if (!"false".equalsIgnoreCase(cfg.getProperty("db.pool.enabled", "true").trim())) {
+            return getPool(url, user, pass).getConnection();
+        }
         Connection conn = DriverManager.getConnection(url, user, pass);
         // Ensure auto-commit is enabled to persist changes immediately
         conn.setAutoCommit(true);
         return conn;
     }
 
+    private static ConnectionPool getPool(String url, String user, String pass) {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DB.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool(url, user, pass, cfg);
+                    pool = p;
+                    Runtime.getRuntime().addShutdownHook(new Thread(DB::shutdown, "hpms-db-pool-shutdown"));
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Rows per executeBatch() flush for repository batch writes (db.batchSize,
+     * default 500).
+     */
+    public static int getBatchSize() {
+        try {
+            return Math.max(1, Integer.parseInt(cfg.getProperty("db.batchSize", "500").trim()));
+        } catch (NumberFormatException ex) {
+            return 500;
+        }
+    }
+
+    /**
+     * Rows fetched per round trip when streaming query results (db.fetchSize,
+     * default 500).
+     */
+    public static int getFetchSize() {
+        try {
+            return Math.max(1, Integer.parseInt(cfg.getProperty("db.fetchSize", "500").trim()));
+        } catch (NumberFormatException ex) {
+            return 500;
+        }
+    }
+
+    /**
+     * Entries kept by the entity cache with the given name
+     * (db.cache.&lt;name&gt;.maxSize, else db.cache.maxSize, default 1000; 0
+     * disables caching).
+     */
+    public static int getCacheMaxSize(String cacheName) {
+        String value = cfg.getProperty("db.cache." + cacheName + ".maxSize", cfg.getProperty("db.cache.maxSize", "1000"));
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException ex) {
+            return 1000;
+        }
+    }
+
+    /**
+     * How long an entity cache entry stays fresh (db.cache.&lt;name&gt;.ttlSeconds,
+     * else db.cache.ttlSeconds, default 60; 0 means no expiry).
+     */
+    public static long getCacheTtlMillis(String cacheName) {
+        String value = cfg.getProperty("db.cache." + cacheName + ".ttlSeconds", cfg.getProperty("db.cache.ttlSeconds", "60"));
+        try {
+            return Math.max(0L, Long.parseLong(value.trim())) * 1000L;
+        } catch (NumberFormatException ex) {
+            return 60_000L;
+        }
+    }
+
+    /** SQL dialect matching the configured db.url. */
+    public static SqlDialect getDialect() {
+        return dialect;
+    }
+
+    private static boolean isInMemory(String url) {
+        return url.regionMatches(true, 0, "jdbc:h2:mem:", 0, 12);
+    }
+
+    /**
+     * An in-memory database starts empty every run, so its schema is created
+     * by the first getConnection() call (class initialization runs it once; other
+     * threads wait for it and the initializing thread's own nested calls pass
+     * straight through).
+     */
+    private static final class InMemorySchema {
+        static {
+            initDatabase();
+        }
+
+        static void ensureCreated() {
+        }
+    }
+
+    /**
+     * The active connection pool, or null when pooling is disabled or no
+     * connection has been requested yet.
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /** Close pooled connections (safe to call more than once). */
+    public static void shutdown() {
+        ConnectionPool p = pool;
+        if (p != null) {
+            pool = null;
+            if (p.getStatementCacheHits() + p.getStatementCacheMisses() > 0) {
+                System.out.println(String.format("[DB] Statement cache: %d hits, %d misses, %d evictions (%.1f%% hit ratio)",
+                        p.getStatementCacheHits(), p.getStatementCacheMisses(), p.getStatementCacheEvictions(),
+                        p.getStatementCacheHitRatio() * 100));
+            }
+            p.shutdown();
+        }
+    }
+
     /**
      * Initialize the database by executing sql/schema.sql (if present) only when
-     * db.init=true.
+     * db.init=true. Each statement is translated for the configured dialect.
      */
     public static void initDatabase() {
         String initFlag = cfg.getProperty("db.init", "false");
@@ -85,15 +235,16 @@ public class DB {
             // naive split on semicolon - suitable for simple DDL scripts
             String[] parts = sb.toString().split(";\\s*\\n");
             for (String p : parts) {
-                String sql = p.trim();
-                if (sql.isEmpty())
+                if (p.trim().isEmpty())
                     continue;
-                try {
-                    st.execute(sql);
-                } catch (SQLException ex) {
-                    // log and continue - many scripts include IF NOT EXISTS so failures may be
-                    // harmless
-                    System.err.println("[DB] Failed to execute SQL statement: " + ex.getMessage());
+                for (String sql : dialect.translateDdl(p)) {
+                    try {
+                        st.execute(sql);
+                    } catch (SQLException ex) {
+                        // log and continue - many scripts include IF NOT EXISTS so failures may be
+                        // harmless
+                        System.err.println("[DB] Failed to execute SQL statement: " + ex.getMessage());
+                    }
                 }
             }
         } catch (Exception ex) {
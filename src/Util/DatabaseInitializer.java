@@ -41,6 +41,9 @@ public class DatabaseInitializer {
         System.out.println("[DatabaseInitializer] Initializing database schema...");
         DB.initDatabase();
 
+        // Step 2a: Upgrade databases created from an older schema (new columns, backfills, indexes)
+        SchemaMigrations.apply();
+
         // Step 2b: Ensure required seed data exists (e.g., departments)
         ensureDepartmentsSeeded();
 
@@ -76,13 +79,15 @@ public class DatabaseInitializer {
                     new Model.Department("DEPT-002", "Orthopedics", "Orthopedic Department"),
                     new Model.Department("DEPT-003", "Pediatrics", "Pediatric Department"));
 
+            java.util.List<Model.Department> missing = new java.util.ArrayList<>();
             for (Model.Department d : defaults) {
                 java.util.Optional<Model.Department> existing = deptRepo.findById(d.getId());
                 if (existing.isEmpty()) {
                     System.out.println("[DatabaseInitializer] Seeding department: " + d.getId() + " - " + d.getName());
-                    deptRepo.save(d);
+                    missing.add(d);
                 }
             }
+            deptRepo.saveAll(missing);
         } catch (Exception ex) {
             System.err.println("[DatabaseInitializer] Error seeding departments: " + ex.getMessage());
         }
@@ -99,53 +104,65 @@ public class DatabaseInitializer {
         Repository.StaffRepository staffRepo = Repository.StaffRepository.getInstance();
         Repository.AppointmentRepository appointmentRepo = Repository.AppointmentRepository.getInstance();
 
-        // Helper to delete a user and any dependent rows
-        java.util.function.Consumer<String> deleteUserCascade = username -> {
+        // Collect ids first, then delete each table in one batch (children before
+        // parents to satisfy FKs)
+        java.util.List<String> patientIds = new java.util.ArrayList<>();
+        java.util.List<String> doctorIds = new java.util.ArrayList<>();
+        java.util.List<String> staffIds = new java.util.ArrayList<>();
+        java.util.List<String> userIds = new java.util.ArrayList<>();
+
+        // Helper to collect a user and any dependent rows
+        java.util.function.Consumer<String> collectUserCascade = username -> {
             try {
                 java.util.Optional<Model.User> u = userRepo.findByUsername(username);
                 if (u.isPresent()) {
                     String userId = u.get().getId();
-                    // Delete patient linked to user first (to satisfy FK)
-                    java.util.Optional<Model.Patient> pt = patientRepo.findByUserId(userId);
-                    pt.ifPresent(p -> patientRepo.delete(p.getId()));
-                    // Delete doctor linked to user
-                    java.util.Optional<Model.Doctor> doc = doctorRepo.findByUserId(userId);
-                    doc.ifPresent(d -> {
-                        // Appointments that reference this doctor will be deleted via FK constraints or
-                        // handled separately
-                        doctorRepo.delete(d.getDoctorId());
-                    });
-                    // Delete staff linked to user
-                    java.util.Optional<Model.Staff> st = staffRepo.findByUserId(userId);
-                    st.ifPresent(s -> staffRepo.delete(s.getStaffId()));
-                    // Try to delete user directly (patients may reference users)
-                    userRepo.delete(userId);
+                    // Patient linked to user
+                    patientRepo.findByUserId(userId).ifPresent(p -> patientIds.add(p.getId()));
+                    // Doctor linked to user (appointments referencing it are removed via FK
+                    // constraints or handled separately)
+                    doctorRepo.findByUserId(userId).ifPresent(d -> doctorIds.add(d.getDoctorId()));
+                    // Staff linked to user
+                    staffRepo.findByUserId(userId).ifPresent(s -> staffIds.add(s.getStaffId()));
+                    userIds.add(userId);
                 }
             } catch (Exception ex) {
                 System.err.println("[DatabaseInitializer] purge user '" + username + "' error: " + ex.getMessage());
             }
         };
 
-        // Delete known demo users
-        deleteUserCascade.accept("testuser");
-        deleteUserCascade.accept("testpatient");
-        deleteUserCascade.accept("testdoctor");
-        deleteUserCascade.accept("teststaff");
-        deleteUserCascade.accept("appointpatient");
-        deleteUserCascade.accept("appointdoctor");
-        deleteUserCascade.accept("billpatient");
+        // Known demo users
+        collectUserCascade.accept("testuser");
+        collectUserCascade.accept("testpatient");
+        collectUserCascade.accept("testdoctor");
+        collectUserCascade.accept("teststaff");
+        collectUserCascade.accept("appointpatient");
+        collectUserCascade.accept("appointdoctor");
+        collectUserCascade.accept("billpatient");
 
-        // Delete known demo patients by patient number
+        // Known demo patients by patient number
         try {
-            java.util.Optional<Model.Patient> p1 = patientRepo.findByPatientNumber("PT-TEST-001");
-            p1.ifPresent(p -> patientRepo.delete(p.getId()));
-            java.util.Optional<Model.Patient> p2 = patientRepo.findByPatientNumber("PT-APP-001");
-            p2.ifPresent(p -> patientRepo.delete(p.getId()));
-            java.util.Optional<Model.Patient> p3 = patientRepo.findByPatientNumber("PT-BILL-001");
-            p3.ifPresent(p -> patientRepo.delete(p.getId()));
+            for (String pnum : new String[] { "PT-TEST-001", "PT-APP-001", "PT-BILL-001" }) {
+                patientRepo.findByPatientNumber(pnum).ifPresent(p -> {
+                    if (!patientIds.contains(p.getId()))
+                        patientIds.add(p.getId());
+                });
+            }
         } catch (Exception ex) {
             System.err.println("[DatabaseInitializer] purge patient numbers error: " + ex.getMessage());
         }
+
+        // one commit for the whole purge; a failure leaves every table untouched
+        try {
+            Repository.Transaction.run(() -> {
+                patientRepo.deleteAll(patientIds);
+                doctorRepo.deleteAll(doctorIds);
+                staffRepo.deleteAll(staffIds);
+                userRepo.deleteAll(userIds);
+            });
+        } catch (IllegalStateException ex) {
+            System.err.println("[DatabaseInitializer] purge rolled back: " + ex.getMessage());
+        }
     }
 
     /**
@@ -519,10 +536,13 @@ public class DatabaseInitializer {
         Properties props = new Properties();
         try (FileInputStream fis = new FileInputStream(CONFIG_PATH)) {
             props.load(fis);
+            System.out.println("Profile: " + System.getProperty("hpms.db.profile", props.getProperty("db.profile", "(none)")));
             System.out.println("Driver: " + props.getProperty("db.driver"));
             System.out.println("URL: " + props.getProperty("db.url"));
             System.out.println("User: " + props.getProperty("db.user"));
             System.out.println("Init on startup: " + props.getProperty("db.init"));
+            System.out.println("Pool: " + props.getProperty("db.pool.enabled", "true") + " (min "
+                    + props.getProperty("db.pool.minSize", "2") + ", max " + props.getProperty("db.pool.maxSize", "10") + ")");
         } catch (IOException e) {
             System.out.println("Could not read configuration: " + e.getMessage());
         }
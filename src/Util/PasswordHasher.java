@@ -12,6 +12,10 @@ import java.util.Arrays;
  * PBKDF2 password hashing util using PBKDF2WithHmacSHA256.
  *
  * Stored format: pbkdf2_sha256$iterations$base64(salt)$base64(hash)
+ *
+ * Each thread keeps its own SecretKeyFactory (factories are not thread-safe and
+ * getInstance() walks the provider list every call). Hashing is deliberately
+ * slow; run it off the EDT through {@link PasswordHashingPool}.
  */
 public final class PasswordHasher {
     private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
@@ -19,6 +23,13 @@ public final class PasswordHasher {
     private static final int DEFAULT_ITER = 65536;
     private static final int KEY_LENGTH = 256; // bits
     private static final SecureRandom RAND = new SecureRandom();
+    private static final ThreadLocal<SecretKeyFactory> KDF = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    });
 
     private PasswordHasher() {}
 
@@ -34,6 +45,24 @@ public final class PasswordHasher {
         return String.format("pbkdf2_sha256$%d$%s$%s", iterations, encodedSalt, encodedHash);
     }
 
+    /** Iteration count used for new hashes. */
+    public static int currentIterations() { return DEFAULT_ITER; }
+
+    /**
+     * True if a stored hash should be replaced after the next successful login
+     * because it uses fewer iterations than {@link #currentIterations()}.
+     */
+    public static boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith("pbkdf2_sha256$")) return false;
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            return Integer.parseInt(parts[1]) < DEFAULT_ITER;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
     public static boolean verify(char[] password, String stored) {
         if (password == null || stored == null || !stored.startsWith("pbkdf2_sha256$")) return false;
         try {
@@ -54,8 +83,7 @@ public final class PasswordHasher {
     private static byte[] pbkdf2(char[] password, byte[] salt, int iterations, int keyLength) {
         try {
             PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, keyLength);
-            SecretKeyFactory skf = SecretKeyFactory.getInstance(ALGORITHM);
-            byte[] res = skf.generateSecret(spec).getEncoded();
+            byte[] res = KDF.get().generateSecret(spec).getEncoded();
             spec.clearPassword();
             return res;
         } catch (GeneralSecurityException e) {
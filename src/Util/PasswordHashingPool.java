@@ -0,0 +1,79 @@
+package Util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded worker pool for password hashing and verification.
+ *
+ * PBKDF2 is CPU-bound by design, so the pool is capped below the core count
+ * (hpms.auth.threads, default cores - 1, at most 4) to leave the UI and the
+ * database threads room. Waiting work is limited to hpms.auth.queueSize
+ * (default 32); once that is full new work is refused straight away with a
+ * RejectedExecutionException in the returned future instead of piling up
+ * behind a burst of logins.
+ */
+public final class PasswordHashingPool {
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    private static final class Holder {
+        static final PasswordHashingPool INSTANCE = new PasswordHashingPool(
+                Integer.getInteger("hpms.auth.threads",
+                        Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1))),
+                Integer.getInteger("hpms.auth.queueSize", 32));
+    }
+
+    public static PasswordHashingPool getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    public PasswordHashingPool(int threads, int queueSize) {
+        AtomicInteger seq = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "hpms-auth-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        int n = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(n, n, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                factory, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Run a task on the pool. The future fails with RejectedExecutionException
+     * when the queue is full.
+     */
+    public <R> CompletableFuture<R> submit(Supplier<R> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            CompletableFuture<R> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }
+    }
+
+    /** Tasks waiting for a worker. */
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /** Tasks refused because the queue was full. */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
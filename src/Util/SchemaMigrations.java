@@ -0,0 +1,147 @@
+package Util;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+/**
+ * Upgrades databases created from an older sql/schema.sql in place.
+ *
+ * sql/schema.sql only uses CREATE ... IF NOT EXISTS, so re-running it never
+ * adds a column to an existing table. Each step here checks the database
+ * metadata first and does only what is missing, so {@link #apply} is cheap to
+ * call on every start and works the same on MySQL/MariaDB and H2.
+ *
+ * Current steps: the lower-cased key columns users.username_lower,
+ * users.email_lower and patients.last_name_lower (added, backfilled from their
+ * source column and indexed), the index on patients.created_at and the
+ * medical_records.prescription_summary column.
+ */
+public final class SchemaMigrations {
+
+    /** A lower-cased copy of a column, used for index-friendly case-insensitive lookups. */
+    private static final class LowerKey {
+        final String table;
+        final String column;
+        final String source;
+        final String index;
+
+        LowerKey(String table, String column, String source, String index) {
+            this.table = table;
+            this.column = column;
+            this.source = source;
+            this.index = index;
+        }
+    }
+
+    private static final LowerKey[] LOWER_KEYS = {
+            new LowerKey("users", "username_lower", "username", "idx_users_username_lower"),
+            new LowerKey("users", "email_lower", "email", "idx_users_email_lower"),
+            new LowerKey("patients", "last_name_lower", "last_name", "idx_patients_last_name_lower"),
+    };
+
+    private SchemaMigrations() {
+    }
+
+    /** Apply every step the connected database still needs; failures are logged, not thrown. */
+    public static void apply() {
+        try (Connection c = DB.getConnection(); Statement st = c.createStatement()) {
+            DatabaseMetaData meta = c.getMetaData();
+            for (LowerKey k : LOWER_KEYS) {
+                try {
+                    addLowerKey(c, meta, st, k);
+                } catch (SQLException ex) {
+                    System.err.println("[SchemaMigrations] Error adding " + k.table + "." + k.column + ": " + ex.getMessage());
+                }
+            }
+            try {
+                ensureIndex(c, meta, st, "patients", "idx_patients_created_at", "created_at");
+            } catch (SQLException ex) {
+                System.err.println("[SchemaMigrations] Error indexing patients.created_at: " + ex.getMessage());
+            }
+            try {
+                ensureColumn(c, meta, st, "medical_records", "prescription_summary", "TEXT");
+            } catch (SQLException ex) {
+                System.err.println("[SchemaMigrations] Error adding medical_records.prescription_summary: "
+                        + ex.getMessage());
+            }
+        } catch (SQLException ex) {
+            System.err.println("[SchemaMigrations] Cannot migrate schema: " + ex.getMessage());
+        }
+    }
+
+    private static void addLowerKey(Connection c, DatabaseMetaData meta, Statement st, LowerKey k) throws SQLException {
+        if (!hasTable(c, meta, k.table))
+            return;
+        ensureColumn(c, meta, st, k.table, k.column, "VARCHAR(100)");
+        // rows written before the column existed (or by anything other than the repositories)
+        int filled = st.executeUpdate("UPDATE " + k.table + " SET " + k.column + " = LOWER(" + k.source + ") WHERE "
+                + k.column + " IS NULL AND " + k.source + " IS NOT NULL");
+        if (filled > 0)
+            System.out.println("[SchemaMigrations] Backfilled " + filled + " rows of " + k.table + "." + k.column);
+        ensureIndex(c, meta, st, k.table, k.index, k.column);
+    }
+
+    private static void ensureColumn(Connection c, DatabaseMetaData meta, Statement st, String table, String column,
+            String type) throws SQLException {
+        if (!hasTable(c, meta, table) || hasColumn(c, meta, table, column))
+            return;
+        st.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+        System.out.println("[SchemaMigrations] Added column " + table + "." + column);
+    }
+
+    private static void ensureIndex(Connection c, DatabaseMetaData meta, Statement st, String table, String index,
+            String column) throws SQLException {
+        if (!hasTable(c, meta, table) || hasIndex(c, meta, table, index))
+            return;
+        st.execute("CREATE INDEX " + index + " ON " + table + " (" + column + ")");
+        System.out.println("[SchemaMigrations] Created index " + index);
+    }
+
+    // --- Metadata ---------------------------------------------------
+    // H2 reports unquoted names in upper case, MySQL as written: try both
+
+    private static boolean hasTable(Connection c, DatabaseMetaData meta, String table) throws SQLException {
+        for (String t : names(table)) {
+            try (ResultSet rs = meta.getTables(c.getCatalog(), null, t, null)) {
+                if (rs.next())
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasColumn(Connection c, DatabaseMetaData meta, String table, String column)
+            throws SQLException {
+        for (String t : names(table)) {
+            try (ResultSet rs = meta.getColumns(c.getCatalog(), null, t, null)) {
+                while (rs.next()) {
+                    if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME")))
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasIndex(Connection c, DatabaseMetaData meta, String table, String index)
+            throws SQLException {
+        for (String t : names(table)) {
+            try (ResultSet rs = meta.getIndexInfo(c.getCatalog(), null, t, false, true)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME")))
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static String[] names(String name) {
+        String upper = name.toUpperCase(Locale.ROOT);
+        return upper.equals(name) ? new String[] { name } : new String[] { name, upper };
+    }
+}
@@ -0,0 +1,261 @@
+package Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL differences between the databases HPMS runs on.
+ * Resolved from the JDBC URL in config/db.properties (see {@link DB#getDialect()}).
+ *
+ * sql/schema.sql is written for MySQL; {@link #translateDdl} rewrites each of
+ * its statements into what the target database accepts, so the same script
+ * initializes MySQL/MariaDB and an embedded H2 database.
+ */
+public enum SqlDialect {
+    MYSQL {
+        /**
+         * INSERT ... ON DUPLICATE KEY UPDATE. MySQL fires the update branch for a
+         * clash on any unique key, not just the primary key, so every assignment
+         * is guarded with IF(id = VALUES(id), ...): a clash on e.g. users.username
+         * from a different id leaves the existing row untouched instead of
+         * overwriting another entity. That branch raises no error, so
+         * {@link #upsertSkipsKeyClash()} is true and the repositories check that
+         * the row was written. VALUES() is used rather than the row-alias
+         * syntax so MariaDB (XAMPP) accepts it.
+         */
+        @Override
+        public String upsert(String table, String idColumn, String[] columns, String[] updatableColumns,
+                String createdAtColumn, String updatedAtColumn) {
+            StringBuilder sb = new StringBuilder("INSERT INTO ").append(table).append(" (");
+            appendList(sb, columns);
+            appendTimestampColumns(sb, createdAtColumn, updatedAtColumn);
+            sb.append(") VALUES (");
+            appendPlaceholders(sb, columns.length);
+            appendTimestampValues(sb, createdAtColumn, updatedAtColumn, currentTimestamp());
+            sb.append(") ON DUPLICATE KEY UPDATE ");
+            String guard = idColumn + " = VALUES(" + idColumn + ")";
+            boolean first = true;
+            for (String c : updatableColumns) {
+                if (!first)
+                    sb.append(", ");
+                sb.append(c).append(" = IF(").append(guard).append(", VALUES(").append(c).append("), ").append(c)
+                        .append(')');
+                first = false;
+            }
+            if (updatedAtColumn != null) {
+                if (!first)
+                    sb.append(", ");
+                sb.append(updatedAtColumn).append(" = IF(").append(guard).append(", ").append(currentTimestamp()).append(", ").append(updatedAtColumn)
+                        .append(')');
+                first = false;
+            }
+            if (first) {
+                // nothing to update: make the duplicate a no-op
+                sb.append(idColumn).append(" = ").append(idColumn);
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public String currentTimestamp() {
+            return "NOW()";
+        }
+
+        @Override
+        public boolean upsertSkipsKeyClash() {
+            return true;
+        }
+    },
+    H2 {
+        /** Standard MERGE ... USING keyed on the primary key only. */
+        @Override
+        public String upsert(String table, String idColumn, String[] columns, String[] updatableColumns,
+                String createdAtColumn, String updatedAtColumn) {
+            StringBuilder sb = new StringBuilder("MERGE INTO ").append(table).append(" USING (VALUES (");
+            appendPlaceholders(sb, columns.length);
+            sb.append(")) AS s(");
+            appendList(sb, columns);
+            sb.append(") ON ").append(table).append('.').append(idColumn).append(" = s.").append(idColumn);
+            if (updatableColumns.length > 0 || updatedAtColumn != null) {
+                sb.append(" WHEN MATCHED THEN UPDATE SET ");
+                boolean first = true;
+                for (String c : updatableColumns) {
+                    if (!first)
+                        sb.append(", ");
+                    sb.append(c).append(" = s.").append(c);
+                    first = false;
+                }
+                if (updatedAtColumn != null) {
+                    if (!first)
+                        sb.append(", ");
+                    sb.append(updatedAtColumn).append(" = ").append(currentTimestamp());
+                }
+            }
+            sb.append(" WHEN NOT MATCHED THEN INSERT (");
+            appendList(sb, columns);
+            appendTimestampColumns(sb, createdAtColumn, updatedAtColumn);
+            sb.append(") VALUES (");
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append("s.").append(columns[i]);
+            }
+            appendTimestampValues(sb, createdAtColumn, updatedAtColumn, currentTimestamp());
+            sb.append(')');
+            return sb.toString();
+        }
+
+        @Override
+        public String currentTimestamp() {
+            return "CURRENT_TIMESTAMP";
+        }
+
+        /**
+         * Drops CREATE DATABASE / USE (an embedded database is already the
+         * schema), moves inline INDEX / UNIQUE KEY clauses out into CREATE INDEX
+         * statements and quotes column names H2 reserves. H2 index names are
+         * schema-wide, so the table name is folded into each one
+         * (idx_status on doctors becomes idx_doctors_status).
+         */
+        @Override
+        public List<String> translateDdl(String statement) {
+            String sql = statement.trim();
+            if (MYSQL_ONLY.matcher(sql).find())
+                return Collections.emptyList();
+            Matcher m = CREATE_TABLE.matcher(sql);
+            if (!m.matches())
+                return Collections.singletonList(sql);
+
+            String table = m.group(2);
+            List<String> columns = new ArrayList<>();
+            List<String> indexes = new ArrayList<>();
+            for (String element : splitTopLevel(m.group(3))) {
+                Matcher idx = INLINE_INDEX.matcher(element);
+                if (idx.matches()) {
+                    String name = idx.group(2);
+                    name = name.toLowerCase(Locale.ROOT).startsWith("idx_")
+                            ? "idx_" + table + "_" + name.substring(4)
+                            : table + "_" + name;
+                    indexes.add("CREATE " + (idx.group(1) != null ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + name
+                            + " ON " + table + " (" + idx.group(3).trim() + ")");
+                    continue;
+                }
+                int space = element.indexOf(' ');
+                String first = space < 0 ? element : element.substring(0, space);
+                if (H2_RESERVED.contains(first.toUpperCase(Locale.ROOT)))
+                    element = '"' + first.toUpperCase(Locale.ROOT) + '"' + element.substring(first.length());
+                columns.add(element);
+            }
+
+            List<String> out = new ArrayList<>(indexes.size() + 1);
+            out.add(m.group(1) + "(\n    " + String.join(",\n    ", columns) + "\n)");
+            out.addAll(indexes);
+            return out;
+        }
+    };
+
+    private static final Pattern MYSQL_ONLY = Pattern.compile("(?i)^(CREATE\\s+DATABASE\\b|USE\\s)");
+    private static final Pattern CREATE_TABLE = Pattern
+            .compile("(?is)^(CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+)\\s*)\\((.*)\\)$");
+    private static final Pattern INLINE_INDEX = Pattern
+            .compile("(?is)^(UNIQUE\\s+)?(?:INDEX|KEY)\\s+(\\w+)\\s*\\((.*)\\)$");
+    /** Column names used in sql/schema.sql that are keywords in H2. */
+    private static final Set<String> H2_RESERVED = Collections.singleton("VALUE");
+
+    /**
+     * Build a single-statement insert-or-update. Parameters are bound in the
+     * order of {@code columns}; only {@code updatableColumns} are overwritten when
+     * the row already exists. Timestamp columns (either may be null) are filled by
+     * the database.
+     */
+    public abstract String upsert(String table, String idColumn, String[] columns, String[] updatableColumns,
+            String createdAtColumn, String updatedAtColumn);
+
+    /**
+     * True when {@link #upsert} leaves the table unchanged, without an error,
+     * if the row clashes with a different row on a unique column other than
+     * the primary key. The statement then reports no affected row, and callers
+     * must verify such rows were written; H2's MERGE raises a constraint
+     * violation instead.
+     */
+    public boolean upsertSkipsKeyClash() {
+        return false;
+    }
+
+    /** SQL expression for the current date and time. */
+    public abstract String currentTimestamp();
+
+    /**
+     * Rewrite one statement of the MySQL schema script for this database. May
+     * return no statements (nothing to do) or several (e.g. a table plus its
+     * indexes). MySQL runs the script as written.
+     */
+    public List<String> translateDdl(String statement) {
+        return Collections.singletonList(statement.trim());
+    }
+
+    /** Pick the dialect for a JDBC URL; unknown URLs are treated as MySQL. */
+    public static SqlDialect fromUrl(String url) {
+        if (url != null && url.toLowerCase().startsWith("jdbc:h2:"))
+            return H2;
+        return MYSQL;
+    }
+
+    private static void appendList(StringBuilder sb, String[] items) {
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(items[i]);
+        }
+    }
+
+    private static void appendPlaceholders(StringBuilder sb, int n) {
+        for (int i = 0; i < n; i++)
+            sb.append(i == 0 ? "?" : ", ?");
+    }
+
+    private static void appendTimestampColumns(StringBuilder sb, String createdAt, String updatedAt) {
+        if (createdAt != null)
+            sb.append(", ").append(createdAt);
+        if (updatedAt != null)
+            sb.append(", ").append(updatedAt);
+    }
+
+    private static void appendTimestampValues(StringBuilder sb, String createdAt, String updatedAt, String now) {
+        if (createdAt != null)
+            sb.append(", ").append(now);
+        if (updatedAt != null)
+            sb.append(", ").append(now);
+    }
+
+    /** Split a column/constraint list on commas that are not inside parentheses. */
+    private static List<String> splitTopLevel(String body) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char ch = body.charAt(i);
+            if (ch == '(') {
+                depth++;
+            } else if (ch == ')') {
+                depth--;
+            } else if (ch == ',' && depth == 0) {
+                addPart(parts, body.substring(start, i));
+                start = i + 1;
+            }
+        }
+        addPart(parts, body.substring(start));
+        return parts;
+    }
+
+    private static void addPart(List<String> parts, String part) {
+        String p = part.trim();
+        if (!p.isEmpty())
+            parts.add(p);
+    }
+}
@@ -0,0 +1,201 @@
+package Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection LRU cache of prepared statements keyed by SQL text.
+ *
+ * Callers still write the usual try-with-resources around prepareStatement();
+ * the statement they get is a proxy whose close() clears parameters and parks
+ * the statement for the next caller with the same SQL. If the same SQL is
+ * requested while its cached statement is still open (nested use on one
+ * connection) a plain, uncached statement is returned instead.
+ *
+ * Hit/miss/eviction counters are shared across all connections so they
+ * describe the pool as a whole.
+ */
+final class StatementCache {
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Return a statement for the given SQL. logicalConnection is what the
+     * statement reports from getConnection() so callers never see the physical
+     * connection.
+     */
+    synchronized PreparedStatement prepare(String sql, Connection logicalConnection) throws SQLException {
+        if (maxSize <= 0) {
+            MISSES.incrementAndGet();
+            return physical.prepareStatement(sql);
+        }
+        Entry e = entries.get(sql);
+        if (e != null && !e.inUse) {
+            HITS.incrementAndGet();
+            e.inUse = true;
+            return e.newHandle(logicalConnection);
+        }
+        MISSES.incrementAndGet();
+        PreparedStatement ps = physical.prepareStatement(sql);
+        if (e != null) {
+            // same SQL already checked out on this connection: hand out an uncached one
+            return ps;
+        }
+        Entry created = new Entry(sql, ps);
+        created.inUse = true;
+        entries.put(sql, created);
+        evictOverflow();
+        return created.newHandle(logicalConnection);
+    }
+
+    private void evictOverflow() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next();
+            it.remove();
+            eldest.evicted = true;
+            EVICTIONS.incrementAndGet();
+            if (!eldest.inUse)
+                closeQuietly(eldest.statement);
+        }
+    }
+
+    private synchronized void checkIn(Entry e) {
+        e.inUse = false;
+        if (e.evicted) {
+            closeQuietly(e.statement);
+            return;
+        }
+        try {
+            e.statement.clearParameters();
+            e.statement.clearBatch();
+        } catch (SQLException ex) {
+            // statement is unusable; drop it so the next caller prepares a fresh one
+            entries.remove(e.sql);
+            closeQuietly(e.statement);
+        }
+    }
+
+    /**
+     * Called when the owning connection goes back to the pool. Statements the
+     * borrower never closed are dropped from the cache so they cannot be handed
+     * to the next borrower while a stale handle still points at them.
+     */
+    synchronized void onConnectionReturned() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry e = it.next();
+            if (e.inUse) {
+                it.remove();
+                e.evicted = true;
+            }
+        }
+    }
+
+    /** Close every cached statement (used when the physical connection is discarded). */
+    synchronized void clear() {
+        for (Entry e : entries.values())
+            closeQuietly(e.statement);
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    static long getHits() {
+        return HITS.get();
+    }
+
+    static long getMisses() {
+        return MISSES.get();
+    }
+
+    static long getEvictions() {
+        return EVICTIONS.get();
+    }
+
+    private final class Entry {
+        final String sql;
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        Entry(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+
+        PreparedStatement newHandle(Connection logicalConnection) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new Handle(this, logicalConnection));
+        }
+    }
+
+    /** Logical statement given to one caller; close() checks the entry back in. */
+    private final class Handle implements InvocationHandler {
+        private Entry entry;
+        private final Connection logicalConnection;
+
+        Handle(Entry entry, Connection logicalConnection) {
+            this.entry = entry;
+            this.logicalConnection = logicalConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (entry != null) {
+                        Entry e = entry;
+                        entry = null;
+                        checkIn(e);
+                    }
+                    return null;
+                case "isClosed":
+                    return entry == null;
+                case "getConnection":
+                    return logicalConnection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Entry e = entry;
+            if (e == null)
+                throw new SQLException("Statement is closed");
+            try {
+                return method.invoke(e.statement, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}